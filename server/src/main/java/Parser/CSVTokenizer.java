@@ -0,0 +1,19 @@
+package Parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Splits CSV content into rows of fields. A tokenizer owns its underlying source and hands rows
+ * back one at a time, so the Parser never needs to know how records are delimited.
+ */
+public interface CSVTokenizer extends Closeable {
+  /**
+   * Reads the next record from the underlying source.
+   *
+   * @return The fields of the next record, or null once the source is exhausted.
+   * @throws IOException if there's an error reading from the source.
+   */
+  List<String> nextRow() throws IOException;
+}
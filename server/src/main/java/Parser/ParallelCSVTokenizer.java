@@ -0,0 +1,257 @@
+package Parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A tokenizer that splits a file into byte ranges and tokenizes them on a fork-join pool, while
+ * still handing rows back one at a time and in file order. It can be given to the Parser like any
+ * other tokenizer, so header handling, the creator and the error list behave exactly as in a
+ * sequential load.
+ *
+ * <p>The file is memory-mapped and chunk boundaries are placed at record boundaries in three
+ * parallel passes: the double quotes in each nominal chunk are counted, a prefix sum of those
+ * counts tells whether each chunk starts inside a quoted field, and each chunk then moves its start
+ * forward to the first line feed that lies outside quotes. Chunks are then decoded as UTF-8 and fed
+ * through a {@link StateMachineTokenizer}. This relies on quotes being balanced as RFC 4180
+ * requires; a stray quote inside an unquoted field can shift a boundary. Records must end in {@code
+ * \n} or {@code \r\n} to be split; a file using bare {@code \r} is read as a single chunk.
+ *
+ * <p>Only a bounded number of chunks are tokenized ahead of the consumer, so memory use stays
+ * proportional to the chunk size and the pool's parallelism rather than to the file size.
+ */
+public class ParallelCSVTokenizer implements CSVTokenizer {
+  /** The default target size of one chunk. */
+  public static final int DEFAULT_CHUNK_BYTES = 2 << 20;
+
+  private static final int SCAN_BLOCK_BYTES = 64 << 10;
+
+  private final FileChannel channel;
+  private final ForkJoinPool pool;
+  private final long[] boundaries;
+  private final int window;
+  private final Deque<ForkJoinTask<List<List<String>>>> pending;
+  private int nextChunk;
+  private Iterator<List<String>> current;
+  private volatile long bytesHandedOut;
+
+  /**
+   * Constructs a new ParallelCSVTokenizer with the default chunk size.
+   *
+   * @param file The CSV file to read.
+   * @param pool The pool that tokenizes chunks.
+   * @throws IOException if the file cannot be opened or scanned.
+   */
+  public ParallelCSVTokenizer(Path file, ForkJoinPool pool) throws IOException {
+    this(file, pool, DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Constructs a new ParallelCSVTokenizer.
+   *
+   * @param file The CSV file to read.
+   * @param pool The pool that tokenizes chunks.
+   * @param chunkBytes The target size of one chunk, in bytes.
+   * @throws IOException if the file cannot be opened or scanned.
+   */
+  public ParallelCSVTokenizer(Path file, ForkJoinPool pool, int chunkBytes) throws IOException {
+    if (chunkBytes <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.pool = pool;
+    this.window = 2 * pool.getParallelism();
+    this.pending = new ArrayDeque<>();
+    this.nextChunk = 0;
+    this.current = Collections.emptyIterator();
+    try {
+      this.boundaries = findBoundaries(chunkBytes);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of chunks the file was split into.
+   *
+   * @return The number of chunks.
+   */
+  public int chunkCount() {
+    return boundaries.length - 1;
+  }
+
+  /**
+   * Returns how far into the file the rows handed out so far reach, rounded up to the end of the
+   * chunk being read. Safe to call from another thread to report progress.
+   *
+   * @return The number of bytes of the file whose rows have been, or are being, handed out.
+   */
+  public long bytesRead() {
+    return bytesHandedOut;
+  }
+
+  @Override
+  public List<String> nextRow() throws IOException {
+    while (!current.hasNext()) {
+      while (pending.size() < window && nextChunk < chunkCount()) {
+        long start = boundaries[nextChunk];
+        long end = boundaries[nextChunk + 1];
+        pending.addLast(pool.submit(() -> tokenize(start, end)));
+        nextChunk++;
+      }
+      if (pending.isEmpty()) {
+        return null;
+      }
+      current = join(pending.removeFirst()).iterator();
+      bytesHandedOut = boundaries[nextChunk - pending.size()];
+    }
+    return current.next();
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (ForkJoinTask<?> task : pending) {
+      task.cancel(false);
+    }
+    pending.clear();
+    channel.close();
+  }
+
+  /**
+   * Splits the file into chunks that each start at a record boundary.
+   *
+   * @param chunkBytes The target size of one chunk.
+   * @return The start offset of every chunk, followed by the file size.
+   */
+  private long[] findBoundaries(int chunkBytes) throws IOException {
+    long size = channel.size();
+    int nominal = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+    long[] nominalStarts = new long[nominal + 1];
+    for (int i = 0; i <= nominal; i++) {
+      nominalStarts[i] = Math.min(size, (long) i * chunkBytes);
+    }
+
+    // Pass 1: quote count of every nominal chunk.
+    List<ForkJoinTask<Long>> counts = new ArrayList<>();
+    for (int i = 0; i < nominal; i++) {
+      long start = nominalStarts[i];
+      long end = nominalStarts[i + 1];
+      counts.add(pool.submit(() -> countQuotes(start, end)));
+    }
+    // Pass 2: whether each chunk starts inside a quoted field.
+    boolean[] startsQuoted = new boolean[nominal];
+    long quotes = 0;
+    for (int i = 0; i < nominal; i++) {
+      startsQuoted[i] = quotes % 2 == 1;
+      quotes += join(counts.get(i));
+    }
+    // Pass 3: move each start to the first line feed outside quotes.
+    List<ForkJoinTask<Long>> starts = new ArrayList<>();
+    for (int i = 1; i < nominal; i++) {
+      long start = nominalStarts[i];
+      boolean quoted = startsQuoted[i];
+      starts.add(pool.submit(() -> nextRecordStart(start, quoted, size)));
+    }
+
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(0L);
+    for (ForkJoinTask<Long> task : starts) {
+      long start = join(task);
+      // A quoted field spanning several chunks pushes their starts to the same place.
+      if (start > boundaries.get(boundaries.size() - 1) && start < size) {
+        boundaries.add(start);
+      }
+    }
+    boundaries.add(size);
+    return boundaries.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private long countQuotes(long start, long end) throws IOException {
+    MappedByteBuffer bytes = map(start, end);
+    byte[] block = new byte[SCAN_BLOCK_BYTES];
+    long quotes = 0;
+    while (bytes.hasRemaining()) {
+      int length = Math.min(block.length, bytes.remaining());
+      bytes.get(block, 0, length);
+      for (int i = 0; i < length; i++) {
+        if (block[i] == '"') {
+          quotes++;
+        }
+      }
+    }
+    return quotes;
+  }
+
+  private long nextRecordStart(long from, boolean quoted, long size) throws IOException {
+    long position = from;
+    while (position < size) {
+      long end = Math.min(size, position + SCAN_BLOCK_BYTES * 16L);
+      MappedByteBuffer bytes = map(position, end);
+      byte[] block = new byte[SCAN_BLOCK_BYTES];
+      while (bytes.hasRemaining()) {
+        int length = Math.min(block.length, bytes.remaining());
+        bytes.get(block, 0, length);
+        for (int i = 0; i < length; i++) {
+          if (block[i] == '"') {
+            quoted = !quoted;
+          } else if (block[i] == '\n' && !quoted) {
+            return position + i + 1;
+          }
+        }
+        position += length;
+      }
+    }
+    return size;
+  }
+
+  private List<List<String>> tokenize(long start, long end) throws IOException {
+    // Copying out of the mapping and decoding a byte[] is much faster than decoding the mapped
+    // buffer in place, and ASCII text ends up in a compact one-byte-per-char String.
+    byte[] bytes = new byte[(int) (end - start)];
+    map(start, end).get(bytes);
+    String text = new String(bytes, StandardCharsets.UTF_8);
+    bytes = null;
+    List<List<String>> rows = new ArrayList<>();
+    try (StateMachineTokenizer tokenizer = new StateMachineTokenizer(new StringReader(text))) {
+      List<String> row;
+      while ((row = tokenizer.nextRow()) != null) {
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  private MappedByteBuffer map(long start, long end) throws IOException {
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IOException("A single record spans more than 2 GB starting at byte " + start);
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+  }
+
+  /** Waits for a task, rethrowing the IOException it failed with, if any. */
+  private static <T> T join(ForkJoinTask<T> task) throws IOException {
+    try {
+      return task.join();
+    } catch (RuntimeException e) {
+      // Checked exceptions thrown by a submitted Callable come back wrapped.
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw e;
+    }
+  }
+}
@@ -3,9 +3,13 @@ package Parser;
 import java.io.*;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A generic parser class that reads and parses content from a Reader object.
@@ -13,8 +17,8 @@ import java.util.regex.Pattern;
  * @param <T> The type of objects to be created from each row of the parsed content.
  */
 public class Parser<T> {
-  /** The reader object containing the content to be parsed. */
-  private final Reader reader;
+  /** The tokenizer that splits the content into rows of fields. */
+  private final CSVTokenizer tokenizer;
 
   /** Indicates whether the content contains a header row. */
   private final boolean containsHeader;
@@ -32,7 +36,7 @@ public class Parser<T> {
   private List<String> header;
 
   /**
-   * Constructs a new Parser object.
+   * Constructs a new Parser object that splits rows with the original {@link RegexTokenizer}.
    *
    * @param reader The reader object containing the content to be parsed.
    * @param containsHeader Indicates whether the content contains a header row.
@@ -40,17 +44,36 @@ public class Parser<T> {
    * @throws IllegalArgumentException if the reader is null.
    */
   public Parser(Reader reader, boolean containsHeader, CreatorFromRow<T> creator) {
-    if (reader == null) {
-      throw new IllegalArgumentException("Content cannot be null, must extend Reader class");
+    this(tokenizerFor(reader), containsHeader, creator);
+  }
+
+  /**
+   * Constructs a new Parser object that reads its rows from the given tokenizer.
+   *
+   * @param tokenizer The tokenizer that splits the content into rows of fields.
+   * @param containsHeader Indicates whether the content contains a header row.
+   * @param creator The creator object responsible for creating instances of T from parsed rows.
+   * @throws IllegalArgumentException if the tokenizer is null.
+   */
+  public Parser(CSVTokenizer tokenizer, boolean containsHeader, CreatorFromRow<T> creator) {
+    if (tokenizer == null) {
+      throw new IllegalArgumentException("Tokenizer cannot be null");
     }
     this.containsHeader = containsHeader;
-    this.reader = reader;
+    this.tokenizer = tokenizer;
     this.parsedContent = new ArrayList<>();
     this.creator = creator;
     this.errors = new ArrayList<>();
     this.header = null;
   }
 
+  private static CSVTokenizer tokenizerFor(Reader reader) {
+    if (reader == null) {
+      throw new IllegalArgumentException("Content cannot be null, must extend Reader class");
+    }
+    return new RegexTokenizer(reader);
+  }
+
   public boolean containsHeader() {
     return containsHeader;
   }
@@ -72,42 +95,125 @@ public class Parser<T> {
   }
 
   /**
-   * Parses the content from the reader object. This method reads the content line by line, splits
-   * each line into fields, and attempts to create objects of type T using the provided creator.
-   * Successful parses are added to parsedContent, while errors are added to the errors list.
+   * Parses the content from the tokenizer. This method reads the content row by row and attempts to
+   * create objects of type T using the provided creator. Successful parses are added to
+   * parsedContent, while errors are added to the errors list.
    *
    * @throws IOException if there's an error reading from the reader.
    */
   public void parse() throws IOException {
-    String line;
-    Pattern regexSplitCSVRow = Pattern.compile(",(?=([^\\\"]*\\\"[^\\\"]*\\\")*(?![^\\\"]*\\\"))");
-    BufferedReader readInBuffer = new BufferedReader(reader);
-    int lineNumber = 1;
-    while ((line = readInBuffer.readLine()) != null) {
-      String[] result = regexSplitCSVRow.split(line);
-      List<String> lineToArr = Arrays.stream(result).toList();
+    try {
+      Iterator<T> rows = iterator();
+      while (rows.hasNext()) {
+        parsedContent.add(rows.next());
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Returns a pull-based iterator over the content. Rows are read from the tokenizer and turned
+   * into objects of type T only as the iterator is advanced, so nothing is collected into
+   * parsedContent and memory use stays constant regardless of file size. Rows that fail to be
+   * created are skipped and recorded in the errors list, exactly as parse() would. The header, if
+   * any, is available from getHeader() once the first element has been requested. The tokenizer is
+   * closed when the iterator is exhausted.
+   *
+   * <p>A Parser reads its content once: call either parse() or iterator()/stream(), not both.
+   *
+   * @return An iterator over the successfully created objects.
+   * @throws UncheckedIOException from hasNext() if there's an error reading from the reader.
+   */
+  public Iterator<T> iterator() {
+    return new RowIterator();
+  }
+
+  /**
+   * Returns a lazily populated, sequential stream over the content. See {@link #iterator()};
+   * closing the stream closes the underlying tokenizer.
+   *
+   * @return A stream of the successfully created objects.
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                iterator(), Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(
+            () -> {
+              try {
+                tokenizer.close();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  /** Iterator that reads one row ahead of the caller and applies the creator to it. */
+  private class RowIterator implements Iterator<T> {
+    private int lineNumber = 1;
+    /** Field count of the first created row, or -1 if unknown or the rows are not lists. */
+    private int expectedWidth = -1;
+
+    private boolean firstCreated = true;
+    private boolean exhausted = false;
+    private T next = null;
+
+    @Override
+    public boolean hasNext() {
+      try {
+        while (next == null && !exhausted) {
+          advance();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T current = next;
+      next = null;
+      return current;
+    }
+
+    /** Reads a single row, leaving it in next if it was created successfully. */
+    private void advance() throws IOException {
+      List<String> lineToArr = tokenizer.nextRow();
+      if (lineToArr == null) {
+        exhausted = true;
+        tokenizer.close();
+        return;
+      }
       if (!(lineNumber == 1 && containsHeader)) {
         try {
           T created_object = creator.create(lineToArr);
-          if (!parsedContent.isEmpty()
-              && (parsedContent.get(0) instanceof List
-                  && ((List<?>) created_object).size()
-                      != ((List<?>) parsedContent.get(0)).size())) {
-            this.errors.add(
+          if (expectedWidth >= 0 && ((List<?>) created_object).size() != expectedWidth) {
+            errors.add(
                 new FactoryFailureException(
                     "Inconsistent number of fields, line number " + lineNumber, lineToArr));
           } else {
-            parsedContent.add(created_object);
+            if (firstCreated) {
+              firstCreated = false;
+              if (created_object instanceof List) {
+                expectedWidth = ((List<?>) created_object).size();
+              }
+            }
+            next = created_object;
           }
         } catch (FactoryFailureException e) {
-          this.errors.add(e);
+          errors.add(e);
         }
       } else {
-        this.header = lineToArr;
+        header = lineToArr;
       }
       lineNumber++;
     }
-    readInBuffer.close();
   }
 
   /**
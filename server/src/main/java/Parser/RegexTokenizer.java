@@ -0,0 +1,43 @@
+package Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The original line-based tokenizer. Each physical line is one record, and fields are split on
+ * commas that sit outside of double quotes. Quote characters are left in the fields and quoted
+ * newlines are not supported.
+ */
+public class RegexTokenizer implements CSVTokenizer {
+  private static final Pattern regexSplitCSVRow =
+      Pattern.compile(",(?=([^\\\"]*\\\"[^\\\"]*\\\")*(?![^\\\"]*\\\"))");
+
+  private final BufferedReader readInBuffer;
+
+  /**
+   * Constructs a new RegexTokenizer over the given reader.
+   *
+   * @param reader The reader containing the CSV content.
+   */
+  public RegexTokenizer(Reader reader) {
+    this.readInBuffer = new BufferedReader(reader);
+  }
+
+  @Override
+  public List<String> nextRow() throws IOException {
+    String line = readInBuffer.readLine();
+    if (line == null) {
+      return null;
+    }
+    return Arrays.stream(regexSplitCSVRow.split(line)).toList();
+  }
+
+  @Override
+  public void close() throws IOException {
+    readInBuffer.close();
+  }
+}
@@ -0,0 +1,161 @@
+package Parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-pass RFC 4180 tokenizer. Characters are read one at a time from an internal buffer and
+ * fed through a small state machine, so every character is looked at exactly once regardless of how
+ * many quotes a line contains.
+ *
+ * <p>Quoted fields may contain commas, escaped quotes ({@code ""}) and line breaks; the enclosing
+ * quotes are removed from the returned field. Records may end in {@code \n}, {@code \r\n} or {@code
+ * \r}. Malformed input is handled leniently: a stray quote inside an unquoted field is kept as a
+ * literal, and an unterminated quoted field runs to the end of the input.
+ */
+public class StateMachineTokenizer implements CSVTokenizer {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private enum State {
+    /** At the first character of a field. */
+    FIELD_START,
+    /** Inside a field that did not start with a quote. */
+    UNQUOTED,
+    /** Inside a quoted field. */
+    QUOTED,
+    /** Just saw a quote while inside a quoted field; it either closes the field or is escaped. */
+    QUOTE_IN_QUOTED
+  }
+
+  private final Reader reader;
+  private final char[] buffer;
+  private final StringBuilder field;
+  private int position;
+  private int limit;
+  /** Set when the previous record ended on '\r', so that a following '\n' is swallowed. */
+  private boolean skipLineFeed;
+
+  /**
+   * Constructs a new StateMachineTokenizer over the given reader.
+   *
+   * @param reader The reader containing the CSV content.
+   */
+  public StateMachineTokenizer(Reader reader) {
+    this.reader = reader;
+    this.buffer = new char[BUFFER_SIZE];
+    this.field = new StringBuilder();
+    this.position = 0;
+    this.limit = 0;
+    this.skipLineFeed = false;
+  }
+
+  @Override
+  @SuppressWarnings("fallthrough") // A field's first character falls through to UNQUOTED.
+  public List<String> nextRow() throws IOException {
+    if (skipLineFeed) {
+      skipLineFeed = false;
+      if (!fill()) {
+        return null;
+      }
+      if (buffer[position] == '\n') {
+        position++;
+      }
+    }
+    if (!fill()) {
+      return null;
+    }
+
+    List<String> row = new ArrayList<>();
+    field.setLength(0);
+    State state = State.FIELD_START;
+    while (fill()) {
+      char c = buffer[position++];
+      switch (state) {
+        case FIELD_START:
+          if (c == '"') {
+            state = State.QUOTED;
+            break;
+          }
+          state = State.UNQUOTED;
+          // fall through: the first character is handled like any other unquoted character
+        case UNQUOTED:
+          if (c == ',') {
+            endField(row);
+            state = State.FIELD_START;
+          } else if (c == '\n' || c == '\r') {
+            return endRow(row, c);
+          } else {
+            field.append(c);
+          }
+          break;
+        case QUOTED:
+          if (c == '"') {
+            state = State.QUOTE_IN_QUOTED;
+          } else {
+            field.append(c);
+          }
+          break;
+        case QUOTE_IN_QUOTED:
+          if (c == '"') {
+            field.append('"');
+            state = State.QUOTED;
+          } else if (c == ',') {
+            endField(row);
+            state = State.FIELD_START;
+          } else if (c == '\n' || c == '\r') {
+            return endRow(row, c);
+          } else {
+            // Text after a closing quote is kept rather than rejected.
+            field.append(c);
+            state = State.UNQUOTED;
+          }
+          break;
+      }
+    }
+    // The input ended without a trailing line break.
+    endField(row);
+    return row;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void endField(List<String> row) {
+    row.add(field.toString());
+    field.setLength(0);
+  }
+
+  private List<String> endRow(List<String> row, char terminator) {
+    endField(row);
+    skipLineFeed = terminator == '\r';
+    return row;
+  }
+
+  /**
+   * Ensures at least one unread character is buffered.
+   *
+   * @return false if the reader is exhausted.
+   * @throws IOException if there's an error reading from the reader.
+   */
+  private boolean fill() throws IOException {
+    if (position < limit) {
+      return true;
+    }
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      limit = 0;
+      position = 0;
+      return false;
+    }
+    position = 0;
+    limit = read;
+    return true;
+  }
+}
@@ -0,0 +1,153 @@
+package Searcher;
+
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Searches columnar tables by splitting the row range across a {@link ForkJoinPool}. Each task
+ * flags matches in its own slice of a shared array, so results come back in the original row order
+ * without any merging. Tables smaller than the threshold, exact-match searches (which are answered
+ * from an index) and columns with a trigram index are handled by {@link Searcher} on the calling
+ * thread.
+ */
+public class ParallelSearcher {
+  /** The default number of rows below which a search is not worth splitting. */
+  public static final int DEFAULT_THRESHOLD = 100_000;
+
+  /** The smallest slice of rows handed to a single task. */
+  private static final int MIN_SLICE_ROWS = 8_192;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  /**
+   * Constructs a new ParallelSearcher.
+   *
+   * @param pool The pool to run searches on.
+   * @param threshold The row count below which searches run sequentially.
+   */
+  public ParallelSearcher(ForkJoinPool pool, int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold must not be negative");
+    }
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Searches for a specific value in a columnar table, either in a specific column or across all
+   * columns. Matching rows are returned in their original order.
+   *
+   * @param table The table to search through.
+   * @param value The value to search for.
+   * @param column An Optional containing the index of the column to search in, or empty to search
+   *     all columns.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @param substringMatch Whether to perform substring matching.
+   * @return The matching rows.
+   */
+  public List<List<String>> search(
+      ColumnarTable table,
+      String value,
+      Optional<Integer> column,
+      boolean caseSensitive,
+      boolean substringMatch) {
+    int[] rows = matchingRows(table, value, column, caseSensitive, substringMatch);
+    List<List<String>> matches = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      matches.add(table.getRow(row));
+    }
+    return matches;
+  }
+
+  /**
+   * Finds the indices of the rows of a columnar table that match a search, scanning in parallel
+   * when the table has at least threshold rows.
+   *
+   * @param table The table to search through.
+   * @param value The value to search for.
+   * @param column An Optional containing the index of the column to search in, or empty to search
+   *     all columns.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @param substringMatch Whether to perform substring matching.
+   * @return The matching row indices in ascending order.
+   */
+  public int[] matchingRows(
+      ColumnarTable table,
+      String value,
+      Optional<Integer> column,
+      boolean caseSensitive,
+      boolean substringMatch) {
+    if (!substringMatch || table.rowCount() < threshold) {
+      return Searcher.matchingRows(table, value, column, caseSensitive, substringMatch);
+    }
+    String searchValue = caseSensitive ? value : value.toLowerCase(Locale.ROOT);
+    boolean[] matched = new boolean[table.rowCount()];
+    List<Searcher.CellMatcher> scanned = new ArrayList<>();
+    int first = column.orElse(0);
+    int last = column.isPresent() ? first : table.columnCount() - 1;
+    for (int i = first; i <= last; i++) {
+      Searcher.CellMatcher matcher =
+          Searcher.substringMatcher(table, i, searchValue, caseSensitive);
+      int[] candidates = Searcher.trigramCandidates(table, i, searchValue, caseSensitive);
+      if (candidates != null) {
+        Searcher.markCandidates(matcher, candidates, matched);
+      } else {
+        scanned.add(matcher);
+      }
+    }
+    if (!scanned.isEmpty()) {
+      int slice = Math.max(MIN_SLICE_ROWS, matched.length / (4 * pool.getParallelism()));
+      pool.invoke(
+          new ScanTask(
+              scanned.toArray(new Searcher.CellMatcher[0]), matched, 0, matched.length, slice));
+    }
+    return Searcher.matchedRows(matched);
+  }
+
+  /** Flags the matching rows of a range, splitting it in half until it is one slice long. */
+  private static class ScanTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Searcher.CellMatcher[] matchers;
+    private final boolean[] matched;
+    private final int from;
+    private final int to;
+    private final int slice;
+
+    ScanTask(Searcher.CellMatcher[] matchers, boolean[] matched, int from, int to, int slice) {
+      this.matchers = matchers;
+      this.matched = matched;
+      this.from = from;
+      this.to = to;
+      this.slice = slice;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= slice) {
+        for (int row = from; row < to; row++) {
+          if (matched[row]) {
+            continue;
+          }
+          for (Searcher.CellMatcher matcher : matchers) {
+            if (matcher.matches(row)) {
+              matched[row] = true;
+              break;
+            }
+          }
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new ScanTask(matchers, matched, from, middle, slice),
+          new ScanTask(matchers, matched, middle, to, slice));
+    }
+  }
+}
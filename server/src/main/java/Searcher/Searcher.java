@@ -1,8 +1,17 @@
 package Searcher;
 
+import edu.brown.cs.student.main.Table.ArenaColumn;
+import edu.brown.cs.student.main.Table.Column;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.DictionaryColumn;
+import edu.brown.cs.student.main.Table.TrigramIndex;
+import edu.brown.cs.student.main.Table.ValueIndex;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 /** A utility class for searching through CSV content. */
 public class Searcher {
@@ -11,7 +20,9 @@ public class Searcher {
    * Searches for a specific value in the given content, either in a specific column or across all
    * columns.
    *
-   * @param content The CSV content to search through, represented as a list of rows.
+   * @param content The CSV content to search through, represented as rows. Any Iterable works, so a
+   *     lazily read source such as {@code parser::iterator} is searched without holding the whole
+   *     file in memory; only the matches are kept.
    * @param value The value to search for.
    * @param column An Optional containing the index of the column to search in, or empty to search
    *     all columns.
@@ -19,13 +30,13 @@ public class Searcher {
    * @param substringMatch Whether to perform substring matching.
    */
   public static List<List<String>> search(
-      List<List<String>> content,
+      Iterable<List<String>> content,
       String value,
       Optional<Integer> column,
       boolean caseSensitive,
       boolean substringMatch) {
     ArrayList<List<String>> matches = new ArrayList<>();
-    String searchValue = caseSensitive ? value : value.toLowerCase();
+    String searchValue = caseSensitive ? value : value.toLowerCase(Locale.ROOT);
 
     for (List<String> row : content) {
       if (column.isEmpty()) {
@@ -40,6 +51,268 @@ public class Searcher {
     return matches;
   }
 
+  /**
+   * Searches for a specific value in a columnar table, either in a specific column or across all
+   * columns. Matching rows are returned in their original order.
+   *
+   * @param table The table to search through.
+   * @param value The value to search for.
+   * @param column An Optional containing the index of the column to search in, or empty to search
+   *     all columns.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @param substringMatch Whether to perform substring matching.
+   * @return The matching rows.
+   */
+  public static List<List<String>> search(
+      ColumnarTable table,
+      String value,
+      Optional<Integer> column,
+      boolean caseSensitive,
+      boolean substringMatch) {
+    int[] rows = matchingRows(table, value, column, caseSensitive, substringMatch);
+    List<List<String>> matches = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      matches.add(table.getRow(row));
+    }
+    return matches;
+  }
+
+  /**
+   * Finds the indices of the rows of a columnar table that match a search. Exact-match searches are
+   * answered from the table's per-column {@link ValueIndex}, built on the first query against a
+   * column. Substring searches work one column at a time: columns with a {@link TrigramIndex} only
+   * verify the index's candidate rows, dictionary-encoded columns evaluate each distinct value once
+   * and then only compare codes, and any other column is scanned.
+   *
+   * @param table The table to search through.
+   * @param value The value to search for.
+   * @param column An Optional containing the index of the column to search in, or empty to search
+   *     all columns.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @param substringMatch Whether to perform substring matching.
+   * @return The matching row indices in ascending order.
+   */
+  public static int[] matchingRows(
+      ColumnarTable table,
+      String value,
+      Optional<Integer> column,
+      boolean caseSensitive,
+      boolean substringMatch) {
+    if (!substringMatch) {
+      return exactMatchingRows(table, value, column, caseSensitive);
+    }
+    String searchValue = caseSensitive ? value : value.toLowerCase(Locale.ROOT);
+    boolean[] matched = new boolean[table.rowCount()];
+    if (column.isPresent()) {
+      markMatches(table, column.get(), searchValue, caseSensitive, matched);
+    } else {
+      for (int i = 0; i < table.columnCount(); i++) {
+        markMatches(table, i, searchValue, caseSensitive, matched);
+      }
+    }
+    return matchedRows(matched);
+  }
+
+  /**
+   * Collects the indices of the flagged rows.
+   *
+   * @param matched One flag per row.
+   * @return The indices of the rows flagged true, in ascending order.
+   */
+  static int[] matchedRows(boolean[] matched) {
+    return IntStream.range(0, matched.length).filter(row -> matched[row]).toArray();
+  }
+
+  /**
+   * Looks up an exact-match search in the column indexes. A search across all columns merges the
+   * postings of every column.
+   *
+   * @param table The table to search through.
+   * @param value The value to search for.
+   * @param column An Optional containing the index of the column to search in, or empty to search
+   *     all columns.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @return The matching row indices in ascending order.
+   */
+  private static int[] exactMatchingRows(
+      ColumnarTable table, String value, Optional<Integer> column, boolean caseSensitive) {
+    if (column.isPresent()) {
+      return table.valueIndex(column.get(), caseSensitive).lookup(value).clone();
+    }
+    int[] rows = new int[0];
+    for (int i = 0; i < table.columnCount(); i++) {
+      int[] columnRows = table.valueIndex(i, caseSensitive).lookup(value);
+      if (columnRows.length > 0) {
+        rows = ValueIndex.union(rows, columnRows);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Marks every row of a column whose cell contains the value. Columns with a trigram index only
+   * check the index's candidates; other columns are scanned in full.
+   *
+   * @param table The table being searched.
+   * @param columnIndex The index of the column to scan.
+   * @param value The value to search for, already lowercased if the search is case-insensitive.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @param matched Flags set to true for each matching row.
+   */
+  private static void markMatches(
+      ColumnarTable table,
+      int columnIndex,
+      String value,
+      boolean caseSensitive,
+      boolean[] matched) {
+    CellMatcher matcher = substringMatcher(table, columnIndex, value, caseSensitive);
+    int[] candidates = trigramCandidates(table, columnIndex, value, caseSensitive);
+    if (candidates != null) {
+      markCandidates(matcher, candidates, matched);
+      return;
+    }
+    for (int row = 0; row < matched.length; row++) {
+      if (!matched[row] && matcher.matches(row)) {
+        matched[row] = true;
+      }
+    }
+  }
+
+  /**
+   * Marks the candidate rows whose cell matches.
+   *
+   * @param matcher The matcher for the column.
+   * @param candidates The rows to check.
+   * @param matched Flags set to true for each matching row.
+   */
+  static void markCandidates(CellMatcher matcher, int[] candidates, boolean[] matched) {
+    for (int row : candidates) {
+      if (!matched[row] && matcher.matches(row)) {
+        matched[row] = true;
+      }
+    }
+  }
+
+  /**
+   * Asks a column's trigram index, if it has one, which rows could contain the value.
+   *
+   * @param table The table being searched.
+   * @param columnIndex The column index.
+   * @param value The value to search for, already lowercased if the search is case-insensitive.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @return The candidate rows in ascending order, or null if every row has to be checked.
+   */
+  static int[] trigramCandidates(
+      ColumnarTable table, int columnIndex, String value, boolean caseSensitive) {
+    TrigramIndex trigrams = table.trigramIndex(columnIndex);
+    return trigrams == null ? null : trigrams.candidates(value, caseSensitive);
+  }
+
+  /** Tests the cells of one column against a prepared search value. */
+  interface CellMatcher {
+
+    /**
+     * Checks one cell.
+     *
+     * @param row The row index.
+     * @return true if the cell in that row matches.
+     */
+    boolean matches(int row);
+  }
+
+  /**
+   * Prepares a substring matcher for one column, doing the per-column work up front so that
+   * checking a row creates no objects. Dictionary-encoded columns evaluate each distinct value once
+   * and then only compare codes. Arena columns are compared as UTF-8 bytes, against the table's
+   * cached lowercased copy when the search is case-insensitive. Matchers only read the table, so
+   * one may be used from several threads.
+   *
+   * @param table The table being searched.
+   * @param columnIndex The column index.
+   * @param value The value to search for, already lowercased if the search is case-insensitive.
+   * @param caseSensitive Whether the search should be case-sensitive.
+   * @return A matcher for the column.
+   */
+  static CellMatcher substringMatcher(
+      ColumnarTable table, int columnIndex, String value, boolean caseSensitive) {
+    Column column = table.column(columnIndex);
+    if (column instanceof DictionaryColumn dictionaryColumn) {
+      boolean[] codeMatches = new boolean[dictionaryColumn.dictionarySize()];
+      for (int code = 0; code < codeMatches.length; code++) {
+        String cell = dictionaryColumn.dictionaryValue(code);
+        codeMatches[code] = (caseSensitive ? cell : cell.toLowerCase(Locale.ROOT)).contains(value);
+      }
+      return row -> codeMatches[dictionaryColumn.code(row)];
+    }
+    ArenaColumn cells = caseSensitive ? (ArenaColumn) column : table.foldedColumn(columnIndex);
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    return row -> cells.contains(row, bytes);
+  }
+
+  /**
+   * Compares a cell with the value. Case-insensitive comparisons fold with {@link
+   * String#toLowerCase(Locale)} in the root locale, as the columnar path does; ASCII cells, whose
+   * characters fold one at a time, are compared in place without creating any Strings.
+   *
+   * @param cell The cell to compare.
+   * @param value The value to search for, already lowercased if the search is case-insensitive.
+   * @param caseSensitive Whether the comparison should be case-sensitive.
+   * @param substringMatch Whether to perform substring matching.
+   * @return true if the cell matches the value.
+   */
+  private static boolean cellMatches(
+      String cell, String value, boolean caseSensitive, boolean substringMatch) {
+    if (caseSensitive) {
+      return substringMatch ? cell.contains(value) : cell.equals(value);
+    }
+    if (!isAscii(cell)) {
+      // Lowercasing can change the length of a non-ASCII cell, or depend on the characters
+      // around one, so it is folded whole.
+      String folded = cell.toLowerCase(Locale.ROOT);
+      return substringMatch ? folded.contains(value) : folded.equals(value);
+    }
+    if (!substringMatch) {
+      return cell.length() == value.length() && asciiMatchesAt(cell, 0, value);
+    }
+    int last = cell.length() - value.length();
+    for (int i = 0; i <= last; i++) {
+      if (asciiMatchesAt(cell, i, value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isAscii(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether an ASCII cell, lowercased, holds the value at a position.
+   *
+   * @param cell The ASCII cell.
+   * @param start The position in the cell.
+   * @param value The lowercased value, which fits in the cell from that position.
+   * @return true if the lowercased cell holds the value at the position.
+   */
+  private static boolean asciiMatchesAt(String cell, int start, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = cell.charAt(start + i);
+      if (c >= 'A' && c <= 'Z') {
+        c += 'a' - 'A';
+      }
+      if (c != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Searches for the value in a specific column of the row.
    *
@@ -59,9 +332,7 @@ public class Searcher {
     if (columnIndex >= row.size()) {
       return false;
     }
-    if (!caseSensitive) value = value.toLowerCase();
-    String cellValue = caseSensitive ? row.get(columnIndex) : row.get(columnIndex).toLowerCase();
-    return substringMatch ? cellValue.contains(value) : cellValue.equals(value);
+    return cellMatches(row.get(columnIndex), value, caseSensitive, substringMatch);
   }
 
   /**
@@ -75,13 +346,11 @@ public class Searcher {
    */
   private static boolean searchRow(
       List<String> row, String value, boolean caseSensitive, boolean substringMatch) {
-    if (!caseSensitive) value = value.toLowerCase();
-    String finalValue = value;
-    return row.stream()
-        .anyMatch(
-            item -> {
-              String cellValue = caseSensitive ? item : item.toLowerCase();
-              return substringMatch ? cellValue.contains(finalValue) : cellValue.equals(finalValue);
-            });
+    for (String cell : row) {
+      if (cellMatches(cell, value, caseSensitive, substringMatch)) {
+        return true;
+      }
+    }
+    return false;
   }
 }
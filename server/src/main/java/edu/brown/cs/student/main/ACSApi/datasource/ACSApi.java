@@ -1,24 +1,85 @@
 package edu.brown.cs.student.main.ACSApi.datasource;
 
-import com.squareup.moshi.Types;
-import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
-import java.net.HttpURLConnection;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import edu.brown.cs.student.main.Cache.Cache;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import okio.Buffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import okio.BufferedSource;
 
 /** Class representing ACSApi */
 public class ACSApi implements CensusDatasource {
+  private static final String BROADBAND_PATH =
+      "/data/2021/acs/acs1/subject/variables?get=NAME,S2802_C03_022E&for=county:";
 
-  private Map<String, Integer> stateCodes;
-  private Map<Integer, Map<String, Integer>> countyCodes;
+  private final CensusClient client;
+  private final Cache<String, String> fipsCache;
+  private volatile FipsDirectory directory;
+
+  /** The load of the directory, running or finished, which concurrent callers share. */
+  private final AtomicReference<CompletableFuture<FipsDirectory>> loading;
 
   public ACSApi() {
-    this.stateCodes = null;
-    this.countyCodes = new HashMap<>();
+    this(new CensusClient(), (Cache<String, String>) null);
   }
+
+  /**
+   * Creates an ACSApi that keeps the FIPS directory it fetches in the given cache, such as a {@link
+   * edu.brown.cs.student.main.Cache.DiskCache}, so it is not fetched again after a restart. The
+   * directory is fetched by {@link #preload()}, or by the first request if it was not called.
+   *
+   * @param fipsCache The cache for the FIPS directory, or null to only keep the codes in memory.
+   */
+  public ACSApi(Cache<String, String> fipsCache) {
+    this(new CensusClient(), fipsCache);
+  }
+
+  /**
+   * Creates an ACSApi that sends its requests through the given client and keeps the FIPS directory
+   * response it fetches in the given cache.
+   *
+   * @param client The client for Census API requests.
+   * @param fipsCache The cache for the FIPS directory, or null to only keep the codes in memory.
+   */
+  public ACSApi(CensusClient client, Cache<String, String> fipsCache) {
+    this.client = client;
+    this.fipsCache = fipsCache;
+    this.directory = null;
+    this.loading = new AtomicReference<>();
+  }
+
+  /**
+   * Creates an ACSApi that looks state and county codes up in an already loaded directory, such as
+   * one read from a snapshot file.
+   *
+   * @param directory The FIPS directory.
+   */
+  public ACSApi(FipsDirectory directory) {
+    this(new CensusClient(), directory);
+  }
+
+  /**
+   * Creates an ACSApi that sends its requests through the given client and looks state and county
+   * codes up in an already loaded directory.
+   *
+   * @param client The client for Census API requests.
+   * @param directory The FIPS directory.
+   */
+  public ACSApi(CensusClient client, FipsDirectory directory) {
+    this.client = client;
+    this.fipsCache = null;
+    this.directory = directory;
+    this.loading = new AtomicReference<>();
+  }
+
   /**
    * Gets broadband data given state/county from ACS api
    *
@@ -28,25 +89,219 @@ public class ACSApi implements CensusDatasource {
    */
   @Override
   public BroadbandData getBroadbandData(String state, String county) throws Exception {
-    int stateCode = getStateCode(state);
-    int countyCode = getCountyCode(county, stateCode);
-    HttpURLConnection connection =
-        RequestHelpers.tryPublicRequest(
-            "https://api.census.gov/data/2021/acs/acs1/subject/variables?get=NAME,S2802_C03_022E&for=county:"
-                + String.format("%03d", countyCode)
-                + "&in=state:"
-                + String.format("%02d", stateCode));
-    if (connection.getResponseCode() != 200) {
-      throw new Exception(
-          "Error from ACS API: " + new Buffer().readFrom(connection.getErrorStream()).readUtf8());
+    return CensusClient.await(getBroadbandDataAsync(state, county));
+  }
+
+  /**
+   * Gets broadband data given state/county from ACS api without waiting for the response. Unknown
+   * states and counties fail the returned future with an IllegalArgumentException.
+   *
+   * @param state The state the county is in.
+   * @param county The county to get broadband data for.
+   * @return A future that completes with the county's broadband data.
+   */
+  public CompletableFuture<BroadbandData> getBroadbandDataAsync(String state, String county) {
+    int stateCode;
+    int countyCode;
+    try {
+      stateCode = getStateCode(state);
+      countyCode = getCountyCode(county, stateCode);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return fetchBroadband(String.format("%03d", countyCode), stateCode)
+        .thenApply(
+            percentages -> {
+              Float percentage = percentages.get(countyCode);
+              if (percentage == null) {
+                throw new CompletionException(
+                    new IOException("ACS API has no broadband estimate for " + county));
+              }
+              return new BroadbandData(percentage, state, county, LocalDateTime.now());
+            });
+  }
+
+  /**
+   * Gets broadband data for several counties of one state with a single request to the ACS api,
+   * which accepts a comma-separated list of county codes. Counties that are not in the state, or
+   * that the ACS has no estimate for, are left out.
+   *
+   * @param state The state the counties are in.
+   * @param counties The counties to get broadband data for.
+   * @return The data of every county that was found, by county, in the order requested.
+   * @throws Exception If a request to the ACS api fails.
+   */
+  @Override
+  public Map<String, BroadbandData> getBroadbandData(String state, List<String> counties)
+      throws Exception {
+    return CensusClient.await(getBroadbandDataAsync(state, counties));
+  }
+
+  /**
+   * Gets broadband data for several counties of one state with a single request to the ACS api,
+   * without waiting for the response.
+   *
+   * @param state The state the counties are in.
+   * @param counties The counties to get broadband data for.
+   * @return A future that completes with the data of every county that was found, by county, in the
+   *     order requested.
+   */
+  public CompletableFuture<Map<String, BroadbandData>> getBroadbandDataAsync(
+      String state, List<String> counties) {
+    int stateCode;
+    Map<Integer, String> requested = new LinkedHashMap<>();
+    try {
+      stateCode = getStateCode(state);
+      for (String county : counties) {
+        try {
+          requested.putIfAbsent(getCountyCode(county, stateCode), county);
+        } catch (IllegalArgumentException e) {
+          // Not a county of this state: leave it out.
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(Map.of());
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    if (requested.isEmpty()) {
+      return CompletableFuture.completedFuture(Map.of());
+    }
+    StringBuilder countyList = new StringBuilder();
+    for (int countyCode : requested.keySet()) {
+      if (countyList.length() > 0) {
+        countyList.append(',');
+      }
+      countyList.append(String.format("%03d", countyCode));
     }
-    List<List<String>> response =
-        JsonSerializer.fromJson(
-            new Buffer().readFrom(connection.getInputStream()).readUtf8(),
-            Types.newParameterizedType(
-                List.class, Types.newParameterizedType(List.class, String.class)));
-    float percentage = Float.parseFloat(response.get(1).get(1));
-    return new BroadbandData(percentage, state, county, LocalDateTime.now());
+    return fetchBroadband(countyList.toString(), stateCode)
+        .thenApply(response -> toCountyMap(state, requested, response));
+  }
+
+  /**
+   * Matches the percentages in a broadband response to the counties that were asked for.
+   *
+   * @param state The state the counties are in.
+   * @param requested The county asked for under each county code, in the order requested.
+   * @param percentages The percentage of each county code in the response.
+   * @return The data of every county that was found, by county, in the order requested.
+   */
+  private static Map<String, BroadbandData> toCountyMap(
+      String state, Map<Integer, String> requested, Map<Integer, Float> percentages) {
+    LocalDateTime now = LocalDateTime.now();
+    Map<String, BroadbandData> results = new LinkedHashMap<>();
+    for (Map.Entry<Integer, String> entry : requested.entrySet()) {
+      Float percentage = percentages.get(entry.getKey());
+      if (percentage != null) {
+        results.put(entry.getValue(), new BroadbandData(percentage, state, entry.getValue(), now));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Requests the broadband estimate of one or more counties of a state from the ACS api.
+   *
+   * @param countyList The three-digit county codes, separated by commas.
+   * @param stateCode The state code.
+   * @return A future that completes with the percentage of each county code that has an estimate.
+   */
+  private CompletableFuture<Map<Integer, Float>> fetchBroadband(String countyList, int stateCode) {
+    return client.get(
+        BROADBAND_PATH + countyList + "&in=state:" + String.format("%02d", stateCode),
+        ACSApi::readPercentages);
+  }
+
+  /**
+   * Decodes a broadband response as it is read. After the header, each row is NAME, S2802_C03_022E,
+   * state and county; rows without an estimate are skipped. The ACS api answers with no content
+   * when none of the counties have an estimate.
+   *
+   * @param source The response body.
+   * @return The percentage of each county code that has an estimate.
+   * @throws IOException If the response cannot be read or is malformed.
+   */
+  private static Map<Integer, Float> readPercentages(BufferedSource source) throws IOException {
+    Map<Integer, Float> percentages = new HashMap<>();
+    if (source.exhausted()) {
+      return percentages;
+    }
+    try (JsonReader reader = JsonReader.of(source)) {
+      reader.beginArray();
+      if (reader.hasNext()) {
+        reader.skipValue(); // The header row.
+      }
+      while (reader.hasNext()) {
+        reader.beginArray();
+        reader.skipValue();
+        String percentage =
+            reader.peek() == JsonReader.Token.NULL ? reader.nextNull() : reader.nextString();
+        reader.skipValue();
+        int countyCode = Integer.parseInt(reader.nextString());
+        while (reader.hasNext()) {
+          reader.skipValue();
+        }
+        reader.endArray();
+        if (percentage != null) {
+          percentages.put(countyCode, Float.parseFloat(percentage));
+        }
+      }
+      reader.endArray();
+    } catch (JsonDataException | NumberFormatException e) {
+      throw new IOException("Malformed response from ACS API: " + e.getMessage(), e);
+    }
+    return percentages;
+  }
+
+  /**
+   * Loads the FIPS directory if it has not been loaded yet, so that the first request does not pay
+   * for it. Concurrent callers wait for a single load, but no lock is held while it runs: the
+   * directory is fetched and built by the first caller and published with a single volatile write,
+   * and the others wait on that caller's future. If the load fails, the next call tries again.
+   *
+   * @return The directory.
+   * @throws Exception If the directory cannot be fetched.
+   */
+  public FipsDirectory preload() throws Exception {
+    FipsDirectory loaded = directory;
+    if (loaded != null) {
+      return loaded;
+    }
+    CompletableFuture<FipsDirectory> load = new CompletableFuture<>();
+    CompletableFuture<FipsDirectory> running = loading.compareAndExchange(null, load);
+    if (running != null) {
+      return CensusClient.await(running);
+    }
+    try {
+      FipsDirectory fetched = fetchDirectory();
+      directory = fetched;
+      load.complete(fetched);
+      return fetched;
+    } catch (Throwable e) {
+      // Errors too, or the callers waiting on this load would wait forever.
+      loading.set(null);
+      load.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the FIPS directory from the cache, or fetches it from the Census API and caches it.
+   *
+   * @return The directory.
+   * @throws Exception If the directory cannot be fetched.
+   */
+  private FipsDirectory fetchDirectory() throws Exception {
+    Optional<String> cached = fipsCache == null ? Optional.empty() : fipsCache.get("counties");
+    if (cached.isPresent()) {
+      return FipsDirectory.parse(cached.get());
+    }
+    FipsDirectory fetched =
+        CensusClient.await(client.get(FipsDirectory.COUNTIES_PATH, FipsDirectory::read));
+    if (fipsCache != null) {
+      fipsCache.set("counties", fetched.toJson());
+    }
+    return fetched;
   }
 
   /**
@@ -58,37 +313,13 @@ public class ACSApi implements CensusDatasource {
    * @throws Exception
    */
   private int getCountyCode(String county, int stateCode) throws Exception {
-    county = county.toLowerCase();
-    Map<String, Integer> counties = countyCodes.get(stateCode);
-    if (counties == null) {
-      fetchStateCounties(stateCode);
-    }
-    int countyCode = countyCodes.get(stateCode).getOrDefault(county, -1);
+    int countyCode = preload().countyCode(stateCode, county);
     if (countyCode == -1) {
-      throw new IllegalArgumentException(county + " county does not exist in state");
+      throw new IllegalArgumentException(county.toLowerCase() + " county does not exist in state");
     }
     return countyCode;
   }
 
-  private void fetchStateCounties(int stateCode) throws Exception {
-    HttpURLConnection connection =
-        RequestHelpers.tryPublicRequest(
-            "https://api.census.gov/data/2010/dec/sf1?get=NAME&for=county:*&in=state:"
-                + String.format("%02d", stateCode));
-    if (connection.getResponseCode() != 200) {
-      throw new Exception(
-          "request is failing to get county codes for "
-              + stateCode
-              + ": "
-              + new Buffer().readFrom(connection.getErrorStream()).readUtf8());
-    }
-    countyCodes.put(
-        stateCode,
-        JsonSerializer.fromJson(
-            new Buffer().readFrom(connection.getInputStream()).readUtf8(),
-            Types.newParameterizedType(Map.class, String.class, Integer.class)));
-  }
-
   /**
    * Gets state codes for given state
    *
@@ -97,28 +328,10 @@ public class ACSApi implements CensusDatasource {
    * @throws Exception
    */
   private int getStateCode(String state) throws Exception {
-    if (stateCodes == null) {
-      fetchStateCodes();
-    }
-    int stateCode = stateCodes.getOrDefault(state.toLowerCase(), -1);
+    int stateCode = preload().stateCode(state);
     if (stateCode == -1) {
       throw new IllegalArgumentException(state + " not found in ACS api states");
     }
     return stateCode;
   }
-  /** Gets state codes from ACS Api into Map<String, Integer> */
-  private void fetchStateCodes() throws Exception {
-    HttpURLConnection connection =
-        RequestHelpers.tryPublicRequest(
-            "https://api.census.gov/data/2010/dec/sf1?get=NAME&for=state:*");
-    if (connection.getResponseCode() != 200) {
-      throw new Exception(
-          "request is failing to get state codes: "
-              + new Buffer().readFrom(connection.getErrorStream()).readUtf8());
-    }
-    this.stateCodes =
-        JsonSerializer.fromJson(
-            new Buffer().readFrom(connection.getInputStream()).readUtf8(),
-            Types.newParameterizedType(Map.class, String.class, Integer.class));
-  }
 }
@@ -9,6 +9,29 @@ import java.time.LocalDateTime;
  * @param state
  * @param county
  * @param dateTime
+ * @param stale Whether this is the last known data, served because the ACS api is unavailable
  */
 public record BroadbandData(
-    double percentage, String state, String county, LocalDateTime dateTime) {}
+    double percentage, String state, String county, LocalDateTime dateTime, boolean stale) {
+
+  /**
+   * Creates fresh broadband data
+   *
+   * @param percentage
+   * @param state
+   * @param county
+   * @param dateTime
+   */
+  public BroadbandData(double percentage, String state, String county, LocalDateTime dateTime) {
+    this(percentage, state, county, dateTime, false);
+  }
+
+  /**
+   * Returns a copy of this data marked as stale
+   *
+   * @return The stale copy
+   */
+  public BroadbandData asStale() {
+    return new BroadbandData(percentage, state, county, dateTime, true);
+  }
+}
@@ -1,34 +1,91 @@
 /** This package contains classes related to the ACS (American Community Survey) API data source. */
 package edu.brown.cs.student.main.ACSApi.datasource;
 
-import edu.brown.cs.student.main.Cache.LRUCache;
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A cached implementation of the CensusDatasource interface. This class wraps another
- * CensusDatasource and caches the results using an LRU cache.
+ * CensusDatasource and caches the results. It is shared by every request thread, so the cache it
+ * uses must be thread-safe. Given a cache of last known data, it keeps a copy of everything it
+ * fetches there, and serves that copy, marked stale, while the upstream refuses requests.
  */
 public class CachedACSApi implements CensusDatasource {
   private final CensusDatasource acsApi;
-  private final LRUCache<StateCountyKey, BroadbandData> cache;
-  private int accesses;
+  private final Cache<StateCountyKey, BroadbandData> cache;
+  private final AtomicInteger accesses;
+  private final AtomicInteger coalesced;
+  private final AtomicInteger staleServed;
+
+  /** The last data fetched for each key, or null if stale data is never served. */
+  private final Cache<StateCountyKey, BroadbandData> lastKnown;
+
+  /** Upstream requests currently running, so concurrent misses on a key can wait for one result. */
+  private final ConcurrentHashMap<StateCountyKey, CompletableFuture<BroadbandData>> inFlight;
+
+  /** The number of upstream requests that have cached their result, for spotting a lost race. */
+  private final AtomicLong flightsCached;
 
   /**
-   * Constructs a new CachedACSApi with the specified cache size and underlying ACS API.
+   * Constructs a new CachedACSApi backed by a {@link ConcurrentLRUCache} of the specified size.
    *
    * @param cacheSize The maximum number of entries to store in the cache.
    * @param acsApi The underlying CensusDatasource to use for fetching data.
    */
   public CachedACSApi(int cacheSize, CensusDatasource acsApi) {
+    this(new ConcurrentLRUCache<>(cacheSize), acsApi);
+  }
+
+  /**
+   * Constructs a new CachedACSApi with the specified cache and underlying ACS API.
+   *
+   * @param cache The cache to store results in.
+   * @param acsApi The underlying CensusDatasource to use for fetching data.
+   */
+  public CachedACSApi(Cache<StateCountyKey, BroadbandData> cache, CensusDatasource acsApi) {
+    this(cache, acsApi, null);
+  }
+
+  /**
+   * Constructs a new CachedACSApi that serves stale data while the upstream is unavailable.
+   *
+   * @param cache The cache to store results in.
+   * @param acsApi The underlying CensusDatasource to use for fetching data, which throws an {@link
+   *     UpstreamUnavailableException} when it refuses a request.
+   * @param lastKnown The cache to keep the last fetched data in, which should hold more entries and
+   *     keep them for longer than the main cache, or null to never serve stale data.
+   */
+  public CachedACSApi(
+      Cache<StateCountyKey, BroadbandData> cache,
+      CensusDatasource acsApi,
+      Cache<StateCountyKey, BroadbandData> lastKnown) {
     this.acsApi = acsApi;
-    this.cache = new LRUCache<StateCountyKey, BroadbandData>(cacheSize);
-    this.accesses = 0;
+    this.cache = cache;
+    this.lastKnown = lastKnown;
+    this.accesses = new AtomicInteger();
+    this.coalesced = new AtomicInteger();
+    this.staleServed = new AtomicInteger();
+    this.inFlight = new ConcurrentHashMap<>();
+    this.flightsCached = new AtomicLong();
   }
 
   /**
    * Retrieves broadband data for the specified state and county. If the data is in the cache, it is
    * returned from there. Otherwise, it is fetched from the underlying ACS API and then cached for
-   * future use.
+   * future use; the fetch is recorded as a load in the cache's statistics. Concurrent misses on the
+   * same state and county share a single upstream request: the first caller fetches, and the others
+   * wait for its result or its exception. If the upstream refuses the request and there is last
+   * known data for the county, that data is returned marked stale, and is not cached.
    *
    * @param state The state for which to retrieve broadband data.
    * @param county The county for which to retrieve broadband data.
@@ -38,23 +95,174 @@ public class CachedACSApi implements CensusDatasource {
   @Override
   public BroadbandData getBroadbandData(String state, String county) throws Exception {
     StateCountyKey key = new StateCountyKey(state, county);
+    long cachedBefore = flightsCached.get();
     Optional<BroadbandData> cachedData = cache.get(key);
 
     if (cachedData.isPresent()) {
-      accesses++;
+      accesses.incrementAndGet();
       return cachedData.get();
     }
-    BroadbandData data = acsApi.getBroadbandData(state, county);
-    cache.set(key, data);
+
+    CompletableFuture<BroadbandData> flight = new CompletableFuture<>();
+    CompletableFuture<BroadbandData> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      return await(existing);
+    }
+    try {
+      // A flight that finished between the cache miss and putIfAbsent has already cached its
+      // result, since it stores it before leaving inFlight. Looking again only when some flight
+      // has finished since keeps the common path to one lookup, and one recorded miss.
+      if (flightsCached.get() != cachedBefore) {
+        cachedData = cache.get(key);
+        if (cachedData.isPresent()) {
+          accesses.incrementAndGet();
+          flight.complete(cachedData.get());
+          return cachedData.get();
+        }
+      }
+      long start = System.nanoTime();
+      BroadbandData data;
+      try {
+        data = acsApi.getBroadbandData(state, county);
+      } catch (UpstreamUnavailableException e) {
+        cache.stats().recordLoadFailure(System.nanoTime() - start);
+        BroadbandData stale = lastKnown(key).orElseThrow(() -> e);
+        flight.complete(stale);
+        return stale;
+      } catch (Exception e) {
+        cache.stats().recordLoadFailure(System.nanoTime() - start);
+        throw e;
+      }
+      cache.stats().recordLoadSuccess(System.nanoTime() - start);
+      cache.set(key, data);
+      flightsCached.incrementAndGet();
+      if (lastKnown != null) {
+        lastKnown.set(key, data);
+      }
+      flight.complete(data);
+      return data;
+    } catch (Exception e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Retrieves broadband data for several counties of one state. Counties in the cache are returned
+   * from there, and the rest are fetched from the underlying ACS API in one batch, recorded as a
+   * single load, and cached together. If the upstream refuses the batch, last known data is
+   * returned marked stale, provided there is some for every missing county. Batches do not join
+   * other callers' in-flight requests, since that would split them back into one upstream request
+   * per county.
+   *
+   * @param state The state the counties are in.
+   * @param counties The counties to retrieve broadband data for.
+   * @return The data of every county that was found, by county, in the order requested.
+   * @throws Exception If an error occurs while fetching the missing counties.
+   */
+  @Override
+  public Map<String, BroadbandData> getBroadbandData(String state, List<String> counties)
+      throws Exception {
+    Map<String, BroadbandData> cached = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String county : counties) {
+      if (cached.containsKey(county) || missing.contains(county)) {
+        continue;
+      }
+      Optional<BroadbandData> cachedData = cache.get(new StateCountyKey(state, county));
+      if (cachedData.isPresent()) {
+        accesses.incrementAndGet();
+        cached.put(county, cachedData.get());
+      } else {
+        missing.add(county);
+      }
+    }
+    Map<String, BroadbandData> fetched = Map.of();
+    if (!missing.isEmpty()) {
+      long start = System.nanoTime();
+      try {
+        fetched = acsApi.getBroadbandData(state, missing);
+        cache.stats().recordLoadSuccess(System.nanoTime() - start);
+        for (Map.Entry<String, BroadbandData> entry : fetched.entrySet()) {
+          StateCountyKey key = new StateCountyKey(state, entry.getKey());
+          cache.set(key, entry.getValue());
+          if (lastKnown != null) {
+            lastKnown.set(key, entry.getValue());
+          }
+        }
+      } catch (UpstreamUnavailableException e) {
+        cache.stats().recordLoadFailure(System.nanoTime() - start);
+        fetched = new LinkedHashMap<>();
+        for (String county : missing) {
+          Optional<BroadbandData> stale =
+              lastKnown == null
+                  ? Optional.empty()
+                  : lastKnown.get(new StateCountyKey(state, county));
+          if (stale.isEmpty()) {
+            throw e;
+          }
+          fetched.put(county, stale.get().asStale());
+        }
+        staleServed.addAndGet(missing.size());
+      } catch (Exception e) {
+        cache.stats().recordLoadFailure(System.nanoTime() - start);
+        throw e;
+      }
+    }
+    Map<String, BroadbandData> results = new LinkedHashMap<>();
+    for (String county : counties) {
+      BroadbandData data = cached.containsKey(county) ? cached.get(county) : fetched.get(county);
+      if (data != null) {
+        results.put(county, data);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Returns the last data fetched for a key, marked stale, counting it as served.
+   *
+   * @param key The key.
+   * @return The stale data, or an empty Optional if there is none.
+   */
+  private Optional<BroadbandData> lastKnown(StateCountyKey key) {
+    if (lastKnown == null) {
+      return Optional.empty();
+    }
+    Optional<BroadbandData> data = lastKnown.get(key).map(BroadbandData::asStale);
+    if (data.isPresent()) {
+      staleServed.incrementAndGet();
+    }
     return data;
   }
 
   /**
-   * Returns the LRU cache used by this CachedACSApi.
+   * Waits for another caller's upstream request, rethrowing its exception if it failed.
+   *
+   * @param flight The in-flight request.
+   * @return The data it fetched.
+   * @throws Exception The exception the request failed with.
+   */
+  private static BroadbandData await(CompletableFuture<BroadbandData> flight) throws Exception {
+    try {
+      return flight.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the cache used by this CachedACSApi.
    *
-   * @return The LRUCache instance.
+   * @return The Cache instance.
    */
-  public LRUCache<StateCountyKey, BroadbandData> getCache() {
+  public Cache<StateCountyKey, BroadbandData> getCache() {
     return cache;
   }
 
@@ -64,6 +272,25 @@ public class CachedACSApi implements CensusDatasource {
    * @return The number of cache hits.
    */
   public int getAccesses() {
-    return accesses;
+    return accesses.get();
+  }
+
+  /**
+   * Returns the number of requests that waited for another caller's upstream request instead of
+   * sending their own.
+   *
+   * @return The number of coalesced requests.
+   */
+  public int getCoalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * Returns the number of times stale data was served because the upstream refused a request.
+   *
+   * @return The number of stale responses.
+   */
+  public int getStaleServed() {
+    return staleServed.get();
   }
 }
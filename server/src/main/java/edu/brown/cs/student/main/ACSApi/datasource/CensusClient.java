@@ -0,0 +1,265 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * An asynchronous HTTP client for the Census API. Requests share one {@link HttpClient}, which
+ * keeps connections alive and reuses them, and every request is bounded by a connect timeout and a
+ * response timeout. The response timeout covers the whole response, body included: a server that
+ * sends its headers and then stalls has its body stream closed when the time is up. At most a fixed
+ * number of requests are sent at once; the rest wait in a queue without holding a thread, and are
+ * sent as earlier requests finish. A request keeps its slot until its body has been read, so bodies
+ * that are decoded as they stream in count against the limit.
+ */
+public class CensusClient {
+  /** The Census API host that request paths are resolved against. */
+  public static final String DEFAULT_BASE_URL = "https://api.census.gov";
+
+  /** The default time allowed to open a connection. */
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+  /** The default time allowed for a whole response to arrive once a request is sent. */
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+  /** The default number of requests that may be in progress at once. */
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+  private final String baseUrl;
+  private final Duration requestTimeout;
+  private final HttpClient client;
+  private final Semaphore permits;
+  private final Queue<Pending<?, ?>> waiting;
+
+  /** Constructs a new CensusClient for the Census API with the default timeouts and limit. */
+  public CensusClient() {
+    this(
+        DEFAULT_BASE_URL,
+        DEFAULT_CONNECT_TIMEOUT,
+        DEFAULT_REQUEST_TIMEOUT,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
+  }
+
+  /**
+   * Constructs a new CensusClient.
+   *
+   * @param baseUrl The scheme, host and port that request paths are resolved against.
+   * @param connectTimeout The time allowed to open a connection.
+   * @param requestTimeout The time allowed for a whole response to arrive once a request is sent.
+   * @param maxConcurrentRequests The number of requests that may be in progress at once.
+   */
+  public CensusClient(
+      String baseUrl, Duration connectTimeout, Duration requestTimeout, int maxConcurrentRequests) {
+    if (maxConcurrentRequests <= 0) {
+      throw new IllegalArgumentException("Concurrency limit must be positive");
+    }
+    this.baseUrl = baseUrl;
+    this.requestTimeout = requestTimeout;
+    this.client =
+        HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    this.permits = new Semaphore(maxConcurrentRequests);
+    this.waiting = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Sends a GET request, or queues it if the concurrency limit has been reached.
+   *
+   * @param path The path and query of the request, starting with a slash.
+   * @return A future that completes with the response, whatever its status, or exceptionally if the
+   *     request fails or times out.
+   */
+  public CompletableFuture<HttpResponse<String>> get(String path) {
+    return send(path, HttpResponse.BodyHandlers.ofString(), response -> response);
+  }
+
+  /**
+   * Sends a GET request, or queues it if the concurrency limit has been reached, and decodes a
+   * successful response's body straight from the connection.
+   *
+   * @param path The path and query of the request, starting with a slash.
+   * @param decoder The decoder for the response body.
+   * @param <T> The type the body is decoded into.
+   * @return A future that completes with the decoded body, or exceptionally with an IOException if
+   *     the response's status is not 2xx, or if the request fails or times out.
+   */
+  public <T> CompletableFuture<T> get(String path, ResponseDecoder<T> decoder) {
+    return send(
+        path,
+        HttpResponse.BodyHandlers.ofInputStream(),
+        response -> {
+          try (BufferedSource body = Okio.buffer(Okio.source(response.body()))) {
+            if (response.statusCode() / 100 != 2) {
+              throw new IOException(
+                  "Census API returned status " + response.statusCode() + ": " + body.readUtf8());
+            }
+            return decoder.decode(body);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  /**
+   * Queues a GET request and sends it when there is a free slot.
+   *
+   * @param path The path and query of the request, starting with a slash.
+   * @param bodyHandler How to receive the response body.
+   * @param handler What to make of the response; runs before the request's slot is released.
+   * @param <R> The type of the received body.
+   * @param <T> The type of the result.
+   * @return A future that completes with the result.
+   */
+  private <R, T> CompletableFuture<T> send(
+      String path, HttpResponse.BodyHandler<R> bodyHandler, Function<HttpResponse<R>, T> handler) {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout).GET().build();
+    Pending<R, T> pending = new Pending<>(request, bodyHandler, handler);
+    waiting.add(pending);
+    sendWaiting();
+    return pending.result;
+  }
+
+  /**
+   * Returns the number of requests waiting for a free slot.
+   *
+   * @return The number of queued requests.
+   */
+  public int queued() {
+    return waiting.size();
+  }
+
+  /**
+   * Sends queued requests while there are free slots. A slot is released when its request finishes,
+   * which sends the next one in line.
+   */
+  private void sendWaiting() {
+    while (!waiting.isEmpty() && permits.tryAcquire()) {
+      Pending<?, ?> pending = waiting.poll();
+      if (pending == null) {
+        permits.release();
+        continue;
+      }
+      pending.send();
+    }
+  }
+
+  /**
+   * Waits for a future, rethrowing the exception it failed with rather than a wrapper around it.
+   *
+   * @param future The future to wait for.
+   * @param <T> The type of the future's result.
+   * @return The future's result.
+   * @throws Exception The exception the future failed with.
+   */
+  public static <T> T await(CompletableFuture<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Strips the CompletionException that asynchronous stages wrap failures in.
+   *
+   * @param error The failure.
+   * @return The underlying failure.
+   */
+  static Throwable unwrap(Throwable error) {
+    while ((error instanceof CompletionException || error instanceof UncheckedIOException)
+        && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error;
+  }
+
+  /**
+   * A request waiting to be sent, and the future its result completes.
+   *
+   * @param <R> The type of the received body.
+   * @param <T> The type of the result.
+   */
+  private class Pending<R, T> {
+    final HttpRequest request;
+    final HttpResponse.BodyHandler<R> bodyHandler;
+    final Function<HttpResponse<R>, T> handler;
+    final CompletableFuture<T> result = new CompletableFuture<>();
+
+    Pending(
+        HttpRequest request,
+        HttpResponse.BodyHandler<R> bodyHandler,
+        Function<HttpResponse<R>, T> handler) {
+      this.request = request;
+      this.bodyHandler = bodyHandler;
+      this.handler = handler;
+    }
+
+    /**
+     * Sends the request, holding a slot that is released once the result is ready or the response
+     * timeout has passed. On a timeout the response body is closed, so a handler still blocked
+     * reading it fails instead of holding its thread.
+     */
+    void send() {
+      CompletableFuture<HttpResponse<R>> response = client.sendAsync(request, bodyHandler);
+      response
+          .thenApply(handler)
+          .orTimeout(requestTimeout.toNanos(), TimeUnit.NANOSECONDS)
+          .whenComplete(
+              (value, error) -> {
+                permits.release();
+                sendWaiting();
+                if (error == null) {
+                  result.complete(value);
+                  return;
+                }
+                Throwable cause = unwrap(error);
+                if (cause instanceof TimeoutException) {
+                  // Close the body if the headers are in, or as soon as they arrive; otherwise
+                  // cancelling stops them from being waited for at all.
+                  response.thenAccept(Pending::closeBody);
+                  response.cancel(true);
+                  cause = new HttpTimeoutException("response not received in time");
+                }
+                result.completeExceptionally(cause);
+              });
+    }
+
+    /**
+     * Closes a response's body if it is a stream, waking any reader blocked on it.
+     *
+     * @param response The response.
+     */
+    private static void closeBody(HttpResponse<?> response) {
+      if (response.body() instanceof AutoCloseable body) {
+        try {
+          body.close();
+        } catch (Exception e) {
+          // The body is abandoned either way.
+        }
+      }
+    }
+  }
+}
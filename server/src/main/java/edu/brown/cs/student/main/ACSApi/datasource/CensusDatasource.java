@@ -1,6 +1,33 @@
 package edu.brown.cs.student.main.ACSApi.datasource;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /** Census Datasoruce interface. Any census source object must have this function. */
 public interface CensusDatasource {
   BroadbandData getBroadbandData(String state, String county) throws Exception;
+
+  /**
+   * Retrieves broadband data for several counties of one state. Counties the datasource does not
+   * know are left out of the result. By default each county is requested in turn; datasources that
+   * can fetch many counties at once should override this.
+   *
+   * @param state The state the counties are in.
+   * @param counties The counties to retrieve broadband data for.
+   * @return The data of every county that was found, by county, in the order requested.
+   * @throws Exception If an error other than an unknown state or county occurs.
+   */
+  default Map<String, BroadbandData> getBroadbandData(String state, List<String> counties)
+      throws Exception {
+    Map<String, BroadbandData> results = new LinkedHashMap<>();
+    for (String county : counties) {
+      try {
+        results.put(county, getBroadbandData(state, county));
+      } catch (IllegalArgumentException e) {
+        // Unknown state or county: leave it out.
+      }
+    }
+    return results;
+  }
 }
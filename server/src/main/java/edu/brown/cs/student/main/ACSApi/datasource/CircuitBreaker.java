@@ -0,0 +1,108 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker that stops calls to a failing upstream. It starts closed, letting every call
+ * through. After a number of consecutive failures it opens, refusing calls until a cool-down has
+ * passed. It then lets a single trial call through: if that succeeds the breaker closes again, and
+ * if it fails the breaker stays open for another cool-down.
+ */
+public class CircuitBreaker {
+  /** The states a circuit breaker can be in. */
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier ticker;
+
+  private State state;
+  private int consecutiveFailures;
+  private long openedAt;
+  private long rejections;
+
+  /**
+   * Constructs a new CircuitBreaker that uses the system clock.
+   *
+   * @param failureThreshold The number of consecutive failures that opens the breaker.
+   * @param openDuration How long the breaker stays open before letting a trial call through.
+   */
+  public CircuitBreaker(int failureThreshold, Duration openDuration) {
+    this(failureThreshold, openDuration, System::nanoTime);
+  }
+
+  /**
+   * Constructs a new CircuitBreaker.
+   *
+   * @param failureThreshold The number of consecutive failures that opens the breaker.
+   * @param openDuration How long the breaker stays open before letting a trial call through.
+   * @param ticker The source of the current time in nanoseconds.
+   */
+  public CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier ticker) {
+    if (failureThreshold <= 0) {
+      throw new IllegalArgumentException("Failure threshold must be positive");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.ticker = ticker;
+    this.state = State.CLOSED;
+  }
+
+  /**
+   * Asks to make a call. Every call that is allowed must be followed by {@link #recordSuccess()} or
+   * {@link #recordFailure()}.
+   *
+   * @return Whether the call may go ahead.
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN && ticker.getAsLong() - openedAt >= openNanos) {
+      state = State.HALF_OPEN;
+      return true;
+    }
+    if (state == State.CLOSED) {
+      return true;
+    }
+    // Open and cooling down, or half-open with the trial call still running.
+    rejections++;
+    return false;
+  }
+
+  /** Records that an allowed call succeeded, closing the breaker. */
+  public synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    state = State.CLOSED;
+  }
+
+  /** Records that an allowed call failed, opening the breaker if it was the last straw. */
+  public synchronized void recordFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = ticker.getAsLong();
+    }
+  }
+
+  /**
+   * Returns the breaker's state. An open breaker whose cool-down has passed reports OPEN until the
+   * next call is attempted.
+   *
+   * @return The state.
+   */
+  public synchronized State state() {
+    return state;
+  }
+
+  /**
+   * Returns the number of calls the breaker has refused.
+   *
+   * @return The number of refused calls.
+   */
+  public synchronized long rejections() {
+    return rejections;
+  }
+}
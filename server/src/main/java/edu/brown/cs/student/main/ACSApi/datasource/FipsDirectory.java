@@ -0,0 +1,281 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * An immutable directory of state and county FIPS codes. Names are kept in sorted arrays next to
+ * their codes and found by binary search, so a directory can be shared by every request thread
+ * without locks. It is built from the Census API's list of every county, in which each row is a
+ * name such as "Kent County, Michigan", a state code and a county code, decoded row by row as the
+ * response streams in.
+ */
+public class FipsDirectory {
+  /** The Census API request path listing every county of every state. */
+  public static final String COUNTIES_PATH = "/data/2010/dec/sf1?get=NAME&for=county:*";
+
+  private final String[] stateNames;
+  private final int[] stateCodes;
+
+  /** The sorted county names of each state, indexed by state code. */
+  private final String[][] countyNames;
+
+  /** The county codes matching countyNames, indexed by state code. */
+  private final int[][] countyCodes;
+
+  private final int countyCount;
+
+  /**
+   * Constructs a directory from the counties of each state.
+   *
+   * @param states The code of each normalized state name.
+   * @param counties The code of each normalized county name, by state code.
+   */
+  private FipsDirectory(
+      Map<String, Integer> states, Map<Integer, TreeMap<String, Integer>> counties) {
+    this.stateNames = new String[states.size()];
+    this.stateCodes = new int[states.size()];
+    int i = 0;
+    for (Map.Entry<String, Integer> state : new TreeMap<>(states).entrySet()) {
+      stateNames[i] = state.getKey();
+      stateCodes[i] = state.getValue();
+      i++;
+    }
+    int maxStateCode = counties.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+    this.countyNames = new String[maxStateCode + 1][];
+    this.countyCodes = new int[maxStateCode + 1][];
+    int total = 0;
+    for (Map.Entry<Integer, TreeMap<String, Integer>> state : counties.entrySet()) {
+      TreeMap<String, Integer> names = state.getValue();
+      String[] sortedNames = names.keySet().toArray(new String[0]);
+      int[] codes = new int[sortedNames.length];
+      for (int j = 0; j < sortedNames.length; j++) {
+        codes[j] = names.get(sortedNames[j]);
+      }
+      countyNames[state.getKey()] = sortedNames;
+      countyCodes[state.getKey()] = codes;
+      total += sortedNames.length;
+    }
+    this.countyCount = total;
+  }
+
+  /**
+   * Builds a directory from the Census API's response to {@link #COUNTIES_PATH}.
+   *
+   * @param response The response body, a table whose first row is a header.
+   * @return The directory.
+   * @throws IOException If the response is not a table of names and codes.
+   */
+  public static FipsDirectory parse(String response) throws IOException {
+    return read(new Buffer().writeUtf8(response));
+  }
+
+  /**
+   * Builds a directory from the Census API's response to {@link #COUNTIES_PATH} as it is read,
+   * without holding the response or its rows in memory.
+   *
+   * @param source The response body, a table whose first row is a header.
+   * @return The directory.
+   * @throws IOException If the response cannot be read or is not a table of names and codes.
+   */
+  public static FipsDirectory read(BufferedSource source) throws IOException {
+    if (source.exhausted()) {
+      throw new IOException("FIPS directory is empty");
+    }
+    Map<String, Integer> states = new TreeMap<>();
+    Map<Integer, TreeMap<String, Integer>> counties = new TreeMap<>();
+    try (JsonReader reader = JsonReader.of(source)) {
+      reader.beginArray();
+      if (reader.hasNext()) {
+        reader.skipValue(); // The header row.
+      }
+      while (reader.hasNext()) {
+        reader.beginArray();
+        String name = reader.nextString();
+        int stateCode = nextCode(reader);
+        int countyCode = nextCode(reader);
+        if (reader.hasNext()) {
+          throw new IOException("FIPS directory row at " + reader.getPath() + " is too long");
+        }
+        reader.endArray();
+        int firstComma = name.indexOf(',');
+        if (firstComma < 0) {
+          throw new IOException("FIPS directory name '" + name + "' has no state");
+        }
+        states.put(normalizeState(name.substring(name.lastIndexOf(',') + 1)), stateCode);
+        counties
+            .computeIfAbsent(stateCode, code -> new TreeMap<>())
+            .put(normalizeCounty(name.substring(0, firstComma)), countyCode);
+      }
+      reader.endArray();
+    } catch (JsonDataException e) {
+      throw new IOException("FIPS directory is malformed: " + e.getMessage(), e);
+    }
+    return new FipsDirectory(states, counties);
+  }
+
+  /**
+   * Reads a code, which the Census API sends as a string of digits.
+   *
+   * @param reader The reader, positioned at the code.
+   * @return The code.
+   * @throws IOException If the value is not a code.
+   */
+  private static int nextCode(JsonReader reader) throws IOException {
+    String path = reader.getPath();
+    try {
+      return Integer.parseInt(reader.nextString());
+    } catch (NumberFormatException e) {
+      throw new IOException("FIPS directory code at " + path + " is malformed", e);
+    }
+  }
+
+  /**
+   * Builds a directory from a snapshot file holding a saved response to {@link #COUNTIES_PATH}.
+   *
+   * @param snapshot The snapshot file.
+   * @return The directory.
+   * @throws IOException If the file cannot be read or is malformed.
+   */
+  public static FipsDirectory load(Path snapshot) throws IOException {
+    try (BufferedSource source = Okio.buffer(Okio.source(snapshot))) {
+      return read(source);
+    }
+  }
+
+  /**
+   * Writes this directory in the form of a response to {@link #COUNTIES_PATH}, with normalized
+   * names, so that it can be read back by {@link #read(BufferedSource)}.
+   *
+   * @param sink Where to write the directory.
+   * @throws IOException If writing fails.
+   */
+  public void write(BufferedSink sink) throws IOException {
+    String[] stateNameByCode = new String[countyNames.length];
+    for (int i = 0; i < stateNames.length; i++) {
+      if (stateCodes[i] < stateNameByCode.length) {
+        stateNameByCode[stateCodes[i]] = stateNames[i];
+      }
+    }
+    JsonWriter writer = JsonWriter.of(sink);
+    writer.beginArray();
+    writer.beginArray().value("NAME").value("state").value("county").endArray();
+    for (int stateCode = 0; stateCode < countyNames.length; stateCode++) {
+      if (countyNames[stateCode] == null || stateNameByCode[stateCode] == null) {
+        continue;
+      }
+      for (int i = 0; i < countyNames[stateCode].length; i++) {
+        writer
+            .beginArray()
+            .value(countyNames[stateCode][i] + ", " + stateNameByCode[stateCode])
+            .value(String.format("%02d", stateCode))
+            .value(String.format("%03d", countyCodes[stateCode][i]))
+            .endArray();
+      }
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Returns this directory in the form written by {@link #write(BufferedSink)}.
+   *
+   * @return The directory as JSON.
+   */
+  public String toJson() {
+    Buffer buffer = new Buffer();
+    try {
+      write(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // A Buffer does not throw.
+    }
+    return buffer.readUtf8();
+  }
+
+  /**
+   * Returns the FIPS code of a state.
+   *
+   * @param state The state's name, in any case and with or without spaces.
+   * @return The state code, or -1 if there is no such state.
+   */
+  public int stateCode(String state) {
+    int index = Arrays.binarySearch(stateNames, normalizeState(state));
+    return index < 0 ? -1 : stateCodes[index];
+  }
+
+  /**
+   * Returns the FIPS code of a county within a state.
+   *
+   * @param stateCode The state's code.
+   * @param county The county's name, in any case, with or without spaces and a trailing "County".
+   * @return The county code, or -1 if the state has no such county.
+   */
+  public int countyCode(int stateCode, String county) {
+    if (stateCode < 0 || stateCode >= countyNames.length || countyNames[stateCode] == null) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(countyNames[stateCode], normalizeCounty(county));
+    return index < 0 ? -1 : countyCodes[stateCode][index];
+  }
+
+  /**
+   * Returns the number of states in this directory.
+   *
+   * @return The number of states.
+   */
+  public int stateCount() {
+    return stateNames.length;
+  }
+
+  /**
+   * Returns the number of counties in this directory, across all states.
+   *
+   * @return The number of counties.
+   */
+  public int countyCount() {
+    return countyCount;
+  }
+
+  /**
+   * Normalizes a state name for lookup by lowercasing it and removing whitespace.
+   *
+   * @param state The state name.
+   * @return The normalized name.
+   */
+  private static String normalizeState(String state) {
+    StringBuilder normalized = new StringBuilder(state.length());
+    for (int i = 0; i < state.length(); i++) {
+      char c = state.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        normalized.append(Character.toLowerCase(c));
+      }
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * Normalizes a county name for lookup by dropping a trailing "County", lowercasing it and
+   * removing whitespace, so "Los Angeles County" and "losangeles" are the same county.
+   *
+   * @param county The county name.
+   * @return The normalized name.
+   */
+  private static String normalizeCounty(String county) {
+    String normalized = normalizeState(county);
+    if (normalized.endsWith("county") && normalized.length() > "county".length()) {
+      normalized = normalized.substring(0, normalized.length() - "county".length());
+    }
+    return normalized;
+  }
+}
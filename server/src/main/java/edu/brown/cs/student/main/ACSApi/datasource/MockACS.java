@@ -4,6 +4,9 @@ package edu.brown.cs.student.main.ACSApi.datasource;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.Table.Column;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -14,9 +17,11 @@ import okio.Okio;
 
 /**
  * A mock implementation of the CensusDatasource interface. This class simulates the ACS (American
- * Community Survey) API by reading data from a JSON file.
+ * Community Survey) API by reading data from a JSON file. The file is read once, into a columnar
+ * table of percentage, state and county.
  */
 public class MockACS implements CensusDatasource {
+  private ColumnarTable table;
 
   /**
    * Retrieves broadband data for the specified state and county from a mock JSON file.
@@ -31,20 +36,14 @@ public class MockACS implements CensusDatasource {
   @Override
   public BroadbandData getBroadbandData(String state, String county)
       throws IllegalArgumentException, IOException {
-    File file = new File("data/acs_mock.json");
-    Moshi moshi = new Moshi.Builder().build();
-    BufferedSource source = Okio.buffer(Okio.source(file));
-    Type ListString =
-        Types.newParameterizedType(
-            List.class, Types.newParameterizedType(List.class, String.class));
-    JsonAdapter<List<List<String>>> adapter = moshi.adapter(ListString);
-    List<List<String>> data = adapter.fromJson(source);
-    for (List<String> entry : data) {
-      if (entry.size() == 3
-          && entry.get(1).equalsIgnoreCase(state)
-          && entry.get(2).equalsIgnoreCase(county)) {
+    ColumnarTable data = getTable();
+    Column percentages = data.column(0);
+    Column states = data.column(1);
+    Column counties = data.column(2);
+    for (int row = 0; row < data.rowCount(); row++) {
+      if (states.get(row).equalsIgnoreCase(state) && counties.get(row).equalsIgnoreCase(county)) {
         return new BroadbandData(
-            Float.parseFloat(entry.get(0)),
+            Float.parseFloat(percentages.get(row)),
             state,
             county,
             LocalDateTime.of(2018, 6, 14, 10, 30, 0));
@@ -52,4 +51,32 @@ public class MockACS implements CensusDatasource {
     }
     throw new IllegalArgumentException("state/county not found");
   }
+
+  /**
+   * Returns the mock data, reading it from disk on first use.
+   *
+   * @return A table with one row per mocked county.
+   * @throws IOException If there's an error reading the mock data file.
+   */
+  private synchronized ColumnarTable getTable() throws IOException {
+    if (table == null) {
+      File file = new File("data/acs_mock.json");
+      Moshi moshi = new Moshi.Builder().build();
+      Type ListString =
+          Types.newParameterizedType(
+              List.class, Types.newParameterizedType(List.class, String.class));
+      JsonAdapter<List<List<String>>> adapter = moshi.adapter(ListString);
+      ColumnarTableBuilder builder =
+          new ColumnarTableBuilder(List.of("percentage", "state", "county"));
+      try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+        for (List<String> entry : adapter.fromJson(source)) {
+          if (entry.size() == 3) {
+            builder.addRow(entry);
+          }
+        }
+      }
+      table = builder.build();
+    }
+    return table;
+  }
 }
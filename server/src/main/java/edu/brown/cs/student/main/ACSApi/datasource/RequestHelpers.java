@@ -8,8 +8,8 @@ import spark.Spark;
 
 /**
  * Utility class providing helper methods for making HTTP requests. This class contains static
- * methods to create and connect to HTTP URL connections for both local (Spark) and public API
- * calls.
+ * methods to create and connect to HTTP URL connections for local (Spark) API calls. Requests to
+ * the Census API go through {@link CensusClient}.
  */
 public class RequestHelpers {
 
@@ -28,20 +28,4 @@ public class RequestHelpers {
     clientConnection.connect();
     return clientConnection;
   }
-
-  /**
-   * Creates and connects to an HTTP URL connection for a given public API call. This method is
-   * designed to work with external API endpoints.
-   *
-   * @param apiCall The complete URL of the API endpoint to call.
-   * @return An HttpURLConnection object connected to the specified API endpoint.
-   * @throws IOException If an I/O error occurs while creating the connection.
-   */
-  public static HttpURLConnection tryPublicRequest(String apiCall) throws IOException {
-    URL requestURL = new URL(apiCall);
-    HttpURLConnection clientConnection = (HttpURLConnection) requestURL.openConnection();
-    clientConnection.setRequestMethod("GET");
-    clientConnection.connect();
-    return clientConnection;
-  }
 }
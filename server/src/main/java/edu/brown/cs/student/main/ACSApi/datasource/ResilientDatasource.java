@@ -0,0 +1,119 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A CensusDatasource that guards another with a circuit breaker and a bulkhead. The breaker fails
+ * requests fast while the upstream keeps failing, and the bulkhead bounds how many requests may
+ * wait on the upstream at once, so a slow upstream cannot tie up every request thread. Refused
+ * requests throw an {@link UpstreamUnavailableException}. Unknown states and counties are the
+ * caller's mistake, so they do not count as upstream failures.
+ */
+public class ResilientDatasource implements CensusDatasource {
+  private final CensusDatasource upstream;
+  private final CircuitBreaker breaker;
+  private final Semaphore bulkhead;
+  private final long maxWaitNanos;
+
+  /**
+   * Constructs a new ResilientDatasource.
+   *
+   * @param upstream The datasource to guard.
+   * @param breaker The circuit breaker for the upstream.
+   * @param maxConcurrentCalls The number of requests that may be in progress upstream at once.
+   * @param maxWait How long a request waits for one of those slots before it is refused.
+   */
+  public ResilientDatasource(
+      CensusDatasource upstream, CircuitBreaker breaker, int maxConcurrentCalls, Duration maxWait) {
+    if (maxConcurrentCalls <= 0) {
+      throw new IllegalArgumentException("Concurrency limit must be positive");
+    }
+    this.upstream = upstream;
+    this.breaker = breaker;
+    this.bulkhead = new Semaphore(maxConcurrentCalls);
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  /**
+   * Retrieves broadband data from the upstream if the breaker and the bulkhead allow it.
+   *
+   * @param state The state for which to retrieve broadband data.
+   * @param county The county for which to retrieve broadband data.
+   * @return The BroadbandData for the specified state and county.
+   * @throws Exception If the request is refused or the upstream fails.
+   */
+  @Override
+  public BroadbandData getBroadbandData(String state, String county) throws Exception {
+    return call(() -> upstream.getBroadbandData(state, county));
+  }
+
+  /**
+   * Retrieves broadband data for several counties of one state from the upstream, as a single call,
+   * if the breaker and the bulkhead allow it.
+   *
+   * @param state The state the counties are in.
+   * @param counties The counties to retrieve broadband data for.
+   * @return The data of every county that was found, by county, in the order requested.
+   * @throws Exception If the request is refused or the upstream fails.
+   */
+  @Override
+  public Map<String, BroadbandData> getBroadbandData(String state, List<String> counties)
+      throws Exception {
+    return call(() -> upstream.getBroadbandData(state, counties));
+  }
+
+  /**
+   * Returns the circuit breaker guarding the upstream.
+   *
+   * @return The circuit breaker.
+   */
+  public CircuitBreaker getBreaker() {
+    return breaker;
+  }
+
+  /**
+   * Makes an upstream call through the bulkhead and the breaker.
+   *
+   * @param upstreamCall The call.
+   * @param <T> The type of the call's result.
+   * @return The call's result.
+   * @throws Exception If the call is refused or fails.
+   */
+  private <T> T call(UpstreamCall<T> upstreamCall) throws Exception {
+    if (!bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+      throw new UpstreamUnavailableException("Too many requests to the ACS API are in progress");
+    }
+    try {
+      if (!breaker.tryAcquire()) {
+        throw new UpstreamUnavailableException("The ACS API is failing; try again later");
+      }
+      T result;
+      try {
+        result = upstreamCall.call();
+      } catch (IllegalArgumentException e) {
+        breaker.recordSuccess();
+        throw e;
+      } catch (Exception e) {
+        breaker.recordFailure();
+        throw e;
+      }
+      breaker.recordSuccess();
+      return result;
+    } finally {
+      bulkhead.release();
+    }
+  }
+
+  /**
+   * A call to the upstream datasource.
+   *
+   * @param <T> The type of the call's result.
+   */
+  private interface UpstreamCall<T> {
+    T call() throws Exception;
+  }
+}
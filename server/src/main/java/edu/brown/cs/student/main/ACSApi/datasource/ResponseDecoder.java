@@ -0,0 +1,20 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+import java.io.IOException;
+import okio.BufferedSource;
+
+/**
+ * Decodes the body of a successful Census API response as it arrives.
+ *
+ * @param <T> The type the body is decoded into.
+ */
+public interface ResponseDecoder<T> {
+  /**
+   * Decodes a response body.
+   *
+   * @param body The body, which is exhausted straight away if the response has no content.
+   * @return The decoded body.
+   * @throws IOException If the body cannot be read or is malformed.
+   */
+  T decode(BufferedSource body) throws IOException;
+}
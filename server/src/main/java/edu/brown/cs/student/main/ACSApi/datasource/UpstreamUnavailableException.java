@@ -0,0 +1,18 @@
+package edu.brown.cs.student.main.ACSApi.datasource;
+
+/**
+ * Thrown when a request is refused without contacting the upstream datasource, because its circuit
+ * breaker is open or too many requests to it are already in progress.
+ */
+public class UpstreamUnavailableException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs a new UpstreamUnavailableException.
+   *
+   * @param message Why the request was refused.
+   */
+  public UpstreamUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -1,6 +1,7 @@
 /** This package contains classes related to caching mechanisms. */
 package edu.brown.cs.student.main.Cache;
 
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -19,6 +20,21 @@ public interface Cache<K, V> {
    */
   void set(K key, V value);
 
+  /**
+   * Associates the specified value with the specified key in this cache, as a value that was
+   * already written the given time ago, for example when copying it from another cache. Caches that
+   * do not track age store it like any other value.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   * @param age How long ago the value was written.
+   * @return Whether the value was stored; false if it is too old for this cache to serve.
+   */
+  default boolean set(K key, V value, Duration age) {
+    set(key, value);
+    return true;
+  }
+
   /**
    * Returns the value to which the specified key is mapped, or an empty Optional if this cache
    * contains no mapping for the key.
@@ -35,4 +51,11 @@ public interface Cache<K, V> {
    * @return The number of key-value mappings in this cache.
    */
   int size();
+
+  /**
+   * Returns the statistics this cache has recorded since it was created.
+   *
+   * @return The cache's statistics.
+   */
+  CacheStats stats();
 }
@@ -0,0 +1,20 @@
+package edu.brown.cs.student.main.Cache;
+
+/**
+ * Computes the value for a key, typically by asking a slower source such as a remote API.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of loaded values.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+  /**
+   * Loads the value for a key.
+   *
+   * @param key The key to load.
+   * @return The value for the key.
+   * @throws Exception If the value cannot be loaded.
+   */
+  V load(K key) throws Exception;
+}
@@ -0,0 +1,106 @@
+package edu.brown.cs.student.main.Cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for one cache: lookups that hit or missed, entries evicted to make room or
+ * because they expired, and loads of missing values from the slower source behind the cache, with a
+ * histogram of how long those took. Safe to update from many threads at once.
+ */
+public class CacheStats {
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loadSuccesses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LatencyHistogram loadTimes = new LatencyHistogram();
+
+  /** Records a lookup that found a value. */
+  public void recordHit() {
+    hits.increment();
+  }
+
+  /** Records a lookup that found no value. */
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  /** Records an entry leaving the cache without being replaced by the caller. */
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Records a successful load.
+   *
+   * @param nanos How long the load took, in nanoseconds.
+   */
+  public void recordLoadSuccess(long nanos) {
+    loadSuccesses.increment();
+    loadTimes.record(nanos);
+  }
+
+  /**
+   * Records a failed load.
+   *
+   * @param nanos How long the load took before failing, in nanoseconds.
+   */
+  public void recordLoadFailure(long nanos) {
+    loadFailures.increment();
+    loadTimes.record(nanos);
+  }
+
+  /**
+   * Returns the number of lookups that found a value.
+   *
+   * @return The hit count.
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that found no value.
+   *
+   * @return The miss count.
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted.
+   *
+   * @return The eviction count.
+   */
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of loads that succeeded.
+   *
+   * @return The successful load count.
+   */
+  public long loadSuccessCount() {
+    return loadSuccesses.sum();
+  }
+
+  /**
+   * Returns the number of loads that failed.
+   *
+   * @return The failed load count.
+   */
+  public long loadFailureCount() {
+    return loadFailures.sum();
+  }
+
+  /**
+   * Returns the histogram of load durations, successful or not.
+   *
+   * @return The load time histogram.
+   */
+  public LatencyHistogram loadTimes() {
+    return loadTimes;
+  }
+}
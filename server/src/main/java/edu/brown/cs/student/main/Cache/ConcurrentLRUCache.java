@@ -0,0 +1,234 @@
+package edu.brown.cs.student.main.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe Least Recently Used (LRU) cache. Entries live in a {@link ConcurrentHashMap}, so a
+ * get never blocks. Instead of moving the entry to the front of the recency list straight away, a
+ * get records it in one of several small read buffers, picked by thread. Whichever thread finds its
+ * buffer half full, or is writing, takes the lock and replays the buffered reads onto the {@link
+ * DoublyLinkedList}. A buffer that is full simply drops the read, so under heavy contention the
+ * recency order is approximate, but the size bound is always exact.
+ *
+ * @param <K> The type of keys maintained by this cache.
+ * @param <V> The type of mapped values.
+ */
+public class ConcurrentLRUCache<K, V> implements Cache<K, V> {
+  private static final int BUFFER_SIZE = 16;
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+  private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+  private final int size;
+  private final ConcurrentHashMap<K, Entry<K, V>> map;
+  private final DoublyLinkedList<Entry<K, V>> doublyLinkedList;
+  private final ReentrantLock lock;
+  private final List<ReadBuffer<K, V>> readBuffers;
+  private final CacheStats stats;
+
+  /**
+   * Constructs a new ConcurrentLRUCache with the specified capacity.
+   *
+   * @param size The maximum number of elements the cache can hold.
+   */
+  public ConcurrentLRUCache(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.size = size;
+    this.map = new ConcurrentHashMap<>();
+    this.doublyLinkedList = new DoublyLinkedList<>();
+    this.lock = new ReentrantLock();
+    this.stats = new CacheStats();
+    int stripes =
+        Integer.highestOneBit(Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+    this.readBuffers = new ArrayList<>(Math.max(1, stripes));
+    for (int i = 0; i < Math.max(1, stripes); i++) {
+      readBuffers.add(new ReadBuffer<>());
+    }
+  }
+
+  /**
+   * Associates the specified value with the specified key in this cache, making it the most
+   * recently used entry and evicting the least recently used one if the cache is full. Writes take
+   * the cache's lock, first replaying any buffered reads so that eviction sees them.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   */
+  @Override
+  public void set(K key, V value) {
+    lock.lock();
+    try {
+      drainReadBuffers();
+      Entry<K, V> entry = map.get(key);
+      if (entry != null) {
+        entry.value = value;
+        doublyLinkedList.pushToFront(entry.node);
+        return;
+      }
+      entry = new Entry<>(key, value);
+      if (map.size() >= size) {
+        LinkedListNode<Entry<K, V>> removedNode = doublyLinkedList.removeLast();
+        removedNode.data.linked = false;
+        map.remove(removedNode.data.key);
+        stats.recordEviction();
+      }
+      doublyLinkedList.addFirst(entry.node);
+      entry.linked = true;
+      map.put(key, entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the value to which the specified key is mapped, or an empty Optional if this cache
+   * contains no mapping for the key. Never blocks; the read is recorded and applied to the recency
+   * order later.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value to which the specified key is mapped, or an empty
+   *     Optional if this cache contains no mapping for the key.
+   */
+  @Override
+  public Optional<V> get(K key) {
+    Entry<K, V> entry = map.get(key);
+    if (entry == null) {
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    stats.recordHit();
+    ReadBuffer<K, V> buffer = readBuffers.get(stripe());
+    if (buffer.offer(entry) >= DRAIN_THRESHOLD && lock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        lock.unlock();
+      }
+    }
+    return Optional.of(entry.value);
+  }
+
+  /**
+   * Returns the number of key-value mappings in this cache.
+   *
+   * @return The number of key-value mappings in this cache.
+   */
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Returns the statistics this cache has recorded since it was created.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
+  /** Replays every buffered read onto the recency list. Must hold the lock. */
+  private void drainReadBuffers() {
+    for (ReadBuffer<K, V> buffer : readBuffers) {
+      buffer.drainTo(this);
+    }
+  }
+
+  /**
+   * Moves an entry that was read to the front of the recency list, unless it has been evicted
+   * since. Must hold the lock.
+   *
+   * @param entry The entry that was read.
+   */
+  private void applyRead(Entry<K, V> entry) {
+    if (entry.linked) {
+      doublyLinkedList.pushToFront(entry.node);
+    }
+  }
+
+  private int stripe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & (readBuffers.size() - 1);
+  }
+
+  /**
+   * A cached value together with its node in the recency list.
+   *
+   * @param <K> The type of the key.
+   * @param <V> The type of the value.
+   */
+  private static class Entry<K, V> {
+    final K key;
+    volatile V value;
+    final LinkedListNode<Entry<K, V>> node;
+
+    /** Whether the node is in the recency list. Only accessed while holding the lock. */
+    boolean linked;
+
+    Entry(K key, V value) {
+      this.key = key;
+      this.value = value;
+      this.node = new LinkedListNode<>(this);
+    }
+  }
+
+  /**
+   * A bounded ring of recently read entries. Any thread may add to it; only the lock holder drains
+   * it. Reads that arrive while it is full are dropped.
+   *
+   * @param <K> The type of the key.
+   * @param <V> The type of the value.
+   */
+  private static class ReadBuffer<K, V> {
+    private final AtomicReferenceArray<Entry<K, V>> entries =
+        new AtomicReferenceArray<>(BUFFER_SIZE);
+    private final AtomicLong writeCount = new AtomicLong();
+    private volatile long readCount;
+
+    /**
+     * Records a read.
+     *
+     * @param entry The entry that was read.
+     * @return The number of reads now waiting to be drained.
+     */
+    int offer(Entry<K, V> entry) {
+      long head = readCount;
+      long tail = writeCount.get();
+      long pending = tail - head;
+      if (pending < BUFFER_SIZE && writeCount.compareAndSet(tail, tail + 1)) {
+        entries.lazySet((int) (tail & BUFFER_MASK), entry);
+        return (int) pending + 1;
+      }
+      return (int) pending;
+    }
+
+    /**
+     * Replays the recorded reads, stopping at a slot whose writer has not finished storing it.
+     *
+     * @param cache The cache to apply the reads to; its lock must be held.
+     */
+    void drainTo(ConcurrentLRUCache<K, V> cache) {
+      long head = readCount;
+      long tail = writeCount.get();
+      for (; head < tail; head++) {
+        int index = (int) (head & BUFFER_MASK);
+        Entry<K, V> entry = entries.get(index);
+        if (entry == null) {
+          break;
+        }
+        entries.lazySet(index, null);
+        cache.applyRead(entry);
+      }
+      readCount = head;
+    }
+  }
+}
@@ -0,0 +1,428 @@
+package edu.brown.cs.student.main.Cache;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import okio.Buffer;
+
+/**
+ * A cache kept in a file, so its contents survive restarts. Every set appends one JSON line holding
+ * the key, the value and the time it was written; only the position of each key's latest line is
+ * kept in memory, and values are read back from the file on demand. Opening the cache replays the
+ * file to rebuild that index, dropping expired entries and any half-written last line left by a
+ * crash. Once most of the file is superseded or expired lines, it is rewritten with only the live
+ * ones. Keys and values are converted with {@link JsonSerializer}'s Moshi adapters.
+ *
+ * <p>Methods throw {@link UncheckedIOException} if the file cannot be read or written.
+ *
+ * @param <K> The type of keys maintained by this cache.
+ * @param <V> The type of mapped values.
+ */
+public class DiskCache<K, V> implements Cache<K, V>, Closeable {
+  /** Files smaller than this are never compacted. */
+  private static final long MIN_COMPACTION_BYTES = 64 << 10;
+
+  private final Path file;
+  private final JsonAdapter<K> keyAdapter;
+  private final JsonAdapter<V> valueAdapter;
+  private final long timeToLiveMillis;
+  private final Clock clock;
+  private volatile Map<K, Location> index;
+  private final ReentrantReadWriteLock lock;
+  private final CacheStats stats;
+  private FileChannel channel;
+  private long fileBytes;
+  private long liveBytes;
+
+  /**
+   * Opens or creates a cache file whose entries never expire.
+   *
+   * @param file The log file.
+   * @param keyType The type of the keys, for JSON conversion.
+   * @param valueType The type of the values, for JSON conversion.
+   * @throws IOException If the file cannot be opened or replayed.
+   */
+  public DiskCache(Path file, Type keyType, Type valueType) throws IOException {
+    this(file, keyType, valueType, null, Clock.systemUTC());
+  }
+
+  /**
+   * Opens or creates a cache file.
+   *
+   * @param file The log file.
+   * @param keyType The type of the keys, for JSON conversion.
+   * @param valueType The type of the values, for JSON conversion.
+   * @param timeToLive How long an entry stays valid after it is written, or null to keep entries
+   *     forever.
+   * @param clock The wall clock used to stamp and expire entries; it must survive restarts, so this
+   *     is not a nanosecond ticker.
+   * @throws IOException If the file cannot be opened or replayed.
+   */
+  public DiskCache(Path file, Type keyType, Type valueType, Duration timeToLive, Clock clock)
+      throws IOException {
+    this.file = file;
+    this.keyAdapter = JsonSerializer.adapter(keyType);
+    this.valueAdapter = JsonSerializer.adapter(valueType);
+    this.timeToLiveMillis = timeToLive == null ? Long.MAX_VALUE : timeToLive.toMillis();
+    this.clock = clock;
+    this.index = new ConcurrentHashMap<>();
+    this.lock = new ReentrantReadWriteLock();
+    this.stats = new CacheStats();
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    this.channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    replay();
+    if (shouldCompact()) {
+      compact();
+    }
+  }
+
+  /**
+   * Appends an entry to the file, superseding any earlier entry for the key.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   */
+  @Override
+  public void set(K key, V value) {
+    long writtenAt = clock.millis();
+    byte[] line = encode(key, value, writtenAt);
+    lock.writeLock().lock();
+    try {
+      channel.write(ByteBuffer.wrap(line), fileBytes);
+      Location previous = index.put(key, new Location(fileBytes, line.length, writtenAt));
+      fileBytes += line.length;
+      liveBytes += line.length - (previous == null ? 0 : previous.length());
+      if (shouldCompact()) {
+        compact();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads the value for a key from the file.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value, or an empty Optional if there is no live entry for
+   *     the key.
+   */
+  @Override
+  public Optional<V> get(K key) {
+    return getEntry(key).map(Entry::value);
+  }
+
+  /**
+   * Reads the value for a key from the file, along with how long ago it was written.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value and its age, or an empty Optional if there is no live
+   *     entry for the key.
+   */
+  public Optional<Entry<V>> getEntry(K key) {
+    lock.readLock().lock();
+    try {
+      Location location = index.get(key);
+      if (location == null || isExpired(location)) {
+        stats.recordMiss();
+        return Optional.empty();
+      }
+      V value = decodeValue(read(location));
+      if (value == null) {
+        stats.recordMiss();
+        return Optional.empty();
+      }
+      stats.recordHit();
+      return Optional.of(
+          new Entry<>(value, Duration.ofMillis(clock.millis() - location.writtenAt())));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of keys in the file, including any that have expired since it was opened.
+   *
+   * @return The number of key-value mappings in this cache.
+   */
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Returns the statistics this cache has recorded since it was created. Expired entries dropped
+   * when the file is compacted count as evictions.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
+  /**
+   * Passes every live entry to an action, oldest first, for example to warm an in-memory cache.
+   *
+   * @param action Called with each key and its value and age.
+   */
+  public void forEach(BiConsumer<K, Entry<V>> action) {
+    List<Map.Entry<K, Location>> entries;
+    lock.readLock().lock();
+    try {
+      entries = new ArrayList<>(index.entrySet());
+    } finally {
+      lock.readLock().unlock();
+    }
+    entries.sort(Comparator.comparingLong(entry -> entry.getValue().writtenAt()));
+    for (Map.Entry<K, Location> entry : entries) {
+      getEntry(entry.getKey()).ifPresent(found -> action.accept(entry.getKey(), found));
+    }
+  }
+
+  /**
+   * Returns the current size of the file, including superseded and expired lines.
+   *
+   * @return The file size in bytes.
+   */
+  public long fileBytes() {
+    lock.readLock().lock();
+    try {
+      return fileBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rewrites the file with only the latest live line for each key, then swaps it in atomically. The
+   * new index is built on the side and only replaces the current one once the new file has been
+   * moved into place and opened, so if any step fails the cache carries on with its old file and
+   * index.
+   *
+   * @throws IOException If the file cannot be rewritten.
+   */
+  public void compact() throws IOException {
+    lock.writeLock().lock();
+    try {
+      Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+      Map<K, Location> compactedIndex = new ConcurrentHashMap<>();
+      long offset = 0;
+      int expired = 0;
+      FileChannel reopened = null;
+      try {
+        try (FileChannel out =
+            FileChannel.open(
+                compacted,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+          List<Map.Entry<K, Location>> entries = new ArrayList<>(index.entrySet());
+          entries.sort(Comparator.comparingLong(entry -> entry.getValue().offset()));
+          for (Map.Entry<K, Location> entry : entries) {
+            Location location = entry.getValue();
+            if (isExpired(location)) {
+              expired++;
+              continue;
+            }
+            ByteBuffer line = ByteBuffer.wrap(read(location));
+            while (line.hasRemaining()) {
+              offset += out.write(line, offset);
+            }
+            compactedIndex.put(
+                entry.getKey(),
+                new Location(offset - location.length(), location.length(), location.writtenAt()));
+          }
+          out.force(true);
+        }
+        // The old channel stays open until the new file is, so it is still usable if the move or
+        // the reopen fails.
+        Files.move(
+            compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        reopened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(compacted);
+        throw e;
+      }
+      FileChannel old = channel;
+      channel = reopened;
+      index = compactedIndex;
+      fileBytes = offset;
+      liveBytes = offset;
+      for (int i = 0; i < expired; i++) {
+        stats.recordEviction();
+      }
+      try {
+        old.close();
+      } catch (IOException e) {
+        // The new file is already in use.
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws IOException If closing fails.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      channel.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the file. A last line without a newline was cut off mid-write and is
+   * truncated; a line that does not parse is skipped.
+   */
+  private void replay() throws IOException {
+    long offset = 0;
+    InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int next;
+    while ((next = in.read()) != -1) {
+      line.write(next);
+      if (next != '\n') {
+        continue;
+      }
+      byte[] bytes = line.toByteArray();
+      line.reset();
+      try {
+        JsonReader reader = JsonReader.of(new Buffer().write(bytes));
+        K key = null;
+        long writtenAt = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "key" -> key = keyAdapter.fromJson(reader);
+            case "writtenAt" -> writtenAt = reader.nextLong();
+            default -> reader.skipValue();
+          }
+        }
+        reader.endObject();
+        Location location = new Location(offset, bytes.length, writtenAt);
+        if (key != null && !isExpired(location)) {
+          Location previous = index.put(key, location);
+          liveBytes += bytes.length - (previous == null ? 0 : previous.length());
+        } else if (key != null) {
+          Location previous = index.remove(key);
+          liveBytes -= previous == null ? 0 : previous.length();
+        }
+      } catch (IOException | RuntimeException e) {
+        // A corrupt line only loses that entry.
+      }
+      offset += bytes.length;
+    }
+    channel.truncate(offset);
+    fileBytes = offset;
+  }
+
+  private boolean shouldCompact() {
+    return fileBytes > MIN_COMPACTION_BYTES && fileBytes > 2 * liveBytes;
+  }
+
+  private boolean isExpired(Location location) {
+    return clock.millis() - location.writtenAt() >= timeToLiveMillis;
+  }
+
+  private byte[] read(Location location) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(location.length());
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, location.offset() + buffer.position()) < 0) {
+        throw new IOException("Cache file " + file + " ends inside an entry");
+      }
+    }
+    return buffer.array();
+  }
+
+  private byte[] encode(K key, V value, long writtenAt) {
+    try {
+      Buffer buffer = new Buffer();
+      JsonWriter writer = JsonWriter.of(buffer);
+      writer.beginObject();
+      writer.name("writtenAt").value(writtenAt);
+      writer.name("key");
+      keyAdapter.toJson(writer, key);
+      writer.name("value");
+      valueAdapter.toJson(writer, value);
+      writer.endObject();
+      writer.flush();
+      buffer.writeByte('\n');
+      return buffer.readByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private V decodeValue(byte[] line) throws IOException {
+    JsonReader reader = JsonReader.of(new Buffer().write(line));
+    V value = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals("value")) {
+        value = valueAdapter.fromJson(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return value;
+  }
+
+  /**
+   * A value read from the file and how long ago it was written.
+   *
+   * @param value The cached value.
+   * @param age The time since the value was written, by the cache's clock.
+   * @param <V> The type of the value.
+   */
+  public record Entry<V>(V value, Duration age) {}
+
+  /**
+   * Where a key's latest line is in the file.
+   *
+   * @param offset The position of the line's first byte.
+   * @param length The length of the line, including its newline.
+   * @param writtenAt When the entry was written, in epoch milliseconds.
+   */
+  private record Location(long offset, int length, long writtenAt) {}
+}
@@ -0,0 +1,214 @@
+package edu.brown.cs.student.main.Cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache that adds time-based expiry and refresh-ahead to another cache. Each value is stamped
+ * when it is written and treated as absent once it is older than the time to live. If a loader is
+ * given, reading a value that is older than the refresh interval (but not yet expired) still
+ * returns it, and also reloads it on the executor. Keys that keep being read are therefore replaced
+ * before they expire, while keys nobody reads simply age out. The wrapped cache decides what to
+ * evict when it is full.
+ *
+ * @param <K> The type of keys maintained by this cache.
+ * @param <V> The type of mapped values.
+ */
+public class ExpiringCache<K, V> implements Cache<K, V> {
+  private final Cache<K, Stamped<V>> cache;
+  private final long timeToLiveNanos;
+  private final long refreshAfterNanos;
+  private final CacheLoader<K, V> loader;
+  private final Executor executor;
+  private final LongSupplier ticker;
+  private final Set<K> refreshing;
+  private final CacheStats stats;
+
+  /**
+   * Constructs a new ExpiringCache that only expires entries.
+   *
+   * @param cache The cache that stores the entries.
+   * @param timeToLive How long a value stays valid after it is written.
+   */
+  public ExpiringCache(Cache<K, Stamped<V>> cache, Duration timeToLive) {
+    this(cache, timeToLive, timeToLive, null, Runnable::run, System::nanoTime);
+  }
+
+  /**
+   * Constructs a new ExpiringCache that expires entries and refreshes those read late in their
+   * life.
+   *
+   * @param cache The cache that stores the entries.
+   * @param timeToLive How long a value stays valid after it is written.
+   * @param refreshAfter How old a value must be for a read to trigger a background reload. Must not
+   *     be longer than timeToLive.
+   * @param loader Loads fresh values for refreshes.
+   * @param executor Runs the refreshes.
+   */
+  public ExpiringCache(
+      Cache<K, Stamped<V>> cache,
+      Duration timeToLive,
+      Duration refreshAfter,
+      CacheLoader<K, V> loader,
+      Executor executor) {
+    this(cache, timeToLive, refreshAfter, loader, executor, System::nanoTime);
+  }
+
+  /**
+   * Constructs a new ExpiringCache with an explicit time source, for tests.
+   *
+   * @param cache The cache that stores the entries.
+   * @param timeToLive How long a value stays valid after it is written.
+   * @param refreshAfter How old a value must be for a read to trigger a background reload. Must not
+   *     be longer than timeToLive.
+   * @param loader Loads fresh values for refreshes, or null to never refresh.
+   * @param executor Runs the refreshes.
+   * @param ticker Returns the current time in nanoseconds, like {@link System#nanoTime()}.
+   */
+  public ExpiringCache(
+      Cache<K, Stamped<V>> cache,
+      Duration timeToLive,
+      Duration refreshAfter,
+      CacheLoader<K, V> loader,
+      Executor executor,
+      LongSupplier ticker) {
+    if (timeToLive.isNegative() || timeToLive.isZero()) {
+      throw new IllegalArgumentException("Time to live must be positive");
+    }
+    if (refreshAfter.compareTo(timeToLive) > 0) {
+      throw new IllegalArgumentException("Refresh interval must not exceed the time to live");
+    }
+    this.cache = cache;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.refreshAfterNanos = refreshAfter.toNanos();
+    this.loader = loader;
+    this.executor = executor;
+    this.ticker = ticker;
+    this.refreshing = ConcurrentHashMap.newKeySet();
+    this.stats = new CacheStats();
+  }
+
+  /**
+   * Associates the specified value with the specified key in this cache, restarting its time to
+   * live.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   */
+  @Override
+  public void set(K key, V value) {
+    cache.set(key, new Stamped<>(value, ticker.getAsLong()));
+  }
+
+  /**
+   * Associates the specified value with the specified key in this cache, keeping the age it already
+   * has, so a value copied from a slower cache expires and is refreshed on the same schedule as if
+   * it had been written here. A value already past the time to live is not stored.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   * @param age How long ago the value was written.
+   * @return Whether the value was stored; false if it has already expired.
+   */
+  @Override
+  public boolean set(K key, V value, Duration age) {
+    if (age.toNanos() >= timeToLiveNanos) {
+      return false;
+    }
+    cache.set(key, new Stamped<>(value, ticker.getAsLong() - Math.max(0, age.toNanos())));
+    return true;
+  }
+
+  /**
+   * Returns the value to which the specified key is mapped, or an empty Optional if there is none
+   * or it has expired. Reading a value past the refresh interval starts a background reload of it.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value to which the specified key is mapped, or an empty
+   *     Optional if this cache contains no live mapping for the key.
+   */
+  @Override
+  public Optional<V> get(K key) {
+    Optional<Stamped<V>> stamped = cache.get(key);
+    if (stamped.isEmpty()) {
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    long age = ticker.getAsLong() - stamped.get().writtenAt();
+    if (age >= timeToLiveNanos) {
+      stats.recordMiss();
+      stats.recordEviction();
+      return Optional.empty();
+    }
+    stats.recordHit();
+    if (loader != null && age >= refreshAfterNanos) {
+      refresh(key);
+    }
+    return Optional.of(stamped.get().value());
+  }
+
+  /**
+   * Returns the number of key-value mappings held by the wrapped cache, including any that have
+   * expired but not yet been evicted.
+   *
+   * @return The number of key-value mappings in this cache.
+   */
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the statistics of this layer: reads of expired values count as both a miss and an
+   * eviction, and background refreshes count as loads. The wrapped cache keeps its own.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
+  /**
+   * Reloads a key on the executor, unless a reload of it is already running. If the reload fails,
+   * the current value is kept until it expires.
+   *
+   * @param key The key to reload.
+   */
+  private void refresh(K key) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            long start = ticker.getAsLong();
+            try {
+              set(key, loader.load(key));
+              stats.recordLoadSuccess(ticker.getAsLong() - start);
+            } catch (Exception e) {
+              // Keep serving the current value; a later read past the refresh interval retries.
+              stats.recordLoadFailure(ticker.getAsLong() - start);
+            } finally {
+              refreshing.remove(key);
+            }
+          });
+    } catch (RuntimeException e) {
+      // The executor rejected the task.
+      refreshing.remove(key);
+    }
+  }
+
+  /**
+   * A cached value and the time it was written.
+   *
+   * @param value The cached value.
+   * @param writtenAt The ticker reading when the value was written, in nanoseconds.
+   * @param <V> The type of the value.
+   */
+  public record Stamped<V>(V value, long writtenAt) {}
+}
@@ -0,0 +1,94 @@
+package edu.brown.cs.student.main.Cache;
+
+/**
+ * A count-min sketch of how often keys have been seen recently, using four 4-bit counters per key
+ * packed sixteen to a long. Estimates can be too high but never too low. After a number of
+ * increments proportional to the cache size, every counter is halved, so old popularity fades. Not
+ * thread-safe; the owning cache guards it.
+ *
+ * @param <K> The type of keys counted.
+ */
+class FrequencySketch<K> {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Constructs a sketch sized for a cache of the given capacity.
+   *
+   * @param capacity The number of entries the cache holds.
+   */
+  FrequencySketch(int capacity) {
+    int size = Integer.highestOneBit(Math.max(8, capacity - 1) << 1);
+    this.table = new long[size];
+    this.mask = size - 1;
+    this.sampleSize = 10 * Math.max(1, capacity);
+  }
+
+  /**
+   * Estimates how often a key has been seen, between 0 and 15.
+   *
+   * @param key The key.
+   * @return The estimated recent frequency.
+   */
+  int frequency(K key) {
+    int hash = spread(key.hashCode());
+    int frequency = 15;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int shift = counterShift(hash, i);
+      frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> shift) & 0xF));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records one occurrence of a key.
+   *
+   * @param key The key.
+   */
+  void increment(K key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int shift = counterShift(hash, i);
+      if (((table[index] >>> shift) & 0xF) != 0xF) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  /** Halves every counter. */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & mask;
+  }
+
+  private static int counterShift(int hash, int i) {
+    return ((hash >>> (i << 3)) & 0xF) << 2;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
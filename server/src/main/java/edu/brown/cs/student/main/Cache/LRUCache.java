@@ -6,7 +6,8 @@ import java.util.Optional;
 
 /**
  * Implements a Least Recently Used (LRU) cache. This cache has a fixed capacity and evicts the
- * least recently used items when it reaches capacity.
+ * least recently used items when it reaches capacity. It is not thread-safe; use {@link
+ * ConcurrentLRUCache} for a cache shared between threads.
  *
  * @param <K> The type of keys maintained by this cache.
  * @param <V> The type of mapped values.
@@ -15,6 +16,7 @@ public class LRUCache<K, V> implements Cache<K, V> {
   private final int size;
   private final Map<K, LinkedListNode<CacheElement<K, V>>> linkedListNodeMap;
   private final DoublyLinkedList<CacheElement<K, V>> doublyLinkedList;
+  private final CacheStats stats;
 
   /**
    * Constructs a new LRUCache with the specified capacity.
@@ -25,6 +27,7 @@ public class LRUCache<K, V> implements Cache<K, V> {
     this.size = size;
     this.linkedListNodeMap = new HashMap<>();
     this.doublyLinkedList = new DoublyLinkedList<>();
+    this.stats = new CacheStats();
   }
 
   /**
@@ -47,6 +50,7 @@ public class LRUCache<K, V> implements Cache<K, V> {
       if (linkedListNodeMap.size() == size) {
         LinkedListNode<CacheElement<K, V>> removedNode = doublyLinkedList.removeLast();
         linkedListNodeMap.remove(removedNode.data.getKey());
+        stats.recordEviction();
       }
       doublyLinkedList.addFirst(newNode);
       linkedListNodeMap.put(key, newNode);
@@ -67,8 +71,10 @@ public class LRUCache<K, V> implements Cache<K, V> {
     if (linkedListNodeMap.containsKey(key)) {
       doublyLinkedList.pushToFront(linkedListNodeMap.get(key));
       V value = linkedListNodeMap.get(key).data.getValue();
+      stats.recordHit();
       return Optional.of(value);
     }
+    stats.recordMiss();
     return Optional.empty();
   }
 
@@ -82,6 +88,16 @@ public class LRUCache<K, V> implements Cache<K, V> {
     return linkedListNodeMap.size();
   }
 
+  /**
+   * Returns the statistics this cache has recorded since it was created.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
   /**
    * Returns the map of keys to linked list nodes used internally by this cache.
    *
@@ -0,0 +1,104 @@
+package edu.brown.cs.student.main.Cache;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * A two-level cache: a fast in-memory cache in front of a {@link DiskCache}. Writes go to both
+ * levels. A miss in memory that hits on disk copies the entry back into memory. On construction,
+ * the memory level is warmed with the disk level's live entries, oldest first, so after a restart
+ * the most recently written entries are the ones an LRU keeps. Entries copied from disk keep the
+ * age they have there, so a memory level that expires entries does not treat them as new; an entry
+ * too old for the memory level to accept is not served at all. If the disk fails, the cache carries
+ * on with memory alone.
+ *
+ * @param <K> The type of keys maintained by this cache.
+ * @param <V> The type of mapped values.
+ */
+public class TieredCache<K, V> implements Cache<K, V> {
+  private final Cache<K, V> memory;
+  private final DiskCache<K, V> disk;
+  private final CacheStats stats;
+
+  /**
+   * Constructs a new TieredCache and warms the memory level from disk.
+   *
+   * @param memory The in-memory cache.
+   * @param disk The persistent cache.
+   */
+  public TieredCache(Cache<K, V> memory, DiskCache<K, V> disk) {
+    this.memory = memory;
+    this.disk = disk;
+    this.stats = new CacheStats();
+    try {
+      disk.forEach((key, entry) -> memory.set(key, entry.value(), entry.age()));
+    } catch (UncheckedIOException e) {
+      // Start cold rather than not at all.
+    }
+  }
+
+  /**
+   * Associates the specified value with the specified key in both levels.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   */
+  @Override
+  public void set(K key, V value) {
+    memory.set(key, value);
+    try {
+      disk.set(key, value);
+    } catch (UncheckedIOException e) {
+      // The entry is still cached in memory.
+    }
+  }
+
+  /**
+   * Returns the value from memory, or else from disk if the memory level accepts it at its age.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value to which the specified key is mapped, or an empty
+   *     Optional if neither level has it.
+   */
+  @Override
+  public Optional<V> get(K key) {
+    Optional<V> value = memory.get(key);
+    if (value.isEmpty()) {
+      try {
+        value =
+            disk.getEntry(key)
+                .filter(entry -> memory.set(key, entry.value(), entry.age()))
+                .map(DiskCache.Entry::value);
+      } catch (UncheckedIOException e) {
+        value = Optional.empty();
+      }
+    }
+    if (value.isPresent()) {
+      stats.recordHit();
+    } else {
+      stats.recordMiss();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the number of entries in the larger level, normally the disk.
+   *
+   * @return The number of key-value mappings in this cache.
+   */
+  @Override
+  public int size() {
+    return Math.max(memory.size(), disk.size());
+  }
+
+  /**
+   * Returns the statistics of the two levels combined: a lookup is a hit if either level had the
+   * value. Each level keeps its own statistics as well.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+}
@@ -0,0 +1,206 @@
+package edu.brown.cs.student.main.Cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cache using the W-TinyLFU policy. New entries land in a small LRU window. When an entry leaves
+ * the window it has to compete for a place in the main area with that area's next victim, and it
+ * only gets in if a {@link FrequencySketch} says it has been requested more often recently. The
+ * main area is a segmented LRU: entries start in a probation segment and move to a protected
+ * segment when they are hit again. A one-off scan over many keys therefore only churns the window
+ * and cannot push out keys that are requested all the time, which plain LRU would. All operations
+ * hold the cache's monitor, so it is safe to share between threads.
+ *
+ * @param <K> The type of keys maintained by this cache.
+ * @param <V> The type of mapped values.
+ */
+public class TinyLFUCache<K, V> implements Cache<K, V> {
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final int windowMax;
+  private final int mainMax;
+  private final int protectedMax;
+  private final Map<K, Entry<K, V>> map;
+  private final FrequencySketch<K> sketch;
+  private final DoublyLinkedList<Entry<K, V>> window;
+  private final DoublyLinkedList<Entry<K, V>> probation;
+  private final DoublyLinkedList<Entry<K, V>> protectedSegment;
+  private final CacheStats stats;
+  private int windowSize;
+  private int probationSize;
+  private int protectedSize;
+
+  /**
+   * Constructs a new TinyLFUCache with the specified capacity. One percent of it, and at least one
+   * entry, is the window; 80% of the rest is the protected segment.
+   *
+   * @param size The maximum number of elements the cache can hold.
+   */
+  public TinyLFUCache(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.windowMax = Math.max(1, size / 100);
+    this.mainMax = size - windowMax;
+    this.protectedMax = (int) (mainMax * 0.8);
+    this.map = new HashMap<>();
+    this.sketch = new FrequencySketch<>(size);
+    this.window = new DoublyLinkedList<>();
+    this.probation = new DoublyLinkedList<>();
+    this.protectedSegment = new DoublyLinkedList<>();
+    this.stats = new CacheStats();
+  }
+
+  /**
+   * Associates the specified value with the specified key in this cache. A new key enters the
+   * window, which may push the window's oldest entry into competition for the main area. Only
+   * {@link #get(Object)} counts towards a key's frequency, so the usual miss followed by a set
+   * counts one request once.
+   *
+   * @param key The key with which the specified value is to be associated.
+   * @param value The value to be associated with the specified key.
+   */
+  @Override
+  public synchronized void set(K key, V value) {
+    Entry<K, V> entry = map.get(key);
+    if (entry != null) {
+      entry.value = value;
+      onHit(entry);
+      return;
+    }
+    entry = new Entry<>(key, value);
+    map.put(key, entry);
+    window.addFirst(entry.node);
+    windowSize++;
+    if (windowSize > windowMax) {
+      Entry<K, V> candidate = window.removeLast().data;
+      windowSize--;
+      admit(candidate);
+    }
+  }
+
+  /**
+   * Returns the value to which the specified key is mapped, or an empty Optional if this cache
+   * contains no mapping for the key. Misses are counted too, so a key that keeps being requested
+   * builds up the frequency it needs to be admitted.
+   *
+   * @param key The key whose associated value is to be returned.
+   * @return An Optional containing the value to which the specified key is mapped, or an empty
+   *     Optional if this cache contains no mapping for the key.
+   */
+  @Override
+  public synchronized Optional<V> get(K key) {
+    sketch.increment(key);
+    Entry<K, V> entry = map.get(key);
+    if (entry == null) {
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    stats.recordHit();
+    onHit(entry);
+    return Optional.of(entry.value);
+  }
+
+  /**
+   * Returns the number of key-value mappings in this cache.
+   *
+   * @return The number of key-value mappings in this cache.
+   */
+  @Override
+  public synchronized int size() {
+    return map.size();
+  }
+
+  /**
+   * Returns the statistics this cache has recorded since it was created.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
+  /**
+   * Updates recency after a hit: window and protected entries move to the front of their segment,
+   * and probation entries are promoted, demoting the oldest protected entry if that segment is
+   * full.
+   *
+   * @param entry The entry that was hit.
+   */
+  private void onHit(Entry<K, V> entry) {
+    switch (entry.segment) {
+      case WINDOW -> window.pushToFront(entry.node);
+      case PROTECTED -> protectedSegment.pushToFront(entry.node);
+      default -> {
+        probation.remove(entry.node);
+        probationSize--;
+        entry.segment = PROTECTED;
+        protectedSegment.addFirst(entry.node);
+        protectedSize++;
+        if (protectedSize > protectedMax) {
+          Entry<K, V> demoted = protectedSegment.removeLast().data;
+          protectedSize--;
+          demoted.segment = PROBATION;
+          probation.addFirst(demoted.node);
+          probationSize++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Offers an entry leaving the window a place in the main area. If the area is full, the candidate
+   * only replaces the area's victim when it is estimated to be more popular; otherwise the
+   * candidate itself is dropped.
+   *
+   * @param candidate The entry that left the window.
+   */
+  private void admit(Entry<K, V> candidate) {
+    if (probationSize + protectedSize >= mainMax) {
+      DoublyLinkedList<Entry<K, V>> victims = probationSize > 0 ? probation : protectedSegment;
+      LinkedListNode<Entry<K, V>> victimNode = victims.getTail().prev;
+      Entry<K, V> victim = victimNode.data;
+      if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+        map.remove(candidate.key);
+        stats.recordEviction();
+        return;
+      }
+      victims.remove(victimNode);
+      if (victim.segment == PROBATION) {
+        probationSize--;
+      } else {
+        protectedSize--;
+      }
+      map.remove(victim.key);
+      stats.recordEviction();
+    }
+    candidate.segment = PROBATION;
+    probation.addFirst(candidate.node);
+    probationSize++;
+  }
+
+  /**
+   * A cached value together with its node and the segment the node is in.
+   *
+   * @param <K> The type of the key.
+   * @param <V> The type of the value.
+   */
+  private static class Entry<K, V> {
+    final K key;
+    V value;
+    int segment;
+    final LinkedListNode<Entry<K, V>> node;
+
+    Entry(K key, V value) {
+      this.key = key;
+      this.value = value;
+      this.segment = WINDOW;
+      this.node = new LinkedListNode<>(this);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package edu.brown.cs.student.main.JsonSerializer;
+
+import com.squareup.moshi.FromJson;
+import com.squareup.moshi.ToJson;
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import java.time.LocalDateTime;
+
+/**
+ * Converts BroadbandData through a plain class rather than as a record, so that JSON written before
+ * the stale flag existed, such as entries in the disk cache, still reads as fresh data.
+ */
+public class BroadbandDataAdapter {
+  /** The JSON form of BroadbandData, in which every field is optional. */
+  static class BroadbandDataJson {
+    double percentage;
+    String state;
+    String county;
+    LocalDateTime dateTime;
+    boolean stale;
+  }
+
+  @ToJson
+  BroadbandDataJson toJson(BroadbandData data) {
+    BroadbandDataJson json = new BroadbandDataJson();
+    json.percentage = data.percentage();
+    json.state = data.state();
+    json.county = data.county();
+    json.dateTime = data.dateTime();
+    json.stale = data.stale();
+    return json;
+  }
+
+  @FromJson
+  BroadbandData fromJson(BroadbandDataJson json) {
+    return new BroadbandData(json.percentage, json.state, json.county, json.dateTime, json.stale);
+  }
+}
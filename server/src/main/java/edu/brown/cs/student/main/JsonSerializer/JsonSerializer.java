@@ -8,7 +8,7 @@ import java.lang.reflect.Type;
 /** Json serializer helper class. */
 public class JsonSerializer {
   private static final Moshi moshi =
-      new Moshi.Builder().add(new LocalDateTimeAdapter()).add(new StateCountyMapAdapter()).build();
+      new Moshi.Builder().add(new LocalDateTimeAdapter()).add(new BroadbandDataAdapter()).build();
 
   public static String toJson(Object obj) {
     JsonAdapter<Object> jsonAdapter = moshi.adapter(Object.class);
@@ -29,4 +29,8 @@ public class JsonSerializer {
     JsonAdapter<T> jsonAdapter = moshi.adapter(typeOfT);
     return jsonAdapter.fromJson(json);
   }
+
+  public static <T> JsonAdapter<T> adapter(Type typeOfT) {
+    return moshi.adapter(typeOfT);
+  }
 }
@@ -0,0 +1,105 @@
+package edu.brown.cs.student.main.Table;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A column whose values are stored back to back as UTF-8 in one shared byte array. Cell i occupies
+ * the bytes between offsets[i] and offsets[i + 1], so the whole column costs two arrays no matter
+ * how many rows it has.
+ */
+public class ArenaColumn implements Column {
+  private final byte[] arena;
+  private final int[] offsets;
+  private final int size;
+
+  /**
+   * Constructs a new ArenaColumn. The arrays are used as-is and must not be modified afterwards.
+   *
+   * @param arena The UTF-8 bytes of every cell, concatenated.
+   * @param offsets The start of each cell in the arena, followed by the end of the last cell.
+   * @param size The number of cells.
+   */
+  public ArenaColumn(byte[] arena, int[] offsets, int size) {
+    this.arena = arena;
+    this.offsets = offsets;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String get(int row) {
+    return new String(arena, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Checks whether a cell contains the given UTF-8 bytes. Since UTF-8 never encodes one character
+   * as part of another, this agrees with {@link String#contains} on the decoded cell, but compares
+   * the arena in place without creating a String.
+   *
+   * @param row The row index.
+   * @param needle The UTF-8 encoding of the value to look for.
+   * @return true if the cell contains the value.
+   */
+  public boolean contains(int row, byte[] needle) {
+    int start = offsets[row];
+    int last = offsets[row + 1] - needle.length;
+    if (needle.length == 0) {
+      return true;
+    }
+    byte first = needle[0];
+    for (int i = start; i <= last; i++) {
+      if (arena[i] != first) {
+        continue;
+      }
+      int j = 1;
+      while (j < needle.length && arena[i + j] == needle[j]) {
+        j++;
+      }
+      if (j == needle.length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether a cell is exactly the given UTF-8 bytes, without creating a String.
+   *
+   * @param row The row index.
+   * @param value The UTF-8 encoding of the value to compare with.
+   * @return true if the cell equals the value.
+   */
+  public boolean cellEquals(int row, byte[] value) {
+    int start = offsets[row];
+    int end = offsets[row + 1];
+    return Arrays.equals(arena, start, end, value, 0, value.length);
+  }
+
+  /**
+   * Builds a copy of this column with every cell lowercased, so case-insensitive searches can
+   * compare bytes against a lowercased query instead of lowercasing each cell per search.
+   *
+   * @return The case-folded column.
+   */
+  ArenaColumn foldCase() {
+    ByteArrayOutputStream folded = new ByteArrayOutputStream(arena.length);
+    int[] foldedOffsets = new int[size + 1];
+    for (int row = 0; row < size; row++) {
+      folded.writeBytes(get(row).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+      foldedOffsets[row + 1] = folded.size();
+    }
+    return new ArenaColumn(folded.toByteArray(), foldedOffsets, size);
+  }
+
+  @Override
+  public long memoryBytes() {
+    return 16L + arena.length + 4L * offsets.length;
+  }
+}
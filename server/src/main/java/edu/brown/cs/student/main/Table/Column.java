@@ -0,0 +1,28 @@
+/** This package contains the compact, column-oriented representation of loaded CSV data. */
+package edu.brown.cs.student.main.Table;
+
+/** A single immutable column of a {@link ColumnarTable}. */
+public interface Column {
+
+  /**
+   * Returns the number of cells in this column.
+   *
+   * @return The number of cells in this column.
+   */
+  int size();
+
+  /**
+   * Returns the value stored at the given row.
+   *
+   * @param row The row index, between 0 and size() - 1.
+   * @return The cell value.
+   */
+  String get(int row);
+
+  /**
+   * Returns an estimate of the heap used by this column, in bytes.
+   *
+   * @return The approximate number of bytes retained by this column.
+   */
+  long memoryBytes();
+}
@@ -0,0 +1,260 @@
+package edu.brown.cs.student.main.Table;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable, column-oriented copy of a parsed CSV file. Instead of one list of Strings per row,
+ * each column is kept as a single contiguous block (see {@link ArenaColumn} and {@link
+ * DictionaryColumn}), which keeps the number of objects independent of the row count and lets a
+ * scan over one column walk memory sequentially. Rows are rebuilt on demand.
+ */
+public class ColumnarTable {
+  private final List<String> header;
+  private final Column[] columns;
+  private final int rowCount;
+
+  /** Lazily built exact-match indexes; slot 2 * column is case-sensitive, 2 * column + 1 is not. */
+  private final AtomicReferenceArray<ValueIndex> valueIndexes;
+
+  /** Lazily built lowercased copies of the arena columns, for case-insensitive scans. */
+  private final AtomicReferenceArray<ArenaColumn> foldedColumns;
+
+  /** Trigram indexes, present only after buildTrigramIndexes() has been called. */
+  private volatile TrigramIndex[] trigramIndexes;
+
+  /**
+   * Constructs a new ColumnarTable. Use {@link ColumnarTableBuilder} rather than calling this
+   * directly.
+   *
+   * @param header The header row, or null if the file had none.
+   * @param columns The columns of the table; all must have rowCount cells.
+   * @param rowCount The number of rows in the table.
+   */
+  ColumnarTable(List<String> header, Column[] columns, int rowCount) {
+    this.header = header;
+    this.columns = columns;
+    this.rowCount = rowCount;
+    this.valueIndexes = new AtomicReferenceArray<>(2 * columns.length);
+    this.foldedColumns = new AtomicReferenceArray<>(columns.length);
+  }
+
+  /**
+   * Returns the header row of the table.
+   *
+   * @return The header row, or null if the file had none.
+   */
+  public List<String> getHeader() {
+    return header;
+  }
+
+  /**
+   * Returns the number of data rows in the table.
+   *
+   * @return The number of rows.
+   */
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the number of columns in the table. If there are no rows, this is the width of the
+   * header, or 0 without one.
+   *
+   * @return The number of columns.
+   */
+  public int columnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Returns the column at the given index.
+   *
+   * @param column The column index.
+   * @return The column.
+   */
+  public Column column(int column) {
+    return columns[column];
+  }
+
+  /**
+   * Returns the value of a single cell.
+   *
+   * @param row The row index.
+   * @param column The column index.
+   * @return The cell value.
+   */
+  public String get(int row, int column) {
+    return columns[column].get(row);
+  }
+
+  /**
+   * Returns the exact-match index for a column, building it on first use. The index is kept for the
+   * lifetime of the table, so later lookups against the same column are a hash probe. Safe to call
+   * from several threads; concurrent first callers may both build, and one result wins.
+   *
+   * @param column The column index.
+   * @param caseSensitive Whether the index should distinguish case.
+   * @return The index for that column.
+   */
+  public ValueIndex valueIndex(int column, boolean caseSensitive) {
+    int slot = 2 * column + (caseSensitive ? 0 : 1);
+    ValueIndex index = valueIndexes.get(slot);
+    if (index == null) {
+      index = ValueIndex.build(columns[column], caseSensitive);
+      if (!valueIndexes.compareAndSet(slot, null, index)) {
+        index = valueIndexes.get(slot);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns a lowercased copy of an arena column, building it on first use and keeping it beside
+   * the table. Case-insensitive substring searches compare against this copy byte for byte, so no
+   * cell has to be decoded or lowercased per search. Safe to call from several threads, like {@link
+   * #valueIndex(int, boolean)}.
+   *
+   * @param column The column index.
+   * @return The case-folded column, or null if the column is not an {@link ArenaColumn}.
+   */
+  public ArenaColumn foldedColumn(int column) {
+    if (!(columns[column] instanceof ArenaColumn arenaColumn)) {
+      return null;
+    }
+    ArenaColumn folded = foldedColumns.get(column);
+    if (folded == null) {
+      folded = arenaColumn.foldCase();
+      if (!foldedColumns.compareAndSet(column, null, folded)) {
+        folded = foldedColumns.get(column);
+      }
+    }
+    return folded;
+  }
+
+  /**
+   * Builds a trigram index for every arena column so that substring searches can skip rows that
+   * cannot match. Dictionary columns are left out, since searches already evaluate each of their
+   * distinct values only once. Indexing costs memory (see {@link #indexMemoryBytes()}), so it is
+   * opt-in per table.
+   */
+  public synchronized void buildTrigramIndexes() {
+    if (trigramIndexes != null) {
+      return;
+    }
+    TrigramIndex[] indexes = new TrigramIndex[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] instanceof ArenaColumn) {
+        indexes[i] = TrigramIndex.build(columns[i]);
+      }
+    }
+    trigramIndexes = indexes;
+  }
+
+  /**
+   * Returns the trigram index for a column.
+   *
+   * @param column The column index.
+   * @return The column's trigram index, or null if none was built.
+   */
+  public TrigramIndex trigramIndex(int column) {
+    TrigramIndex[] indexes = trigramIndexes;
+    return indexes == null ? null : indexes[column];
+  }
+
+  /**
+   * Returns an estimate of the heap used by the indexes and case-folded columns built so far, in
+   * bytes.
+   *
+   * @return The approximate number of bytes retained by all indexes.
+   */
+  public long indexMemoryBytes() {
+    long bytes = 0;
+    TrigramIndex[] indexes = trigramIndexes;
+    if (indexes != null) {
+      for (TrigramIndex index : indexes) {
+        if (index != null) {
+          bytes += index.memoryBytes();
+        }
+      }
+    }
+    for (int slot = 0; slot < valueIndexes.length(); slot++) {
+      ValueIndex index = valueIndexes.get(slot);
+      if (index != null) {
+        bytes += index.memoryBytes();
+      }
+    }
+    for (int column = 0; column < foldedColumns.length(); column++) {
+      ArenaColumn folded = foldedColumns.get(column);
+      if (folded != null) {
+        bytes += folded.memoryBytes();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Rebuilds a single row.
+   *
+   * @param row The row index.
+   * @return An unmodifiable list of the row's cells.
+   */
+  public List<String> getRow(int row) {
+    String[] cells = new String[columns.length];
+    for (int column = 0; column < columns.length; column++) {
+      cells[column] = columns[column].get(row);
+    }
+    return Arrays.asList(cells);
+  }
+
+  /**
+   * Returns a read-only list view of the rows. Rows are rebuilt each time they are accessed, so the
+   * view itself retains nothing; it exists so the table can be handed to code expecting rows.
+   *
+   * @return A list view of every row.
+   */
+  public List<List<String>> asRows() {
+    return new AbstractList<>() {
+      @Override
+      public List<String> get(int index) {
+        if (index < 0 || index >= rowCount) {
+          throw new IndexOutOfBoundsException("Row " + index + " of " + rowCount);
+        }
+        return getRow(index);
+      }
+
+      @Override
+      public int size() {
+        return rowCount;
+      }
+    };
+  }
+
+  /**
+   * Converts column name to first index in the header.
+   *
+   * @param name The string of column to convert to index
+   * @return The column index, or -1 if there is no header or no column has that name.
+   */
+  public int columnNameToIndex(String name) {
+    if (header == null) {
+      return -1;
+    }
+    return header.indexOf(name);
+  }
+
+  /**
+   * Returns an estimate of the heap used by the table's data, in bytes.
+   *
+   * @return The approximate number of bytes retained by all columns.
+   */
+  public long memoryBytes() {
+    long bytes = 0;
+    for (Column column : columns) {
+      bytes += column.memoryBytes();
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,196 @@
+package edu.brown.cs.student.main.Table;
+
+import Parser.Parser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates rows one at a time and produces a {@link ColumnarTable}. Each column is written to a
+ * growing UTF-8 arena; while a column has at most {@link #MAX_DICTIONARY_SIZE} distinct values it
+ * is also dictionary-encoded, and build() keeps whichever encoding is smaller.
+ */
+public class ColumnarTableBuilder {
+  /** The largest dictionary a column may use; codes have to fit in two bytes. */
+  public static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+  private final List<String> header;
+  private ColumnBuilder[] columns;
+  private int rowCount;
+
+  /**
+   * Constructs a new ColumnarTableBuilder.
+   *
+   * @param header The header row of the table, or null if there is none.
+   */
+  public ColumnarTableBuilder(List<String> header) {
+    this.header = header == null ? null : List.copyOf(header);
+    this.columns = null;
+    this.rowCount = 0;
+  }
+
+  /**
+   * Streams every row out of a parser into a new table, so the file is never held as a list of
+   * rows. The parser's header, if it has one, becomes the table's header.
+   *
+   * @param parser A parser that has not been read yet.
+   * @return The finished table.
+   * @throws IOException if there's an error reading from the parser's source.
+   */
+  public static ColumnarTable fromParser(Parser<List<String>> parser) throws IOException {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    try {
+      Iterator<List<String>> rows = parser.iterator();
+      while (rows.hasNext()) {
+        builder.addRow(rows.next());
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return builder.build(parser.getHeader());
+  }
+
+  /**
+   * Appends a row to the table.
+   *
+   * @param row The cells of the row.
+   * @throws IllegalArgumentException if the row is not as wide as the previous rows.
+   */
+  public void addRow(List<String> row) {
+    if (columns == null) {
+      columns = new ColumnBuilder[row.size()];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = new ColumnBuilder();
+      }
+    } else if (row.size() != columns.length) {
+      throw new IllegalArgumentException(
+          "Row " + rowCount + " has " + row.size() + " fields, expected " + columns.length);
+    }
+    for (int i = 0; i < columns.length; i++) {
+      columns[i].add(row.get(i));
+    }
+    rowCount++;
+  }
+
+  /**
+   * Returns the number of rows added so far.
+   *
+   * @return The number of rows.
+   */
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Builds the table. The builder should not be used afterwards.
+   *
+   * @param header The header row, or null to use the one given to the constructor. Useful when the
+   *     header only becomes known while rows are being read.
+   * @return The finished table.
+   */
+  public ColumnarTable build(List<String> header) {
+    List<String> finalHeader = header != null ? List.copyOf(header) : this.header;
+    if (columns == null) {
+      int width = finalHeader == null ? 0 : finalHeader.size();
+      Column[] empty = new Column[width];
+      for (int i = 0; i < width; i++) {
+        empty[i] = new ArenaColumn(new byte[0], new int[1], 0);
+      }
+      return new ColumnarTable(finalHeader, empty, 0);
+    }
+    Column[] built = new Column[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      built[i] = columns[i].build(rowCount);
+      columns[i] = null;
+    }
+    return new ColumnarTable(finalHeader, built, rowCount);
+  }
+
+  /**
+   * Builds the table with the header given to the constructor.
+   *
+   * @return The finished table.
+   */
+  public ColumnarTable build() {
+    return build(null);
+  }
+
+  /** Growable storage for one column. */
+  private static class ColumnBuilder {
+    private byte[] arena = new byte[1024];
+    private int arenaLength = 0;
+    private int[] offsets = new int[64];
+    private int size = 0;
+
+    /** Distinct values seen so far, or null once there are too many to dictionary-encode. */
+    private Map<String, Integer> dictionary = new HashMap<>();
+
+    private List<String> dictionaryValues = new ArrayList<>();
+    private int[] codes = new int[64];
+
+    void add(String value) {
+      int row = size++;
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      if (arenaLength + bytes.length > arena.length) {
+        arena = Arrays.copyOf(arena, grow(arena.length, arenaLength + bytes.length));
+      }
+      System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+      arenaLength += bytes.length;
+      if (row + 2 > offsets.length) {
+        offsets = Arrays.copyOf(offsets, grow(offsets.length, row + 2));
+      }
+      offsets[row + 1] = arenaLength;
+
+      if (dictionary != null) {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+          if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+            dictionary = null;
+            dictionaryValues = null;
+            codes = null;
+            return;
+          }
+          code = dictionary.size();
+          dictionary.put(value, code);
+          dictionaryValues.add(value);
+        }
+        if (row + 1 > codes.length) {
+          codes = Arrays.copyOf(codes, grow(codes.length, row + 1));
+        }
+        codes[row] = code;
+      }
+    }
+
+    Column build(int rowCount) {
+      if (dictionary != null) {
+        long dictionaryBytes = (dictionaryValues.size() <= 1 << 8 ? 1L : 2L) * rowCount;
+        for (String value : dictionaryValues) {
+          dictionaryBytes += 4 + DictionaryColumn.stringBytes(value);
+        }
+        long arenaBytes = arenaLength + 4L * (rowCount + 1);
+        if (dictionaryBytes < arenaBytes) {
+          return new DictionaryColumn(dictionaryValues.toArray(new String[0]), codes, rowCount);
+        }
+      }
+      return new ArenaColumn(
+          Arrays.copyOf(arena, arenaLength), Arrays.copyOf(offsets, rowCount + 1), rowCount);
+    }
+
+    private static int grow(int current, int needed) {
+      long next = Math.max((long) current * 2, needed);
+      if (next > Integer.MAX_VALUE - 8) {
+        if (needed > Integer.MAX_VALUE - 8) {
+          throw new IllegalStateException("Column exceeds 2 GB");
+        }
+        next = Integer.MAX_VALUE - 8;
+      }
+      return (int) next;
+    }
+  }
+}
@@ -0,0 +1,293 @@
+package edu.brown.cs.student.main.Table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A set of loaded tables, each under its own name, so several files can be viewed and searched at
+ * once without being parsed again. Readers {@link #acquire(String) acquire} a lease on a dataset
+ * and close it when they are done; a dataset with open leases is never evicted, so a new load can
+ * not pull a table out from under a search that is still running.
+ *
+ * <p>The registry keeps the estimated heap use of its tables, indexes included, under a memory
+ * budget. When a load goes over it, whole datasets are evicted, least recently used first, skipping
+ * any that are leased; those are evicted once their last lease is closed, if the registry is still
+ * over budget by then. The dataset just loaded is never evicted to make room for itself, so a
+ * single table larger than the budget is kept until something else is loaded.
+ *
+ * <p>Loads that run in the background can announce themselves with {@link #expect(String,
+ * CompletableFuture)}, so readers asking for a dataset that is not registered yet can wait for it
+ * instead of being told it does not exist.
+ */
+public class DatasetRegistry {
+  private final long memoryBudgetBytes;
+
+  /** Datasets by name, in access order, so the first entry is the least recently used. */
+  private final LinkedHashMap<String, Dataset> datasets;
+
+  /** Background loads that have been announced but have not finished, by dataset name. */
+  private final Map<String, CompletableFuture<Dataset>> loading;
+
+  private Dataset latest;
+  private String latestExpected;
+  private long evictions;
+
+  /**
+   * Constructs a new DatasetRegistry.
+   *
+   * @param memoryBudgetBytes The estimated heap, in bytes, that the registered tables may use.
+   */
+  public DatasetRegistry(long memoryBudgetBytes) {
+    if (memoryBudgetBytes <= 0) {
+      throw new IllegalArgumentException("Memory budget must be positive");
+    }
+    this.memoryBudgetBytes = memoryBudgetBytes;
+    this.datasets = new LinkedHashMap<>(16, 0.75f, true);
+    this.loading = new HashMap<>();
+  }
+
+  /**
+   * Registers a table under a name, replacing any dataset already registered under it, and evicts
+   * the least recently used datasets if the registry is now over its memory budget. Leases on a
+   * replaced dataset stay valid until they are closed.
+   *
+   * @param name The name of the dataset.
+   * @param table The table.
+   * @return The registered dataset.
+   */
+  public synchronized Dataset put(String name, ColumnarTable table) {
+    Dataset dataset =
+        new Dataset(name, table, Long.toHexString(ThreadLocalRandom.current().nextLong()));
+    datasets.put(name, dataset);
+    latest = dataset;
+    evictOverBudget();
+    return dataset;
+  }
+
+  /**
+   * Leases a dataset, which keeps it from being evicted until the lease is closed.
+   *
+   * @param name The name of the dataset, or null for the most recently loaded one.
+   * @return A lease on the dataset, or empty if no dataset is registered under the name.
+   */
+  public synchronized Optional<Lease> acquire(String name) {
+    Dataset dataset;
+    if (name == null) {
+      dataset = latest == null ? null : datasets.get(latest.name);
+    } else {
+      dataset = datasets.get(name);
+    }
+    if (dataset == null) {
+      return Optional.empty();
+    }
+    dataset.leases++;
+    return Optional.of(new Lease(dataset));
+  }
+
+  /**
+   * Announces that a dataset is being loaded in the background. The announcement is withdrawn when
+   * the load finishes, whether or not it succeeds; a later announcement for the same name replaces
+   * it.
+   *
+   * @param name The name the dataset will be registered under.
+   * @param load A future that completes once the dataset has been registered, or has failed to
+   *     load.
+   */
+  public void expect(String name, CompletableFuture<Dataset> load) {
+    synchronized (this) {
+      loading.put(name, load);
+      latestExpected = name;
+    }
+    load.whenComplete(
+        (dataset, error) -> {
+          synchronized (this) {
+            loading.remove(name, load);
+          }
+        });
+  }
+
+  /**
+   * Returns the background load of a dataset, if one has been announced and has not finished.
+   *
+   * @param name The name of the dataset, or null for the most recently announced one.
+   * @return A future that completes once the dataset has been registered, or empty if it is not
+   *     being loaded.
+   */
+  public synchronized Optional<CompletableFuture<Dataset>> loading(String name) {
+    String key = name == null ? latestExpected : name;
+    return key == null ? Optional.empty() : Optional.ofNullable(loading.get(key));
+  }
+
+  /**
+   * Removes a dataset. Leases on it stay valid until they are closed.
+   *
+   * @param name The name of the dataset.
+   * @return Whether a dataset was registered under the name.
+   */
+  public synchronized boolean remove(String name) {
+    return datasets.remove(name) != null;
+  }
+
+  /**
+   * Returns the names of the registered datasets, least recently used first.
+   *
+   * @return The dataset names.
+   */
+  public synchronized List<String> names() {
+    return new ArrayList<>(datasets.keySet());
+  }
+
+  /**
+   * Returns whether a table is registered under any name. Tables are compared by identity, so a
+   * cache that shares its tables with the registry can tell which of them the registry accounts
+   * for.
+   *
+   * @param table The table.
+   * @return Whether some dataset holds exactly this table.
+   */
+  public synchronized boolean holds(ColumnarTable table) {
+    for (Dataset dataset : datasets.values()) {
+      if (dataset.table == table) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns an estimate of the heap used by the registered tables and their indexes, in bytes.
+   *
+   * @return The approximate number of bytes retained by the registry.
+   */
+  public synchronized long memoryBytes() {
+    long bytes = 0;
+    for (Dataset dataset : datasets.values()) {
+      bytes += dataset.memoryBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the number of datasets evicted to stay under the memory budget.
+   *
+   * @return The number of evictions.
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /**
+   * Evicts unleased datasets, least recently used first, until the registry is under its budget.
+   * The most recently loaded dataset is never evicted. Indexes are built lazily, so sizes are
+   * measured each time rather than when a table is registered.
+   */
+  private void evictOverBudget() {
+    long bytes = memoryBytes();
+    Iterator<Dataset> iterator = datasets.values().iterator();
+    while (bytes > memoryBudgetBytes && iterator.hasNext()) {
+      Dataset dataset = iterator.next();
+      if (dataset.leases == 0 && dataset != latest) {
+        bytes -= dataset.memoryBytes();
+        iterator.remove();
+        evictions++;
+      }
+    }
+  }
+
+  /**
+   * Closes a lease, and evicts datasets if the registry went over budget while they were leased.
+   *
+   * @param dataset The leased dataset.
+   */
+  private synchronized void release(Dataset dataset) {
+    dataset.leases--;
+    if (dataset.leases == 0) {
+      evictOverBudget();
+    }
+  }
+
+  /** A table registered under a name, and the version tag it was given when it was loaded. */
+  public static final class Dataset {
+    private final String name;
+    private final ColumnarTable table;
+    private final String version;
+    private int leases;
+
+    private Dataset(String name, ColumnarTable table, String version) {
+      this.name = name;
+      this.table = table;
+      this.version = version;
+    }
+
+    /**
+     * Returns the name of the dataset.
+     *
+     * @return The name.
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Returns the table.
+     *
+     * @return The table.
+     */
+    public ColumnarTable table() {
+      return table;
+    }
+
+    /**
+     * Returns a tag that is different every time a table is loaded, even from the same file.
+     *
+     * @return The version tag.
+     */
+    public String version() {
+      return version;
+    }
+
+    /**
+     * Returns an estimate of the heap used by the table and the indexes built on it so far.
+     *
+     * @return The approximate number of bytes retained by the dataset.
+     */
+    private long memoryBytes() {
+      return table.memoryBytes() + table.indexMemoryBytes();
+    }
+  }
+
+  /** A lease on a dataset, which keeps it registered until the lease is closed. */
+  public final class Lease implements AutoCloseable {
+    private final Dataset dataset;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Lease(Dataset dataset) {
+      this.dataset = dataset;
+    }
+
+    /**
+     * Returns the leased dataset.
+     *
+     * @return The dataset.
+     */
+    public Dataset dataset() {
+      return dataset;
+    }
+
+    /** Closes the lease. Closing it again has no effect. */
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(dataset);
+      }
+    }
+  }
+}
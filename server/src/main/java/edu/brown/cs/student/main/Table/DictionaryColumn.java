@@ -0,0 +1,97 @@
+package edu.brown.cs.student.main.Table;
+
+/**
+ * A column with few distinct values. Each distinct value is stored once, and every cell is a one or
+ * two byte code pointing into that dictionary.
+ */
+public class DictionaryColumn implements Column {
+  private final String[] dictionary;
+  /** Codes for dictionaries of at most 256 entries; null otherwise. */
+  private final byte[] byteCodes;
+  /** Codes for dictionaries of at most 65536 entries; null otherwise. */
+  private final char[] charCodes;
+
+  private final int size;
+
+  /**
+   * Constructs a new DictionaryColumn.
+   *
+   * @param dictionary The distinct values of the column, indexed by code.
+   * @param codes The code of each cell; only the first size entries are used.
+   * @param size The number of cells.
+   * @throws IllegalArgumentException if the dictionary has more than 65536 entries.
+   */
+  public DictionaryColumn(String[] dictionary, int[] codes, int size) {
+    if (dictionary.length > 1 << 16) {
+      throw new IllegalArgumentException("Dictionary too large: " + dictionary.length);
+    }
+    this.dictionary = dictionary;
+    this.size = size;
+    if (dictionary.length <= 1 << 8) {
+      this.byteCodes = new byte[size];
+      this.charCodes = null;
+      for (int i = 0; i < size; i++) {
+        byteCodes[i] = (byte) codes[i];
+      }
+    } else {
+      this.byteCodes = null;
+      this.charCodes = new char[size];
+      for (int i = 0; i < size; i++) {
+        charCodes[i] = (char) codes[i];
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String get(int row) {
+    return dictionary[code(row)];
+  }
+
+  /**
+   * Returns the dictionary code of the given row.
+   *
+   * @param row The row index.
+   * @return The index of the row's value in the dictionary.
+   */
+  public int code(int row) {
+    return byteCodes != null ? byteCodes[row] & 0xFF : charCodes[row];
+  }
+
+  /**
+   * Returns the number of distinct values in this column.
+   *
+   * @return The dictionary size.
+   */
+  public int dictionarySize() {
+    return dictionary.length;
+  }
+
+  /**
+   * Returns the value with the given code.
+   *
+   * @param code The dictionary code.
+   * @return The distinct value with that code.
+   */
+  public String dictionaryValue(int code) {
+    return dictionary[code];
+  }
+
+  @Override
+  public long memoryBytes() {
+    long bytes = 16L + 4L * dictionary.length + (byteCodes != null ? size : 2L * size);
+    for (String value : dictionary) {
+      bytes += stringBytes(value);
+    }
+    return bytes;
+  }
+
+  /** Approximate retained size of a String: object header, fields and a compact byte array. */
+  static long stringBytes(String value) {
+    return 40L + value.length();
+  }
+}
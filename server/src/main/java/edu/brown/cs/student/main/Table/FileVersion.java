@@ -0,0 +1,44 @@
+package edu.brown.cs.student.main.Table;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A file as it was at one moment: its canonical path, size and last-modified time. Two versions are
+ * equal only if none of these changed, so a table parsed from one version can be reused for as long
+ * as the file still has that version.
+ *
+ * @param path The file's canonical path.
+ * @param size The file's size, in bytes.
+ * @param lastModified The file's last-modified time, in nanoseconds since the epoch.
+ */
+public record FileVersion(Path path, long size, long lastModified) {
+
+  /**
+   * Reads the current version of a file. Symbolic links and relative paths are resolved, so every
+   * name for one file gives the same version.
+   *
+   * @param file The file.
+   * @return The file's current version.
+   * @throws FileNotFoundException if there is no such file, or it is a directory.
+   * @throws IOException if the file's attributes cannot be read.
+   */
+  public static FileVersion of(Path file) throws IOException {
+    try {
+      Path canonical = file.toRealPath();
+      BasicFileAttributes attributes = Files.readAttributes(canonical, BasicFileAttributes.class);
+      if (!attributes.isRegularFile()) {
+        throw new FileNotFoundException(file + " (No such file or directory)");
+      }
+      return new FileVersion(
+          canonical, attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+    } catch (NoSuchFileException e) {
+      throw new FileNotFoundException(file + " (No such file or directory)");
+    }
+  }
+}
@@ -0,0 +1,298 @@
+package edu.brown.cs.student.main.Table;
+
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.CacheStats;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A cache of parsed CSV files, so a file that has not changed is not parsed again. Tables are kept
+ * under the {@link FileVersion} they were parsed from, and a lookup only hits if the file still has
+ * exactly that version; a lookup for a newer version drops the old table.
+ *
+ * <p>The cache keeps the estimated heap use of its tables under a memory budget, evicting the least
+ * recently used tables first. The table just added is never evicted to make room for itself. Given
+ * a {@link DatasetRegistry} that it shares tables with, the cache leaves the tables registered
+ * there to the registry's budget: they are neither counted against its own budget nor evicted to
+ * meet it, since evicting them would free nothing. Which tables are registered is checked each time
+ * a table is added, so a table the registry has since dropped is counted from then on. Once {@link
+ * #watch()} has been called, a background thread also watches the directories of cached files and
+ * drops a file's table as soon as the file is changed or deleted, rather than when it is next
+ * looked up.
+ */
+public class ParsedFileCache implements Cache<FileVersion, ColumnarTable>, Closeable {
+  private final long memoryBudgetBytes;
+  private final DatasetRegistry shared;
+
+  /** Tables by canonical path, in access order, so the first entry is the least recently used. */
+  private final LinkedHashMap<Path, Entry> entries;
+
+  private final CacheStats stats;
+  private final Set<Path> watchedDirectories;
+  private long bytes;
+  private WatchService watcher;
+
+  /**
+   * Constructs a new ParsedFileCache.
+   *
+   * @param memoryBudgetBytes The estimated heap, in bytes, that the cached tables may use.
+   */
+  public ParsedFileCache(long memoryBudgetBytes) {
+    this(memoryBudgetBytes, null);
+  }
+
+  /**
+   * Constructs a new ParsedFileCache that shares its tables with a dataset registry.
+   *
+   * @param memoryBudgetBytes The estimated heap, in bytes, that the cached tables not registered in
+   *     the registry may use.
+   * @param shared The registry that accounts for the tables registered in it, or null to count
+   *     every cached table.
+   */
+  public ParsedFileCache(long memoryBudgetBytes, DatasetRegistry shared) {
+    if (memoryBudgetBytes <= 0) {
+      throw new IllegalArgumentException("Memory budget must be positive");
+    }
+    this.memoryBudgetBytes = memoryBudgetBytes;
+    this.shared = shared;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.stats = new CacheStats();
+    this.watchedDirectories = new HashSet<>();
+  }
+
+  /**
+   * Caches the table parsed from a version of a file, replacing any table cached for the file, and
+   * evicts the least recently used tables not held by the shared registry if the cache is now over
+   * its budget.
+   *
+   * @param version The version of the file the table was parsed from, read before parsing began.
+   * @param table The parsed table.
+   */
+  @Override
+  public synchronized void set(FileVersion version, ColumnarTable table) {
+    Entry entry = new Entry(version, table, table.memoryBytes());
+    Entry replaced = entries.put(version.path(), entry);
+    if (replaced != null) {
+      bytes -= replaced.bytes;
+    }
+    bytes += entry.bytes;
+    long charged = chargedBytes();
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (charged > memoryBudgetBytes && iterator.hasNext()) {
+      Entry eldest = iterator.next();
+      if (eldest != entry && !isShared(eldest)) {
+        iterator.remove();
+        bytes -= eldest.bytes;
+        charged -= eldest.bytes;
+        stats.recordEviction();
+      }
+    }
+    watchDirectory(version.path().getParent());
+  }
+
+  /**
+   * Returns the table parsed from a version of a file, if that version is cached.
+   *
+   * @param version The current version of the file.
+   * @return The table, or empty if the file has not been parsed or has changed since.
+   */
+  @Override
+  public synchronized Optional<ColumnarTable> get(FileVersion version) {
+    Entry entry = entries.get(version.path());
+    if (entry == null) {
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    if (!entry.version.equals(version)) {
+      invalidate(version.path());
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    stats.recordHit();
+    return Optional.of(entry.table);
+  }
+
+  /**
+   * Drops the table cached for a file, if there is one.
+   *
+   * @param path The canonical path of the file.
+   * @return Whether a table was dropped.
+   */
+  public synchronized boolean invalidate(Path path) {
+    Entry removed = entries.remove(path);
+    if (removed == null) {
+      return false;
+    }
+    bytes -= removed.bytes;
+    stats.recordEviction();
+    return true;
+  }
+
+  /**
+   * Returns the number of cached tables.
+   *
+   * @return The number of cached tables.
+   */
+  @Override
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns an estimate of the heap used by the cached tables, in bytes, including tables shared
+   * with the registry. Indexes that readers build on a cached table later are not counted.
+   *
+   * @return The approximate number of bytes retained by the cache.
+   */
+  public synchronized long memoryBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns an estimate of the heap used by the cached tables that count against the budget: those
+   * not registered in the shared registry.
+   *
+   * @return The approximate number of bytes charged to the cache.
+   */
+  public synchronized long chargedBytes() {
+    if (shared == null) {
+      return bytes;
+    }
+    long charged = 0;
+    for (Entry entry : entries.values()) {
+      if (!isShared(entry)) {
+        charged += entry.bytes;
+      }
+    }
+    return charged;
+  }
+
+  /**
+   * Returns the statistics this cache has recorded since it was created. Tables dropped because
+   * their file changed count as evictions.
+   *
+   * @return The cache's statistics.
+   */
+  @Override
+  public CacheStats stats() {
+    return stats;
+  }
+
+  /**
+   * Starts dropping tables as soon as their files change, on a daemon thread. Directories of files
+   * cached from now on, and of those already cached, are watched. Calling this again has no effect.
+   *
+   * @throws IOException if the file system cannot be watched.
+   */
+  public synchronized void watch() throws IOException {
+    if (watcher != null) {
+      return;
+    }
+    watcher = FileSystems.getDefault().newWatchService();
+    for (Path path : entries.keySet()) {
+      watchDirectory(path.getParent());
+    }
+    WatchService service = watcher;
+    Thread thread = new Thread(() -> drainEvents(service), "parsed-file-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stops watching files. Tables stay cached, and are still checked against their version. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (watcher != null) {
+      watcher.close();
+      watcher = null;
+      watchedDirectories.clear();
+    }
+  }
+
+  /**
+   * Registers a directory with the watch service, if files are being watched and it is not already.
+   *
+   * @param directory The directory.
+   */
+  private void watchDirectory(Path directory) {
+    if (watcher == null || directory == null || !watchedDirectories.add(directory)) {
+      return;
+    }
+    try {
+      directory.register(
+          watcher,
+          StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_CREATE);
+    } catch (IOException e) {
+      // Lookups still compare versions, so a directory that cannot be watched is only slower to
+      // give memory back.
+      watchedDirectories.remove(directory);
+    }
+  }
+
+  /**
+   * Drops the tables of files that change, until the watch service is closed.
+   *
+   * @param service The watch service.
+   */
+  private void drainEvents(WatchService service) {
+    try {
+      while (true) {
+        WatchKey key = service.take();
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            invalidateDirectory(directory);
+          } else {
+            invalidate(directory.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          invalidateDirectory(directory);
+          synchronized (this) {
+            watchedDirectories.remove(directory);
+          }
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Watching has stopped.
+    }
+  }
+
+  /**
+   * Drops the tables of every file in a directory, for when the watcher missed events.
+   *
+   * @param directory The directory.
+   */
+  private synchronized void invalidateDirectory(Path directory) {
+    Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, Entry> entry = iterator.next();
+      if (directory.equals(entry.getKey().getParent())) {
+        iterator.remove();
+        bytes -= entry.getValue().bytes;
+        stats.recordEviction();
+      }
+    }
+  }
+
+  private boolean isShared(Entry entry) {
+    return shared != null && shared.holds(entry.table);
+  }
+
+  /** A cached table and the version of the file it was parsed from. */
+  private record Entry(FileVersion version, ColumnarTable table, long bytes) {}
+}
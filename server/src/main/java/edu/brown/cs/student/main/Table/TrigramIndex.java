@@ -0,0 +1,153 @@
+package edu.brown.cs.student.main.Table;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trigram index over one column, used to narrow substring searches. Every run of three
+ * consecutive characters in a cell maps to the rows containing it, so a query can only match rows
+ * that appear in the postings of all of its trigrams. Candidates still have to be verified against
+ * the actual cell, since sharing every trigram does not guarantee a match.
+ *
+ * <p>Characters are case-folded one at a time before indexing. A case-sensitive match always
+ * survives that folding, so the index can narrow any case-sensitive query of three or more
+ * characters; case-insensitive queries are narrowed only when they are pure ASCII, where per
+ * character folding and {@link String#toLowerCase(java.util.Locale)} in the root locale agree.
+ */
+public class TrigramIndex {
+  private final Map<Long, Integer> trigramIds;
+  private final int[][] postings;
+
+  private TrigramIndex(Map<Long, Integer> trigramIds, int[][] postings) {
+    this.trigramIds = trigramIds;
+    this.postings = postings;
+  }
+
+  /**
+   * Builds a trigram index over a column.
+   *
+   * @param column The column to index.
+   * @return The index.
+   */
+  static TrigramIndex build(Column column) {
+    Map<Long, Integer> trigramIds = new HashMap<>();
+    int[][] lists = new int[256][];
+    int[] sizes = new int[256];
+    for (int row = 0; row < column.size(); row++) {
+      String cell = column.get(row);
+      for (int i = 0; i + 3 <= cell.length(); i++) {
+        long trigram = trigram(cell, i);
+        Integer id = trigramIds.putIfAbsent(trigram, trigramIds.size());
+        if (id == null) {
+          id = trigramIds.size() - 1;
+          if (id == lists.length) {
+            lists = Arrays.copyOf(lists, lists.length * 2);
+            sizes = Arrays.copyOf(sizes, sizes.length * 2);
+          }
+          lists[id] = new int[4];
+        }
+        int size = sizes[id];
+        // Rows arrive in order, so a repeated trigram within one cell is always the last entry.
+        if (size > 0 && lists[id][size - 1] == row) {
+          continue;
+        }
+        if (size == lists[id].length) {
+          lists[id] = Arrays.copyOf(lists[id], size * 2);
+        }
+        lists[id][size] = row;
+        sizes[id] = size + 1;
+      }
+    }
+    int[][] postings = new int[trigramIds.size()][];
+    for (int id = 0; id < postings.length; id++) {
+      postings[id] = Arrays.copyOf(lists[id], sizes[id]);
+    }
+    return new TrigramIndex(trigramIds, postings);
+  }
+
+  /**
+   * Returns the rows that might contain the query, or null if the index can't narrow this query (it
+   * is shorter than three characters, or case-insensitive and not ASCII). Every row that actually
+   * contains the query is included.
+   *
+   * @param query The substring being searched for.
+   * @param caseSensitive Whether the search is case-sensitive.
+   * @return The candidate rows in ascending order, or null to fall back to a full scan.
+   */
+  public int[] candidates(String query, boolean caseSensitive) {
+    if (query.length() < 3 || (!caseSensitive && !isAscii(query))) {
+      return null;
+    }
+    int[][] lists = new int[query.length() - 2][];
+    for (int i = 0; i + 3 <= query.length(); i++) {
+      Integer id = trigramIds.get(trigram(query, i));
+      if (id == null) {
+        return new int[0];
+      }
+      lists[i] = postings[id];
+    }
+    // Intersect starting from the shortest list so the working set only shrinks.
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+    int[] result = lists[0];
+    for (int i = 1; i < lists.length && result.length > 0; i++) {
+      if (lists[i] != lists[i - 1]) {
+        result = intersect(result, lists[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns an estimate of the heap used by this index, in bytes.
+   *
+   * @return The approximate number of bytes retained by the index.
+   */
+  public long memoryBytes() {
+    // Each HashMap entry with its boxed Long key and Integer value costs roughly 80 bytes.
+    long bytes = 64 + 80L * trigramIds.size() + 16 + 4L * postings.length;
+    for (int[] rows : postings) {
+      bytes += 16 + 4L * rows.length;
+    }
+    return bytes;
+  }
+
+  /** Packs three case-folded characters into one key. */
+  private static long trigram(String text, int start) {
+    return ((long) fold(text.charAt(start)) << 32)
+        | ((long) fold(text.charAt(start + 1)) << 16)
+        | fold(text.charAt(start + 2));
+  }
+
+  private static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  private static boolean isAscii(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[k++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, k);
+  }
+}
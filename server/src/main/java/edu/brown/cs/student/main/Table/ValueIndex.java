@@ -0,0 +1,163 @@
+package edu.brown.cs.student.main.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An inverted index over one column: each distinct cell value maps to the ascending list of rows
+ * that hold it. Exact-match lookups cost one hash probe plus the number of matches. Indexes are
+ * built on demand by {@link ColumnarTable#valueIndex(int, boolean)} and are immutable afterwards.
+ */
+public class ValueIndex {
+  private static final int[] NO_ROWS = new int[0];
+
+  private final Map<String, int[]> postings;
+  private final boolean caseSensitive;
+
+  private ValueIndex(Map<String, int[]> postings, boolean caseSensitive) {
+    this.postings = postings;
+    this.caseSensitive = caseSensitive;
+  }
+
+  /**
+   * Builds an index over a column.
+   *
+   * @param column The column to index.
+   * @param caseSensitive If false, values are lowercased before they are indexed and looked up.
+   * @return The index.
+   */
+  static ValueIndex build(Column column, boolean caseSensitive) {
+    if (column instanceof DictionaryColumn dictionaryColumn) {
+      return buildFromDictionary(dictionaryColumn, caseSensitive);
+    }
+    // One hash probe per row assigns each row a group; a counting sort then fills the postings.
+    int[] groupOf = new int[column.size()];
+    Map<String, Integer> groups = new HashMap<>();
+    List<String> keys = new ArrayList<>();
+    for (int row = 0; row < column.size(); row++) {
+      String key = key(column.get(row), caseSensitive);
+      Integer group = groups.putIfAbsent(key, keys.size());
+      if (group == null) {
+        group = keys.size();
+        keys.add(key);
+      }
+      groupOf[row] = group;
+    }
+    groups = null;
+    int[][] rowsByGroup = groupRows(groupOf, keys.size());
+    Map<String, int[]> postings = new HashMap<>(keys.size() * 4 / 3 + 1);
+    for (int group = 0; group < rowsByGroup.length; group++) {
+      postings.put(keys.get(group), rowsByGroup[group]);
+    }
+    return new ValueIndex(postings, caseSensitive);
+  }
+
+  /** Groups rows by dictionary code with a counting sort, so no hashing happens per row. */
+  private static ValueIndex buildFromDictionary(DictionaryColumn column, boolean caseSensitive) {
+    int[] codes = new int[column.size()];
+    for (int row = 0; row < codes.length; row++) {
+      codes[row] = column.code(row);
+    }
+    int[][] rowsByCode = groupRows(codes, column.dictionarySize());
+    Map<String, int[]> postings = new HashMap<>();
+    for (int code = 0; code < rowsByCode.length; code++) {
+      // Distinct values may collide once lowercased, so their rows are merged.
+      postings.merge(
+          key(column.dictionaryValue(code), caseSensitive), rowsByCode[code], ValueIndex::union);
+    }
+    return new ValueIndex(postings, caseSensitive);
+  }
+
+  /**
+   * Counting sort of row ids by group.
+   *
+   * @param groupOf The group of each row.
+   * @param groupCount The number of distinct groups.
+   * @return For each group, its rows in ascending order.
+   */
+  private static int[][] groupRows(int[] groupOf, int groupCount) {
+    int[] counts = new int[groupCount];
+    for (int group : groupOf) {
+      counts[group]++;
+    }
+    int[][] rowsByGroup = new int[groupCount][];
+    for (int group = 0; group < groupCount; group++) {
+      rowsByGroup[group] = new int[counts[group]];
+    }
+    int[] filled = new int[groupCount];
+    for (int row = 0; row < groupOf.length; row++) {
+      int group = groupOf[row];
+      rowsByGroup[group][filled[group]++] = row;
+    }
+    return rowsByGroup;
+  }
+
+  /**
+   * Returns the rows whose value equals the given value. For a case-insensitive index the value is
+   * compared ignoring case.
+   *
+   * @param value The value to look up.
+   * @return The matching rows in ascending order; must not be modified.
+   */
+  public int[] lookup(String value) {
+    return postings.getOrDefault(key(value, caseSensitive), NO_ROWS);
+  }
+
+  /**
+   * Returns the number of distinct keys in the index.
+   *
+   * @return The number of distinct keys.
+   */
+  public int distinctValues() {
+    return postings.size();
+  }
+
+  /**
+   * Returns an estimate of the heap used by this index, in bytes.
+   *
+   * @return The approximate number of bytes retained by the index.
+   */
+  public long memoryBytes() {
+    // Each HashMap entry costs roughly 48 bytes including its table slot, plus key and array.
+    long bytes = 64;
+    for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+      bytes +=
+          48 + DictionaryColumn.stringBytes(entry.getKey()) + 16 + 4L * entry.getValue().length;
+    }
+    return bytes;
+  }
+
+  private static String key(String value, boolean caseSensitive) {
+    return caseSensitive ? value : value.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Merges two ascending row lists into one ascending list without duplicates.
+   *
+   * @param a The first list of rows.
+   * @param b The second list of rows.
+   * @return The sorted union of both lists.
+   */
+  public static int[] union(int[] a, int[] b) {
+    int[] merged = new int[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < a.length || j < b.length) {
+      int next;
+      if (j == b.length || (i < a.length && a[i] <= b[j])) {
+        next = a[i++];
+      } else {
+        next = b[j++];
+      }
+      if (k == 0 || merged[k - 1] != next) {
+        merged[k++] = next;
+      }
+    }
+    return k == merged.length ? merged : Arrays.copyOf(merged, k);
+  }
+}
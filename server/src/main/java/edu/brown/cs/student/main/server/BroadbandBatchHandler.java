@@ -0,0 +1,111 @@
+package edu.brown.cs.student.main.server;
+
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
+import edu.brown.cs.student.main.ACSApi.datasource.UpstreamUnavailableException;
+import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * This class handles batch broadband requests in a Spark server application. It takes a list of
+ * state/county pairs, groups them by state, and asks the datasource for each state's counties at
+ * once, so a chart of many counties costs one round trip and one upstream request per state.
+ */
+public class BroadbandBatchHandler implements Route {
+  private final CensusDatasource datasource;
+
+  /**
+   * Constructs a new BroadbandBatchHandler with the given datasource.
+   *
+   * @param datasource A Census data source
+   */
+  public BroadbandBatchHandler(CensusDatasource datasource) {
+    this.datasource = datasource;
+  }
+
+  /**
+   * Handles the batch broadband request. The locations parameter is a comma-separated list of
+   * state:county pairs, such as "Michigan:Kent,California:Orange". The response lists the data
+   * found in the order requested, and the pairs that were not found.
+   *
+   * @param request The Spark Request object containing the HTTP request information
+   * @param response The Spark Response object for setting response properties
+   * @return A JSON string containing the result of the operation
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+    try {
+      String locations = HandlerUtilities.getRequiredParam(request, "locations");
+      Map<String, List<String>> countiesByState = parseLocations(locations);
+      Map<String, Map<String, BroadbandData>> resultsByState = new HashMap<>();
+      for (Map.Entry<String, List<String>> entry : countiesByState.entrySet()) {
+        resultsByState.put(
+            entry.getKey(), datasource.getBroadbandData(entry.getKey(), entry.getValue()));
+      }
+      List<BroadbandData> data = new ArrayList<>();
+      List<Map<String, String>> notFound = new ArrayList<>();
+      for (Map.Entry<String, List<String>> entry : countiesByState.entrySet()) {
+        Map<String, BroadbandData> results = resultsByState.get(entry.getKey());
+        for (String county : entry.getValue()) {
+          BroadbandData found = results.get(county);
+          if (found != null) {
+            data.add(found);
+          } else {
+            notFound.add(Map.of("state", entry.getKey(), "county", county));
+          }
+        }
+      }
+      responseMap.put("result", "success");
+      responseMap.put("data", data);
+      responseMap.put("notFound", notFound);
+    } catch (IllegalStateException | IllegalArgumentException e) {
+      response.status(400); // Bad Request
+      responseMap.put("result", "error_bad_request");
+      responseMap.put("message", e.getMessage());
+    } catch (UpstreamUnavailableException e) {
+      response.status(503); // Service Unavailable
+      responseMap.put("result", "error_datasource");
+      responseMap.put("message", e.getMessage());
+    } catch (Exception e) {
+      response.status(500); // Internal Server Error
+      responseMap.put("result", "error");
+      responseMap.put("message", "Unexpected error: " + e.getMessage());
+    }
+    return JsonSerializer.toJson(responseMap);
+  }
+
+  /**
+   * Splits a list of state:county pairs into the distinct counties of each state, keeping the order
+   * in which states and counties first appear.
+   *
+   * @param locations The comma-separated state:county pairs.
+   * @return The counties requested in each state.
+   * @throws IllegalArgumentException If a pair is not of the form state:county.
+   */
+  static Map<String, List<String>> parseLocations(String locations) {
+    Map<String, List<String>> countiesByState = new LinkedHashMap<>();
+    for (String location : locations.split(",")) {
+      int colon = location.indexOf(':');
+      String state = colon < 0 ? "" : location.substring(0, colon).trim();
+      String county = colon < 0 ? "" : location.substring(colon + 1).trim();
+      if (state.isEmpty() || county.isEmpty()) {
+        throw new IllegalArgumentException(
+            "location '" + location.trim() + "' is not of the form state:county");
+      }
+      List<String> counties = countiesByState.computeIfAbsent(state, s -> new ArrayList<>());
+      if (!counties.contains(county)) {
+        counties.add(county);
+      }
+    }
+    return countiesByState;
+  }
+}
@@ -2,6 +2,7 @@ package edu.brown.cs.student.main.server;
 
 import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
 import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
+import edu.brown.cs.student.main.ACSApi.datasource.UpstreamUnavailableException;
 import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
 import java.util.HashMap;
 import java.util.Map;
@@ -44,6 +45,10 @@ public class BroadbandHandler implements Route {
       response.status(400); // Bad Request
       responseMap.put("result", "error_bad_request");
       responseMap.put("message", e.getMessage());
+    } catch (UpstreamUnavailableException e) {
+      response.status(503); // Service Unavailable
+      responseMap.put("result", "error_datasource");
+      responseMap.put("message", e.getMessage());
     } catch (Exception e) {
       response.status(500); // Internal Server Error
       responseMap.put("result", "error");
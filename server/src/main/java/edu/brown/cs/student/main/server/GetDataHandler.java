@@ -1,33 +1,67 @@
 package edu.brown.cs.student.main.server;
 
 import Parser.Parser;
+import Parser.StateMachineTokenizer;
 import Parser.TrivialCreator;
 import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.FileVersion;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
 /**
  * This class handles file loading requests in a Spark server application. It parses a file
- * specified by the client and returns.
+ * specified by the client and streams its rows back, as JSON, or as newline-delimited JSON with
+ * format=ndjson.
+ *
+ * <p>Given a parsed-file cache, a file is parsed into a table once and its rows are served from the
+ * table for as long as the file's size and last-modified time stay the same, so charts that ask for
+ * the same file again and again do not parse it each time. Without one, rows are streamed as they
+ * are parsed. Either way, rows whose width differs from the first row's are left out.
+ *
+ * <p>With format=csv, the file is not parsed at all: its bytes are sent as they are, and Range
+ * requests are supported (see {@link RawFileWriter}). Raw files must lie inside the data directory
+ * once symbolic links and {@code ..} segments are resolved.
  */
 public class GetDataHandler implements Route {
+  private static final String DATA_DIRECTORY = "data";
 
-  /** Constructs a new GetDataHandler with the given shared state. */
-  public GetDataHandler() {}
+  private final ParsedFileCache cache;
+
+  /** Constructs a new GetDataHandler that parses the file on every request. */
+  public GetDataHandler() {
+    this(null);
+  }
+
+  /**
+   * Constructs a new GetDataHandler that reuses parsed files.
+   *
+   * @param cache The cache of parsed files, or null to parse the file on every request
+   */
+  public GetDataHandler(ParsedFileCache cache) {
+    this.cache = cache;
+  }
 
   /**
    * Handles the file loading request.
    *
    * @param request The Spark Request object containing the HTTP request information
    * @param response The Spark Response object for setting response properties
-   * @return A JSON string containing the result of the operation
+   * @return A JSON string containing the error, or an empty string once the rows have been streamed
    */
   @Override
   public Object handle(Request request, Response response) {
@@ -36,9 +70,42 @@ public class GetDataHandler implements Route {
 
     try {
       String filepath = validateAndGetFilepath(request);
-      List<List<String>> content = parseFile(filepath);
-      responseMap.put("result", "success");
-      responseMap.put("content", content);
+      if (RawFileWriter.wantsCsv(request)) {
+        Path file = resolveInsideDataDirectory(filepath);
+        try {
+          RawFileWriter.write(request, response, file);
+        } catch (IOException e) {
+          if (response.raw().isCommitted()) {
+            // The status has been sent, so cutting the body short is all that is left to do.
+            return "";
+          }
+          throw e;
+        }
+        return "";
+      }
+      if (cache != null) {
+        RowStreamWriter.write(
+            request, response, "content", loadTable(filepath).asRows().iterator());
+        return "";
+      }
+      try (FileReader reader = new FileReader(filepath, StandardCharsets.UTF_8)) {
+        Parser<List<String>> parser =
+            new Parser<List<String>>(
+                new StateMachineTokenizer(reader), false, new TrivialCreator());
+        Iterator<List<String>> rows = parser.iterator();
+        try {
+          // Read the first row before anything is sent, so an unreadable file is still an error.
+          rows.hasNext();
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        try {
+          RowStreamWriter.write(request, response, "content", rows);
+        } catch (IOException | UncheckedIOException e) {
+          // The status has been sent, so cutting the body short is all that is left to do.
+        }
+      }
+      return "";
     } catch (IllegalArgumentException e) {
       response.status(400); // Bad Request
       responseMap.put("result", "error_bad_json");
@@ -60,6 +127,50 @@ public class GetDataHandler implements Route {
     return JsonSerializer.toJson(responseMap);
   }
 
+  /**
+   * Takes the file's table from the cache if the file has not changed since it was parsed, and
+   * otherwise parses it and caches the result.
+   *
+   * @param filepath The path to the file
+   * @return The file's table
+   * @throws FileNotFoundException if the file is not found
+   * @throws IOException if there's an error reading the file
+   */
+  private ColumnarTable loadTable(String filepath) throws IOException {
+    FileVersion version = FileVersion.of(Path.of(filepath));
+    Optional<ColumnarTable> cached = cache.get(version);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    ColumnarTable table;
+    try (FileReader reader = new FileReader(filepath, StandardCharsets.UTF_8)) {
+      table =
+          ColumnarTableBuilder.fromParser(
+              new Parser<List<String>>(
+                  new StateMachineTokenizer(reader), false, new TrivialCreator()));
+    }
+    cache.set(version, table);
+    return table;
+  }
+
+  /**
+   * Resolves a file path, refusing any that leads outside the data directory.
+   *
+   * @param filepath The path to the file, starting with the data directory
+   * @return The file's real path
+   * @throws IllegalArgumentException if the file is outside the data directory
+   * @throws FileNotFoundException if the file is not found
+   * @throws IOException if the path cannot be resolved
+   */
+  private static Path resolveInsideDataDirectory(String filepath) throws IOException {
+    Path dataDirectory = Path.of(DATA_DIRECTORY).toRealPath();
+    Path file = FileVersion.of(Path.of(filepath)).path();
+    if (!file.startsWith(dataDirectory)) {
+      throw new IllegalArgumentException("Filepath must be inside the data directory");
+    }
+    return file;
+  }
+
   /**
    * Validates and retrieves the filepath from the request parameters.
    *
@@ -72,22 +183,6 @@ public class GetDataHandler implements Route {
     if (filepath == null || filepath.trim().isEmpty()) {
       throw new IllegalArgumentException("Filepath parameter is missing or empty");
     }
-    return "data/" + filepath.trim();
-  }
-
-  /**
-   * Parses the file at the given filepath.
-   *
-   * @param filepath The path to the file to be parsed
-   * @return A Parser object containing the parsed data
-   * @throws FileNotFoundException if the file is not found
-   * @throws IOException if there's an error reading the file
-   */
-  private List<List<String>> parseFile(String filepath) throws IOException {
-    try (FileReader reader = new FileReader(filepath)) {
-      Parser<List<String>> parser = new Parser<List<String>>(reader, false, new TrivialCreator());
-      parser.parse();
-      return parser.getParsedContent();
-    }
+    return DATA_DIRECTORY + "/" + filepath.trim();
   }
 }
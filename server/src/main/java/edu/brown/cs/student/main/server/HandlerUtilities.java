@@ -1,5 +1,8 @@
 package edu.brown.cs.student.main.server;
 
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import spark.Request;
 
 /** Utility functions shared across handlers */
@@ -37,4 +40,71 @@ public class HandlerUtilities {
     }
     return value.trim().toLowerCase().equals("true");
   }
+
+  /**
+   * Retrieves a non-negative integer parameter from the request.
+   *
+   * @param request The Spark Request object
+   * @param paramName The name of the parameter
+   * @param defaultValue The default value if the parameter is not specified
+   * @return The integer value of the parameter
+   * @throws IllegalArgumentException if the parameter is not a non-negative integer
+   */
+  public static int getNonNegativeIntParam(Request request, String paramName, int defaultValue)
+      throws IllegalArgumentException {
+    String value = request.queryParams(paramName);
+    if (value == null || value.trim().isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      int parsed = Integer.parseInt(value.trim());
+      if (parsed >= 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new IllegalArgumentException(paramName + " parameter must be a non-negative integer");
+  }
+
+  /**
+   * Leases the dataset named by the request's dataset parameter, or the most recently loaded one if
+   * the parameter is not given. A dataset that is being loaded in the background, or without a name
+   * the load started last, is waited for if the request passes wait=true; otherwise the request
+   * gets the version loaded before, or an error if there is none yet.
+   *
+   * @param datasets The registry of loaded datasets
+   * @param request The Spark Request object
+   * @param action What the dataset is needed for, such as "viewing", for the error message
+   * @return A lease on the dataset, which must be closed once the request is done with it
+   * @throws IllegalStateException if no such dataset is loaded
+   */
+  public static DatasetRegistry.Lease acquireDataset(
+      DatasetRegistry datasets, Request request, String action) throws IllegalStateException {
+    String param = request.queryParams("dataset");
+    // Without a name, the dataset is the one loaded last, so the load to wait for is the one
+    // started last.
+    String name = param == null || param.trim().isEmpty() ? null : param.trim();
+    Optional<CompletableFuture<DatasetRegistry.Dataset>> loading = datasets.loading(name);
+    if (loading.isPresent() && getBooleanParam(request, "wait", false)) {
+      // A failed load leaves whatever was registered before, which the lookup below reports.
+      loading.get().handle((dataset, error) -> dataset).join();
+    }
+    return datasets
+        .acquire(name)
+        .orElseThrow(
+            () -> {
+              boolean stillLoading = datasets.loading(name).isPresent();
+              if (name == null) {
+                return new IllegalStateException(
+                    stillLoading
+                        ? "CSV is still loading; check /loadstatus or wait=true before " + action
+                        : "Must load CSV first before " + action + " using /loadcsv");
+              }
+              return new IllegalStateException(
+                  stillLoading
+                      ? "Dataset " + name + " is still loading; check /loadstatus or wait=true"
+                      : "Dataset " + name + " is not loaded; load it using /loadcsv");
+            });
+  }
 }
@@ -1,33 +1,48 @@
 package edu.brown.cs.student.main.server;
 
-import Parser.Parser;
-import Parser.TrivialCreator;
+import static edu.brown.cs.student.main.server.HandlerUtilities.getBooleanParam;
+
 import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
 /**
- * This class handles file loading requests in a Spark server application. It parses a file
- * specified by the client and stores the resulting parser in shared state.
+ * This class handles file loading requests in a Spark server application. It starts parsing a file
+ * specified by the client in the background, and registers the resulting columnar table as a
+ * dataset, named by the {@code dataset} parameter or, without one, by the file path. Loading under
+ * a name that is already registered replaces that dataset once the new table is ready; until then,
+ * and for every other dataset, requests keep seeing what was loaded before.
+ *
+ * <p>The response comes back straight away with 202 Accepted and the load's job id, whose progress
+ * /loadstatus reports. Passing {@code wait=true} instead waits for the load to finish and responds
+ * with the size of the loaded table, as loads used to.
+ *
+ * <p>Passing {@code substringIndex=true} also builds trigram indexes for the loaded file, which
+ * speeds up {@code substringMatch} searches at the cost of extra memory; the finished load reports
+ * the size of the table and of its indexes so operators can judge the trade-off. Passing {@code
+ * parallel=true} tokenizes the file in chunks across the common fork-join pool, which pays off for
+ * files of many megabytes on multi-core machines.
+ *
+ * <p>Every load gets a fresh version tag, which /viewcsv sends as its ETag so clients can tell
+ * whether the rows they hold are still current.
  */
 public class LoadHandler implements Route {
-  private final ConcurrentHashMap<String, Object> state;
+  private final LoadJobs jobs;
 
   /**
-   * Constructs a new LoadHandler with the given shared state.
+   * Constructs a new LoadHandler that runs loads as the given jobs.
    *
-   * @param state A ConcurrentHashMap representing the shared state of the application
+   * @param jobs The background loads, which register tables with the shared dataset registry
    */
-  public LoadHandler(ConcurrentHashMap<String, Object> state) {
-    this.state = state;
+  public LoadHandler(LoadJobs jobs) {
+    this.jobs = jobs;
   }
 
   /**
@@ -44,10 +59,33 @@ public class LoadHandler implements Route {
 
     try {
       String filepath = validateAndGetFilepath(request);
-      Parser<List<String>> parser = parseFile(filepath);
-      state.put("parser", parser);
+      String name = request.queryParams("dataset");
+      if (name == null || name.trim().isEmpty()) {
+        name = filepath.substring("data/".length());
+      }
+      LoadJob job =
+          jobs.submit(
+              name.trim(),
+              filepath,
+              getBooleanParam(request, "parallel", false),
+              getBooleanParam(request, "substringIndex", false));
+      if (!getBooleanParam(request, "wait", false)) {
+        response.status(202); // Accepted
+        responseMap.put("result", "success");
+        responseMap.putAll(LoadStatusHandler.describe(job));
+        return JsonSerializer.toJson(responseMap);
+      }
+
+      DatasetRegistry.Dataset dataset = job.await();
+      ColumnarTable table = dataset.table();
       responseMap.put("result", "success");
+      responseMap.put("jobId", job.id());
       responseMap.put("filepath", filepath);
+      responseMap.put("dataset", dataset.name());
+      responseMap.put("version", dataset.version());
+      responseMap.put("rows", table.rowCount());
+      responseMap.put("tableBytes", table.memoryBytes());
+      responseMap.put("indexBytes", table.indexMemoryBytes());
     } catch (IllegalArgumentException e) {
       response.status(400); // Bad Request
       responseMap.put("result", "error_bad_json");
@@ -83,20 +121,4 @@ public class LoadHandler implements Route {
     }
     return "data/" + filepath.trim();
   }
-
-  /**
-   * Parses the file at the given filepath.
-   *
-   * @param filepath The path to the file to be parsed
-   * @return A Parser object containing the parsed data
-   * @throws FileNotFoundException if the file is not found
-   * @throws IOException if there's an error reading the file
-   */
-  private Parser<List<String>> parseFile(String filepath) throws IOException {
-    try (FileReader reader = new FileReader(filepath)) {
-      Parser<List<String>> parser = new Parser<List<String>>(reader, false, new TrivialCreator());
-      parser.parse();
-      return parser;
-    }
-  }
 }
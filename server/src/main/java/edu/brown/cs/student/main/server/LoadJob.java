@@ -0,0 +1,296 @@
+package edu.brown.cs.student.main.server;
+
+import Parser.CSVTokenizer;
+import Parser.ParallelCSVTokenizer;
+import Parser.Parser;
+import Parser.StateMachineTokenizer;
+import Parser.TrivialCreator;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.Table.FileVersion;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A CSV file being parsed into a dataset in the background. The job counts the bytes read and the
+ * rows parsed as it goes, so its progress can be reported while it runs, and completes {@link
+ * #result()} once the table is registered. A file that is unchanged since it was last parsed is
+ * taken from the parsed-file cache instead.
+ */
+public class LoadJob {
+  /** The stages a job goes through. */
+  public enum Status {
+    RUNNING,
+    DONE,
+    FAILED
+  }
+
+  private final String id;
+  private final String dataset;
+  private final String filepath;
+  private final boolean parallel;
+  private final boolean substringIndex;
+  private final long totalBytes;
+  private final ParsedFileCache cache;
+  private final AtomicLong rows;
+  private final CompletableFuture<DatasetRegistry.Dataset> result;
+  private volatile LongSupplier bytesRead;
+
+  /**
+   * Constructs a new LoadJob. It does nothing until it is run.
+   *
+   * @param id The job's id
+   * @param dataset The name to register the table under
+   * @param filepath The path to the file to be parsed
+   * @param parallel Whether to tokenize the file in parallel chunks
+   * @param substringIndex Whether to build trigram indexes once the file is parsed
+   * @param totalBytes The size of the file
+   * @param cache The cache of parsed files, or null to always parse the file
+   */
+  LoadJob(
+      String id,
+      String dataset,
+      String filepath,
+      boolean parallel,
+      boolean substringIndex,
+      long totalBytes,
+      ParsedFileCache cache) {
+    this.id = id;
+    this.dataset = dataset;
+    this.filepath = filepath;
+    this.parallel = parallel;
+    this.substringIndex = substringIndex;
+    this.totalBytes = totalBytes;
+    this.cache = cache;
+    this.rows = new AtomicLong();
+    this.result = new CompletableFuture<>();
+    this.bytesRead = () -> 0;
+  }
+
+  /**
+   * Parses the file and registers the table, completing the job's result either way.
+   *
+   * @param datasets The registry to register the table with
+   */
+  void run(DatasetRegistry datasets) {
+    try {
+      ColumnarTable table = loadTable();
+      if (substringIndex) {
+        table.buildTrigramIndexes();
+      }
+      bytesRead = () -> totalBytes;
+      result.complete(datasets.put(dataset, table));
+    } catch (Throwable e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Takes the file's table from the cache if the file has not changed since it was parsed, and
+   * otherwise parses it and caches the result. The file's version is read before parsing, so a file
+   * that changes while it is being parsed is cached under its old version and parsed again later.
+   *
+   * @return A ColumnarTable containing the file's data
+   * @throws FileNotFoundException if the file is not found
+   * @throws IOException if there's an error reading the file
+   */
+  private ColumnarTable loadTable() throws IOException {
+    if (cache == null) {
+      return parseFile();
+    }
+    FileVersion version = FileVersion.of(Path.of(filepath));
+    Optional<ColumnarTable> cached = cache.get(version);
+    if (cached.isPresent()) {
+      rows.set(cached.get().rowCount());
+      return cached.get();
+    }
+    ColumnarTable table = parseFile();
+    cache.set(version, table);
+    return table;
+  }
+
+  /**
+   * Parses the file. Rows are streamed straight into a columnar table rather than collected as
+   * lists first, and counted as they arrive.
+   *
+   * @return A ColumnarTable containing the parsed data
+   * @throws FileNotFoundException if the file is not found
+   * @throws IOException if there's an error reading the file
+   */
+  private ColumnarTable parseFile() throws IOException {
+    CSVTokenizer tokenizer;
+    if (parallel) {
+      ParallelCSVTokenizer chunked;
+      try {
+        chunked = new ParallelCSVTokenizer(Path.of(filepath), ForkJoinPool.commonPool());
+      } catch (NoSuchFileException e) {
+        throw new FileNotFoundException(filepath + " (No such file or directory)");
+      }
+      bytesRead = chunked::bytesRead;
+      tokenizer = chunked;
+    } else {
+      CountingInputStream input = new CountingInputStream(new FileInputStream(filepath));
+      bytesRead = input.count::get;
+      tokenizer = new StateMachineTokenizer(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+    try (tokenizer) {
+      Parser<List<String>> parser =
+          new Parser<List<String>>(tokenizer, false, new TrivialCreator());
+      ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+      Iterator<List<String>> iterator = parser.iterator();
+      while (iterator.hasNext()) {
+        builder.addRow(iterator.next());
+        rows.incrementAndGet();
+      }
+      return builder.build(parser.getHeader());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Returns the job's id.
+   *
+   * @return The id
+   */
+  public String id() {
+    return id;
+  }
+
+  /**
+   * Returns the name the table is registered under.
+   *
+   * @return The dataset name
+   */
+  public String dataset() {
+    return dataset;
+  }
+
+  /**
+   * Returns the path to the file being parsed.
+   *
+   * @return The file path
+   */
+  public String filepath() {
+    return filepath;
+  }
+
+  /**
+   * Returns what stage the job is in.
+   *
+   * @return The status
+   */
+  public Status status() {
+    if (!result.isDone()) {
+      return Status.RUNNING;
+    }
+    return result.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+  }
+
+  /**
+   * Returns the number of bytes of the file read so far. The read-ahead of the tokenizers means
+   * this can run somewhat ahead of the rows parsed.
+   *
+   * @return The number of bytes read
+   */
+  public long bytesRead() {
+    return bytesRead.getAsLong();
+  }
+
+  /**
+   * Returns the size of the file.
+   *
+   * @return The number of bytes in the file
+   */
+  public long totalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * Returns the number of rows parsed so far.
+   *
+   * @return The number of rows
+   */
+  public long rows() {
+    return rows.get();
+  }
+
+  /**
+   * Returns a future that completes with the registered dataset, or with the error that stopped the
+   * load.
+   *
+   * @return The job's result
+   */
+  public CompletableFuture<DatasetRegistry.Dataset> result() {
+    return result;
+  }
+
+  /**
+   * Waits for the job to finish.
+   *
+   * @return The registered dataset
+   * @throws Exception The error that stopped the load
+   */
+  public DatasetRegistry.Dataset await() throws Exception {
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /** An input stream that counts the bytes read through it. */
+  private static class CountingInputStream extends FilterInputStream {
+    final AtomicLong count = new AtomicLong();
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if (read != -1) {
+        count.incrementAndGet();
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        count.addAndGet(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count.addAndGet(skipped);
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package edu.brown.cs.student.main.server;
+
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs CSV loads in the background, so a request to load a large file can return straight away
+ * instead of holding its connection and a server thread for the whole parse. Jobs are announced to
+ * the dataset registry as they are submitted, and the most recent jobs are kept so their status can
+ * be looked up by id after they finish. Given a parsed-file cache, jobs reuse the table of a file
+ * that has not changed since it was last parsed.
+ */
+public class LoadJobs {
+  /** The default number of jobs whose status is kept. */
+  public static final int DEFAULT_RETAINED_JOBS = 100;
+
+  private final DatasetRegistry datasets;
+  private final Executor executor;
+  private final ParsedFileCache cache;
+  private final Map<String, LoadJob> jobs;
+  private final AtomicLong nextId;
+
+  /**
+   * Constructs a new LoadJobs that keeps the status of the default number of jobs.
+   *
+   * @param datasets The registry that loaded tables are registered with
+   * @param executor The executor that parses files
+   */
+  public LoadJobs(DatasetRegistry datasets, Executor executor) {
+    this(datasets, executor, null, DEFAULT_RETAINED_JOBS);
+  }
+
+  /**
+   * Constructs a new LoadJobs that reuses parsed files and keeps the status of the default number
+   * of jobs.
+   *
+   * @param datasets The registry that loaded tables are registered with
+   * @param executor The executor that parses files
+   * @param cache The cache of parsed files, shared with other handlers that parse files
+   */
+  public LoadJobs(DatasetRegistry datasets, Executor executor, ParsedFileCache cache) {
+    this(datasets, executor, cache, DEFAULT_RETAINED_JOBS);
+  }
+
+  /**
+   * Constructs a new LoadJobs.
+   *
+   * @param datasets The registry that loaded tables are registered with
+   * @param executor The executor that parses files
+   * @param cache The cache of parsed files, or null to always parse files
+   * @param retainedJobs The number of jobs whose status is kept, oldest dropped first
+   */
+  public LoadJobs(
+      DatasetRegistry datasets, Executor executor, ParsedFileCache cache, int retainedJobs) {
+    if (retainedJobs <= 0) {
+      throw new IllegalArgumentException("Number of retained jobs must be positive");
+    }
+    this.datasets = datasets;
+    this.executor = executor;
+    this.cache = cache;
+    this.jobs =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, LoadJob> eldest) {
+            return size() > retainedJobs;
+          }
+        };
+    this.nextId = new AtomicLong();
+  }
+
+  /**
+   * Starts loading a file in the background. The file's existence is checked straight away, so a
+   * bad path is reported to the caller rather than as a failed job.
+   *
+   * @param dataset The name to register the table under
+   * @param filepath The path to the file to be parsed
+   * @param parallel Whether to tokenize the file in parallel chunks
+   * @param substringIndex Whether to build trigram indexes once the file is parsed
+   * @return The job, already queued
+   * @throws FileNotFoundException if the file is not found
+   * @throws IOException if the file's size cannot be read
+   */
+  public LoadJob submit(String dataset, String filepath, boolean parallel, boolean substringIndex)
+      throws IOException {
+    Path path = Path.of(filepath);
+    if (!Files.isRegularFile(path)) {
+      throw new FileNotFoundException(filepath + " (No such file or directory)");
+    }
+    LoadJob job =
+        new LoadJob(
+            Long.toString(nextId.incrementAndGet()),
+            dataset,
+            filepath,
+            parallel,
+            substringIndex,
+            Files.size(path),
+            cache);
+    synchronized (jobs) {
+      jobs.put(job.id(), job);
+    }
+    datasets.expect(dataset, job.result());
+    executor.execute(() -> job.run(datasets));
+    return job;
+  }
+
+  /**
+   * Looks a job up by id.
+   *
+   * @param id The job's id
+   * @return The job, or empty if there is no such job or it is too old to have been kept
+   */
+  public Optional<LoadJob> get(String id) {
+    synchronized (jobs) {
+      return Optional.ofNullable(jobs.get(id));
+    }
+  }
+
+  /**
+   * Returns the registry that loaded tables are registered with.
+   *
+   * @return The dataset registry
+   */
+  public DatasetRegistry datasets() {
+    return datasets;
+  }
+}
@@ -0,0 +1,105 @@
+package edu.brown.cs.student.main.server;
+
+import static edu.brown.cs.student.main.server.HandlerUtilities.getBooleanParam;
+
+import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * This class handles load status requests in a Spark server application. It reports the progress of
+ * the load started by /loadcsv with the given {@code jobId}: the bytes read and rows parsed so far
+ * and, once it has finished, the loaded table's size or the error that stopped it. Passing {@code
+ * wait=true} waits for the load to finish before responding.
+ */
+public class LoadStatusHandler implements Route {
+  private final LoadJobs jobs;
+
+  /**
+   * Constructs a new LoadStatusHandler for the given jobs.
+   *
+   * @param jobs The background loads started by /loadcsv
+   */
+  public LoadStatusHandler(LoadJobs jobs) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * Handles the load status request.
+   *
+   * @param request The Spark Request object containing the HTTP request information
+   * @param response The Spark Response object for setting response properties
+   * @return A JSON string containing the status of the load
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      String jobId = HandlerUtilities.getRequiredParam(request, "jobId");
+      LoadJob job =
+          jobs.get(jobId)
+              .orElseThrow(() -> new NoSuchElementException("No load job with id " + jobId));
+      if (getBooleanParam(request, "wait", false)) {
+        job.result().handle((dataset, error) -> dataset).join();
+      }
+      responseMap.put("result", "success");
+      responseMap.putAll(describe(job));
+    } catch (IllegalArgumentException e) {
+      response.status(400); // Bad Request
+      responseMap.put("result", "error_bad_request");
+      responseMap.put("message", e.getMessage());
+    } catch (NoSuchElementException e) {
+      response.status(404); // Not Found
+      responseMap.put("result", "error_datasource");
+      responseMap.put("message", e.getMessage());
+    } catch (Exception e) {
+      response.status(500); // Internal Server Error
+      responseMap.put("result", "error");
+      responseMap.put("message", "Unexpected error: " + e.getMessage());
+    }
+    return JsonSerializer.toJson(responseMap);
+  }
+
+  /**
+   * Describes a job's progress, and its outcome once it has finished.
+   *
+   * @param job The job
+   * @return The job's id, dataset, file, status and progress, with the table's size if it is done
+   *     or the error message if it failed
+   */
+  static Map<String, Object> describe(LoadJob job) {
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("jobId", job.id());
+    description.put("dataset", job.dataset());
+    description.put("filepath", job.filepath());
+    LoadJob.Status status = job.status();
+    description.put("status", status.name().toLowerCase(Locale.ROOT));
+    description.put("bytesRead", job.bytesRead());
+    description.put("totalBytes", job.totalBytes());
+    description.put("rows", job.rows());
+    if (status == LoadJob.Status.DONE) {
+      DatasetRegistry.Dataset dataset = job.result().join();
+      ColumnarTable table = dataset.table();
+      description.put("version", dataset.version());
+      description.put("tableBytes", table.memoryBytes());
+      description.put("indexBytes", table.indexMemoryBytes());
+    } else if (status == LoadJob.Status.FAILED) {
+      try {
+        job.await();
+      } catch (Exception e) {
+        description.put("message", e.getMessage());
+      }
+    }
+    return description;
+  }
+}
@@ -0,0 +1,118 @@
+package edu.brown.cs.student.main.server;
+
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.CacheStats;
+import edu.brown.cs.student.main.Cache.LatencyHistogram;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * This class handles metrics requests in a Spark server application. It reports the statistics of
+ * the server's caches in the Prometheus text exposition format, one series per cache, labelled with
+ * the cache's name.
+ */
+public class MetricsHandler implements Route {
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private final Map<String, Cache<?, ?>> caches;
+
+  /**
+   * Constructs a new MetricsHandler for the given caches.
+   *
+   * @param caches The caches to report, by name, in the order they should appear.
+   */
+  public MetricsHandler(Map<String, Cache<?, ?>> caches) {
+    this.caches = new LinkedHashMap<>(caches);
+  }
+
+  /**
+   * Handles the metrics request.
+   *
+   * @param request The Spark Request object containing the HTTP request information
+   * @param response The Spark Response object for setting response properties
+   * @return The metrics in Prometheus text format
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    response.type("text/plain; version=0.0.4; charset=utf-8");
+    StringBuilder out = new StringBuilder();
+    gauge(out, "cache_size", "Entries currently held by the cache.", Cache::size);
+    counter(out, "cache_hits_total", "Lookups that found a value.", CacheStats::hitCount);
+    counter(out, "cache_misses_total", "Lookups that found no value.", CacheStats::missCount);
+    counter(out, "cache_evictions_total", "Entries evicted or expired.", CacheStats::evictionCount);
+    counter(
+        out,
+        "cache_load_successes_total",
+        "Values loaded from the source behind the cache.",
+        CacheStats::loadSuccessCount);
+    counter(
+        out,
+        "cache_load_failures_total",
+        "Loads from the source behind the cache that failed.",
+        CacheStats::loadFailureCount);
+    loadDurations(out);
+    return out.toString();
+  }
+
+  private void gauge(
+      StringBuilder out, String name, String help, ToDoubleFunction<Cache<?, ?>> value) {
+    header(out, name, help, "gauge");
+    for (Map.Entry<String, Cache<?, ?>> cache : caches.entrySet()) {
+      sample(out, name, cache.getKey(), null, value.applyAsDouble(cache.getValue()));
+    }
+  }
+
+  private void counter(
+      StringBuilder out, String name, String help, ToDoubleFunction<CacheStats> value) {
+    header(out, name, help, "counter");
+    for (Map.Entry<String, Cache<?, ?>> cache : caches.entrySet()) {
+      sample(out, name, cache.getKey(), null, value.applyAsDouble(cache.getValue().stats()));
+    }
+  }
+
+  private void loadDurations(StringBuilder out) {
+    String name = "cache_load_duration_seconds";
+    header(out, name, "Time taken by loads, successful or not.", "summary");
+    for (Map.Entry<String, Cache<?, ?>> cache : caches.entrySet()) {
+      LatencyHistogram loadTimes = cache.getValue().stats().loadTimes();
+      for (double quantile : QUANTILES) {
+        sample(
+            out,
+            name,
+            cache.getKey(),
+            Double.toString(quantile),
+            loadTimes.valueAtQuantile(quantile) / 1e9);
+      }
+      sample(out, name + "_sum", cache.getKey(), null, loadTimes.sumNanos() / 1e9);
+      sample(out, name + "_count", cache.getKey(), null, loadTimes.count());
+    }
+  }
+
+  private static void header(StringBuilder out, String name, String help, String type) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(
+      StringBuilder out, String name, String cache, String quantile, double value) {
+    out.append(name).append("{cache=\"").append(escape(cache)).append('"');
+    if (quantile != null) {
+      out.append(",quantile=\"").append(quantile).append('"');
+    }
+    out.append("} ");
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+
+  private static String escape(String label) {
+    return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
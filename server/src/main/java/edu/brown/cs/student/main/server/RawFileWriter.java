@@ -0,0 +1,133 @@
+package edu.brown.cs.student.main.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.eclipse.jetty.server.HttpOutput;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Sends a file's bytes to a response exactly as they are on disk, for clients that parse CSV
+ * themselves. Nothing is parsed or encoded and no copy of the file is made on the heap: the file is
+ * memory-mapped a window at a time and each mapped buffer is handed to Jetty, which writes it to
+ * the socket directly. If the response is not backed by Jetty, the file channel transfers its bytes
+ * to the response's stream instead.
+ *
+ * <p>A single byte range in a Range header is honoured with 206 Partial Content, so large exports
+ * can be resumed or fetched in pieces; a range that lies outside the file gets 416 Range Not
+ * Satisfiable. Requests for several ranges at once get the whole file, as HTTP allows.
+ */
+public class RawFileWriter {
+  /** The media type of CSV files. */
+  public static final String CSV_TYPE = "text/csv; charset=utf-8";
+
+  /** The most bytes mapped at once. */
+  private static final long WINDOW_BYTES = 64L << 20;
+
+  private RawFileWriter() {}
+
+  /**
+   * Returns whether a request asks for a file's raw bytes.
+   *
+   * @param request The Spark Request object
+   * @return Whether the format parameter is csv
+   */
+  public static boolean wantsCsv(Request request) {
+    return "csv".equalsIgnoreCase(request.queryParams("format"));
+  }
+
+  /**
+   * Sends a file, or the byte range of it that the request asks for, to a response.
+   *
+   * @param request The Spark Request object
+   * @param response The Spark Response object to write to
+   * @param file The file to send
+   * @throws IOException If the file cannot be read or writing to the client fails
+   */
+  public static void write(Request request, Response response, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      response.header("Accept-Ranges", "bytes");
+      long[] range = parseRange(request.headers("Range"), size);
+      if (range == null) {
+        response.status(416); // Range Not Satisfiable
+        response.header("Content-Range", "bytes */" + size);
+        response.raw().setContentLength(0);
+        return;
+      }
+      long start = range[0];
+      long length = range[1] - range[0] + 1;
+      if (length != size) {
+        response.status(206); // Partial Content
+        response.header("Content-Range", "bytes " + start + "-" + range[1] + "/" + size);
+      }
+      response.type(CSV_TYPE);
+      response.raw().setContentLengthLong(length);
+
+      OutputStream out = response.raw().getOutputStream();
+      if (out instanceof HttpOutput jetty) {
+        for (long position = start; position < start + length; position += WINDOW_BYTES) {
+          long window = Math.min(WINDOW_BYTES, start + length - position);
+          MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+          jetty.write(mapped);
+        }
+      } else {
+        WritableByteChannel target = Channels.newChannel(out);
+        for (long position = start; position < start + length; ) {
+          position += channel.transferTo(position, start + length - position, target);
+        }
+      }
+      out.flush();
+    }
+  }
+
+  /**
+   * Parses a Range header against a file's size.
+   *
+   * @param header The Range header, or null
+   * @param size The size of the file
+   * @return The first and last byte to send, inclusive, or null if the range lies outside the file
+   */
+  static long[] parseRange(String header, long size) {
+    long[] whole = {0, size - 1};
+    if (header == null || !header.startsWith("bytes=") || header.indexOf(',') != -1) {
+      return whole;
+    }
+    String spec = header.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash == -1) {
+      return whole;
+    }
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        // A suffix range: the last n bytes.
+        long suffix = Long.parseLong(last);
+        if (suffix <= 0 || size == 0) {
+          return null;
+        }
+        return new long[] {Math.max(0, size - suffix), size - 1};
+      }
+      long start = Long.parseLong(first);
+      long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+      if (start < 0 || end < start) {
+        // Not a valid range, so the header is ignored.
+        return whole;
+      }
+      if (start >= size) {
+        return null;
+      }
+      return new long[] {start, Math.min(end, size - 1)};
+    } catch (NumberFormatException e) {
+      // A malformed Range header is ignored.
+      return whole;
+    }
+  }
+}
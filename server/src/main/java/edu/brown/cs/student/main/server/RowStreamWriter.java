@@ -0,0 +1,140 @@
+package edu.brown.cs.student.main.server;
+
+import com.squareup.moshi.JsonWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import okio.BufferedSink;
+import okio.Okio;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Writes rows straight to a response's output stream as they are produced, rather than building the
+ * whole response as one String first. Rows go out either inside a JSON success object or, when the
+ * request asks for format=ndjson, as newline-delimited JSON with one array per line. The servlet
+ * container sends the body in chunks, so memory use does not grow with the number of rows.
+ */
+public class RowStreamWriter {
+  /** The media type of newline-delimited JSON. */
+  public static final String NDJSON_TYPE = "application/x-ndjson";
+
+  private RowStreamWriter() {}
+
+  /**
+   * Returns whether a request asks for newline-delimited JSON.
+   *
+   * @param request The Spark Request object
+   * @return Whether the format parameter is ndjson
+   */
+  public static boolean wantsNdjson(Request request) {
+    return "ndjson".equalsIgnoreCase(request.queryParams("format"));
+  }
+
+  /**
+   * Streams rows to a response in the format the request asks for. Once this starts, the status and
+   * headers have been sent, so it should only be called after anything that can fail cleanly.
+   *
+   * @param request The Spark Request object
+   * @param response The Spark Response object to write to
+   * @param rowsKey The key the rows are listed under in a JSON response
+   * @param rows The rows to write
+   * @throws IOException If writing to the client fails
+   */
+  public static void write(
+      Request request, Response response, String rowsKey, Iterator<List<String>> rows)
+      throws IOException {
+    write(request, response, Map.of(), rowsKey, rows);
+  }
+
+  /**
+   * Streams rows to a response in the format the request asks for, with extra fields ahead of the
+   * rows in a JSON response. Newline-delimited JSON has nowhere to put them, so it leaves them out.
+   *
+   * @param request The Spark Request object
+   * @param response The Spark Response object to write to
+   * @param fields Extra fields of a JSON response, such as paging details
+   * @param rowsKey The key the rows are listed under in a JSON response
+   * @param rows The rows to write
+   * @throws IOException If writing to the client fails
+   */
+  public static void write(
+      Request request,
+      Response response,
+      Map<String, ?> fields,
+      String rowsKey,
+      Iterator<List<String>> rows)
+      throws IOException {
+    if (wantsNdjson(request)) {
+      writeNdjson(response, rows);
+    } else {
+      writeJson(response, fields, rowsKey, rows);
+    }
+  }
+
+  /**
+   * Streams a JSON success object whose rowsKey field is the array of rows.
+   *
+   * @param response The Spark Response object to write to
+   * @param fields Extra fields, written before the rows
+   * @param rowsKey The key the rows are listed under
+   * @param rows The rows to write
+   * @throws IOException If writing to the client fails
+   */
+  public static void writeJson(
+      Response response, Map<String, ?> fields, String rowsKey, Iterator<List<String>> rows)
+      throws IOException {
+    response.type("application/json");
+    BufferedSink sink = Okio.buffer(Okio.sink(response.raw().getOutputStream()));
+    JsonWriter writer = JsonWriter.of(sink);
+    writer.beginObject();
+    writer.name("result").value("success");
+    for (Map.Entry<String, ?> field : fields.entrySet()) {
+      writer.name(field.getKey()).jsonValue(field.getValue());
+    }
+    writer.name(rowsKey).beginArray();
+    while (rows.hasNext()) {
+      writeRow(writer, rows.next());
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Streams rows as newline-delimited JSON, one array per line.
+   *
+   * @param response The Spark Response object to write to
+   * @param rows The rows to write
+   * @throws IOException If writing to the client fails
+   */
+  public static void writeNdjson(Response response, Iterator<List<String>> rows)
+      throws IOException {
+    response.type(NDJSON_TYPE);
+    BufferedSink sink = Okio.buffer(Okio.sink(response.raw().getOutputStream()));
+    JsonWriter writer = JsonWriter.of(sink);
+    // Lenient writers accept more than one top-level value; the newlines go straight to the sink.
+    writer.setLenient(true);
+    while (rows.hasNext()) {
+      writeRow(writer, rows.next());
+      sink.writeByte('\n');
+    }
+    writer.flush();
+  }
+
+  /**
+   * Writes one row as a JSON array of strings.
+   *
+   * @param writer The writer
+   * @param row The row
+   * @throws IOException If writing fails
+   */
+  private static void writeRow(JsonWriter writer, List<String> row) throws IOException {
+    writer.beginArray();
+    for (String cell : row) {
+      writer.value(cell);
+    }
+    writer.endArray();
+  }
+}
@@ -1,34 +1,52 @@
 package edu.brown.cs.student.main.server;
 
+import static edu.brown.cs.student.main.server.HandlerUtilities.acquireDataset;
 import static edu.brown.cs.student.main.server.HandlerUtilities.getBooleanParam;
 
-import Parser.Parser;
-import Searcher.Searcher;
+import Searcher.ParallelSearcher;
 import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
 /**
  * This class handles search requests in a Spark server application. It performs searches on
- * previously loaded CSV data.
+ * previously loaded CSV data: the dataset named by the {@code dataset} parameter, or the most
+ * recently loaded one without it.
  */
 public class SearchHandler implements Route {
 
-  private final ConcurrentHashMap<String, Object> state;
+  private final DatasetRegistry datasets;
+  private final ParallelSearcher searcher;
 
   /**
-   * Constructs a new SearchHandler with the given shared state.
+   * Constructs a new SearchHandler over the given registry. Large tables are searched in parallel
+   * on the common fork-join pool.
    *
-   * @param state A ConcurrentHashMap representing the shared state of the application
+   * @param datasets The registry of loaded datasets shared by the CSV handlers
    */
-  public SearchHandler(ConcurrentHashMap<String, Object> state) {
-    this.state = state;
+  public SearchHandler(DatasetRegistry datasets) {
+    this(
+        datasets,
+        new ParallelSearcher(ForkJoinPool.commonPool(), ParallelSearcher.DEFAULT_THRESHOLD));
+  }
+
+  /**
+   * Constructs a new SearchHandler over the given registry with the given searcher.
+   *
+   * @param datasets The registry of loaded datasets shared by the CSV handlers
+   * @param searcher The searcher used to run queries against the loaded table
+   */
+  public SearchHandler(DatasetRegistry datasets, ParallelSearcher searcher) {
+    this.datasets = datasets;
+    this.searcher = searcher;
   }
 
   /**
@@ -43,9 +61,8 @@ public class SearchHandler implements Route {
     Map<String, Object> responseMap = new HashMap<>();
     response.type("application/json");
 
-    try {
-      Parser<List<String>> parser = getParserFromState();
-      List<List<String>> rows = performSearch(request, parser);
+    try (DatasetRegistry.Lease lease = acquireDataset(datasets, request, "searching")) {
+      List<List<String>> rows = performSearch(request, lease.dataset().table());
       responseMap.put("result", "success");
       responseMap.put("data", rows);
     } catch (IllegalArgumentException | IllegalStateException e) {
@@ -60,49 +77,33 @@ public class SearchHandler implements Route {
     return JsonSerializer.toJson(responseMap);
   }
 
-  /**
-   * Retrieves the parser from the shared state.
-   *
-   * @return The Parser object
-   * @throws IllegalStateException if the parser is not found or is of the wrong type
-   */
-  private Parser<List<String>> getParserFromState() throws IllegalStateException {
-    if (!state.containsKey("parser")) {
-      throw new IllegalStateException("Must load CSV first before searching using /loadcsv");
-    }
-
-    Object parserObj = state.get("parser");
-    return (Parser<List<String>>) parserObj;
-  }
-
   /**
    * Performs the search operation based on the request parameters.
    *
    * @param request The Spark Request object
-   * @param parser The Parser object containing the CSV data
+   * @param table The ColumnarTable containing the CSV data
    * @return A list of matched rows
    * @throws IllegalArgumentException if required parameters are missing or invalid
    */
-  private List<List<String>> performSearch(Request request, Parser<List<String>> parser)
+  private List<List<String>> performSearch(Request request, ColumnarTable table)
       throws IllegalArgumentException {
     String searchValue = HandlerUtilities.getRequiredParam(request, "query");
-    Optional<Integer> columnIndex = getColumnIndex(request, parser);
+    Optional<Integer> columnIndex = getColumnIndex(request, table);
     boolean caseSensitive = getBooleanParam(request, "caseInsensitive", false);
     boolean substringMatch = getBooleanParam(request, "substringMatch", false);
 
-    return Searcher.search(
-        parser.getParsedContent(), searchValue, columnIndex, !caseSensitive, substringMatch);
+    return searcher.search(table, searchValue, columnIndex, !caseSensitive, substringMatch);
   }
 
   /**
    * Determines the column index for the search.
    *
    * @param request The Spark Request object
-   * @param parser The Parser object
+   * @param table The ColumnarTable object
    * @return An Optional containing the column index, or empty if not specified
    * @throws IllegalArgumentException if the specified column is invalid
    */
-  private Optional<Integer> getColumnIndex(Request request, Parser<List<String>> parser)
+  private Optional<Integer> getColumnIndex(Request request, ColumnarTable table)
       throws IllegalArgumentException {
     String column = request.queryParams("column");
     if (column == null || column.trim().isEmpty()) {
@@ -111,14 +112,14 @@ public class SearchHandler implements Route {
 
     try {
       int inputColumn = Integer.parseInt(column.trim());
-      validateColumnIndex(inputColumn, parser);
+      validateColumnIndex(inputColumn, table);
       return Optional.of(inputColumn);
     } catch (NumberFormatException e) {
-      int parsedColumnIndex = parser.columNameToIndex(column.trim());
+      int parsedColumnIndex = table.columnNameToIndex(column.trim());
       if (parsedColumnIndex == -1) {
         throw new IllegalArgumentException("Invalid column name: " + column);
       }
-      validateColumnIndex(parsedColumnIndex, parser);
+      validateColumnIndex(parsedColumnIndex, table);
       return Optional.of(parsedColumnIndex);
     }
   }
@@ -127,12 +128,13 @@ public class SearchHandler implements Route {
    * Validates if the given column index is within the valid range.
    *
    * @param columnIndex The column index to validate.
-   * @return true if the index is valid, false otherwise.
+   * @param table The table the column index refers to.
+   * @throws IllegalArgumentException if the index is out of range.
    */
-  public void validateColumnIndex(int columnIndex, Parser<List<String>> parser) {
-    if (columnIndex < 0 || columnIndex >= parser.getHeader().size()) {
+  public void validateColumnIndex(int columnIndex, ColumnarTable table) {
+    if (columnIndex < 0 || columnIndex >= table.columnCount()) {
       throw new IllegalArgumentException(
-          "Column index must be between 0 and " + (parser.getHeader().size() - 1));
+          "Column index must be between 0 and " + (table.columnCount() - 1));
     }
   }
 }
@@ -1,15 +1,82 @@
 package edu.brown.cs.student.main.server;
 
-import static spark.Spark.after;
+import static spark.Spark.before;
 
 import edu.brown.cs.student.main.ACSApi.datasource.ACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
 import edu.brown.cs.student.main.ACSApi.datasource.CachedACSApi;
 import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
-import java.util.concurrent.ConcurrentHashMap;
+import edu.brown.cs.student.main.ACSApi.datasource.CircuitBreaker;
+import edu.brown.cs.student.main.ACSApi.datasource.FipsDirectory;
+import edu.brown.cs.student.main.ACSApi.datasource.ResilientDatasource;
+import edu.brown.cs.student.main.ACSApi.datasource.StateCountyKey;
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import edu.brown.cs.student.main.Cache.DiskCache;
+import edu.brown.cs.student.main.Cache.ExpiringCache;
+import edu.brown.cs.student.main.Cache.TieredCache;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
 import spark.Spark;
 
-/** Server class, with load csv, viewcsv, broadband endpoints. */
+/** Server class, with load csv, load status, viewcsv, broadband endpoints. */
 public class Server {
+  /** The number of counties the broadband cache holds. */
+  private static final int CACHE_SIZE = 30;
+
+  /** How long cached broadband data is served before it must be fetched again. */
+  private static final Duration CACHE_TIME_TO_LIVE = Duration.ofHours(1);
+
+  /** How old cached broadband data must be for a request to trigger a background refresh. */
+  private static final Duration CACHE_REFRESH_AFTER = Duration.ofMinutes(50);
+
+  /** Where caches that survive restarts keep their files. */
+  private static final Path CACHE_DIRECTORY = Path.of("data", "cache");
+
+  /**
+   * How long broadband data is kept on disk. Entries read back from disk keep their age, so
+   * anything older than the memory cache's time to live would never be served again.
+   */
+  private static final Duration BROADBAND_DISK_TIME_TO_LIVE = CACHE_TIME_TO_LIVE;
+
+  /** The number of counties whose last known data is kept to serve while the ACS api is down. */
+  private static final int LAST_KNOWN_SIZE = 1000;
+  /** The number of consecutive ACS api failures that stops requests to it. */
+  private static final int BREAKER_FAILURE_THRESHOLD = 5;
+  /** How long requests to the ACS api are stopped for before one is tried again. */
+  private static final Duration BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+  /** The number of requests that may be waiting on the ACS api at once. */
+  private static final int UPSTREAM_MAX_CONCURRENT_CALLS = 16;
+  /** How long a request waits for a free upstream slot before it is refused. */
+  private static final Duration UPSTREAM_MAX_WAIT = Duration.ofMillis(250);
+  /** A saved response listing every state and county FIPS code, used instead of fetching it. */
+  private static final Path FIPS_SNAPSHOT = Path.of("data", "fips_counties.json");
+  /** How long state and county FIPS codes kept on disk are trusted. */
+  private static final Duration FIPS_DISK_TIME_TO_LIVE = Duration.ofDays(30);
+  /**
+   * The estimated heap that loaded CSV files may use before the least recently used are dropped.
+   * The registry owns the budget of every table registered in it, including tables it shares with
+   * the parsed-file cache.
+   */
+  private static final long DATASET_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 2;
+  /** The number of CSV files that may be parsed at once; further loads wait their turn. */
+  private static final int CONCURRENT_LOADS = 2;
+  /**
+   * The estimated heap that parsed files kept for reuse may use, counting only tables that are not
+   * also registered as datasets, so no table is counted against both budgets. Together the two
+   * budgets come to three quarters of the heap. That is a target rather than a hard limit: the
+   * registry never evicts the most recently loaded dataset or a leased one, so a single very large
+   * file, or many searches running at once, can keep more than that alive.
+   */
+  private static final long PARSED_FILE_CACHE_BUDGET = Runtime.getRuntime().maxMemory() / 4;
 
   /**
    * Server runs with object that implements CensusDataSource interface
@@ -17,30 +84,127 @@ public class Server {
    * @param datasource
    */
   public Server(CensusDatasource datasource) {
-    ConcurrentHashMap<String, Object> state = new ConcurrentHashMap<>();
+    this(datasource, Map.of());
+  }
+
+  /**
+   * Server runs with object that implements CensusDataSource interface, and reports the given
+   * caches' statistics on /metrics
+   *
+   * @param datasource
+   * @param caches The caches to report, by name
+   */
+  public Server(CensusDatasource datasource, Map<String, Cache<?, ?>> caches) {
+    DatasetRegistry datasets = new DatasetRegistry(DATASET_MEMORY_BUDGET);
+    ParsedFileCache parsedFiles = new ParsedFileCache(PARSED_FILE_CACHE_BUDGET, datasets);
+    try {
+      parsedFiles.watch();
+    } catch (IOException e) {
+      // Changed files are still noticed when they are next requested.
+      System.err.println("Could not watch data files: " + e.getMessage());
+    }
+    Map<String, Cache<?, ?>> reportedCaches = new LinkedHashMap<>(caches);
+    reportedCaches.put("parsed_files", parsedFiles);
+    LoadJobs loadJobs =
+        new LoadJobs(
+            datasets,
+            Executors.newFixedThreadPool(
+                CONCURRENT_LOADS,
+                runnable -> {
+                  Thread thread = new Thread(runnable, "csv-load");
+                  thread.setDaemon(true);
+                  return thread;
+                }),
+            parsedFiles);
     int port = 3232;
     Spark.port(port);
-    after(
+    // Headers must be set before a handler starts streaming its body, so this is a before filter.
+    before(
         (request, response) -> {
           response.header("Access-Control-Allow-Origin", "*");
           response.header("Access-Control-Allow-Methods", "*");
         });
 
-    Spark.get("loadcsv", new LoadHandler(state));
-    Spark.get("viewcsv", new ViewHandler(state));
-    Spark.get("searchcsv", new SearchHandler(state));
+    Spark.get("loadcsv", new LoadHandler(loadJobs));
+    Spark.get("loadstatus", new LoadStatusHandler(loadJobs));
+    Spark.get("viewcsv", new ViewHandler(datasets));
+    Spark.get("searchcsv", new SearchHandler(datasets));
     Spark.get("broadband", new BroadbandHandler(datasource));
-    Spark.get("getData", new GetDataHandler());
+    Spark.get("broadbandBatch", new BroadbandBatchHandler(datasource));
+    Spark.get("getData", new GetDataHandler(parsedFiles));
+    Spark.get("metrics", new MetricsHandler(reportedCaches));
     Spark.init();
     Spark.awaitInitialization();
 
     System.out.println("Server started at http://localhost:" + port);
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
+    DiskCache<String, String> fipsCache =
+        new DiskCache<>(
+            CACHE_DIRECTORY.resolve("fips.jsonl"),
+            String.class,
+            String.class,
+            FIPS_DISK_TIME_TO_LIVE,
+            Clock.systemUTC());
+    ACSApi acsApi;
+    if (Files.exists(FIPS_SNAPSHOT)) {
+      acsApi = new ACSApi(FipsDirectory.load(FIPS_SNAPSHOT));
+    } else {
+      acsApi = new ACSApi(fipsCache);
+      try {
+        acsApi.preload();
+      } catch (Exception e) {
+        // The first request will try again.
+        System.err.println("Could not preload FIPS codes: " + e.getMessage());
+      }
+    }
+    CensusDatasource upstream =
+        new ResilientDatasource(
+            acsApi,
+            new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION),
+            UPSTREAM_MAX_CONCURRENT_CALLS,
+            UPSTREAM_MAX_WAIT);
+    Cache<StateCountyKey, BroadbandData> lastKnown = new ConcurrentLRUCache<>(LAST_KNOWN_SIZE);
+    DiskCache<StateCountyKey, BroadbandData> diskCache =
+        new DiskCache<>(
+            CACHE_DIRECTORY.resolve("broadband.jsonl"),
+            StateCountyKey.class,
+            BroadbandData.class,
+            BROADBAND_DISK_TIME_TO_LIVE,
+            Clock.systemUTC());
+    ConcurrentLRUCache<StateCountyKey, ExpiringCache.Stamped<BroadbandData>> lruCache =
+        new ConcurrentLRUCache<>(CACHE_SIZE);
+    Cache<StateCountyKey, BroadbandData> memoryCache =
+        new ExpiringCache<>(
+            lruCache,
+            CACHE_TIME_TO_LIVE,
+            CACHE_REFRESH_AFTER,
+            key -> {
+              // Refreshes bypass the tiered cache, so write them through to disk here.
+              BroadbandData data = upstream.getBroadbandData(key.state, key.county);
+              diskCache.set(key, data);
+              lastKnown.set(key, data);
+              return data;
+            },
+            Executors.newFixedThreadPool(
+                2,
+                runnable -> {
+                  Thread thread = new Thread(runnable, "broadband-refresh");
+                  thread.setDaemon(true);
+                  return thread;
+                }));
+    Cache<StateCountyKey, BroadbandData> cache = new TieredCache<>(memoryCache, diskCache);
+    Map<String, Cache<?, ?>> caches = new LinkedHashMap<>();
+    caches.put("broadband", cache);
+    caches.put("broadband_memory", memoryCache);
+    caches.put("broadband_lru", lruCache);
+    caches.put("broadband_disk", diskCache);
+    caches.put("broadband_last_known", lastKnown);
+    caches.put("fips_disk", fipsCache);
     Server CSVServer =
         new Server(
-            new CachedACSApi(
-                30, new ACSApi())); // defaults to running on CachedACSAPI for this sprint
+            new CachedACSApi(cache, upstream, lastKnown),
+            caches); // defaults to running on CachedACSAPI for this sprint
   }
 }
@@ -1,29 +1,44 @@
 package edu.brown.cs.student.main.server;
 
-import Parser.Parser;
+import static edu.brown.cs.student.main.server.HandlerUtilities.acquireDataset;
+import static edu.brown.cs.student.main.server.HandlerUtilities.getNonNegativeIntParam;
+
 import edu.brown.cs.student.main.JsonSerializer.JsonSerializer;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import java.util.AbstractList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NoSuchElementException;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
 /**
  * This class handles view requests in a Spark server application. It retrieves parsed data from a
- * previously loaded parser in shared state.
+ * previously loaded dataset, the one named by the {@code dataset} parameter or the most recently
+ * loaded one without it, and streams its rows to the client as JSON, or as newline-delimited JSON
+ * with format=ndjson.
+ *
+ * <p>Clients can ask for one page at a time with {@code offset} and {@code limit}, and for a subset
+ * of columns with {@code columns}, a comma-separated list of column indices or header names. The
+ * table is columnar, so each page is read straight out of its columns without touching the rows
+ * before it. Every response carries an ETag naming the dataset's version; a request whose
+ * If-None-Match matches it gets 304 Not Modified and no body.
  */
 public class ViewHandler implements Route {
-  private final ConcurrentHashMap<String, Object> state;
+  private final DatasetRegistry datasets;
 
   /**
-   * Constructs a new ViewHandler with the given shared state.
+   * Constructs a new ViewHandler over the given registry.
    *
-   * @param state A ConcurrentHashMap representing the shared state of the application
+   * @param datasets The registry of loaded datasets shared by the CSV handlers
    */
-  public ViewHandler(ConcurrentHashMap<String, Object> state) {
-    this.state = state;
+  public ViewHandler(DatasetRegistry datasets) {
+    this.datasets = datasets;
   }
 
   /**
@@ -31,37 +46,159 @@ public class ViewHandler implements Route {
    *
    * @param request The Spark Request object containing the HTTP request information
    * @param response The Spark Response object for setting response properties
-   * @return A JSON string containing the result of the operation
+   * @return A JSON string containing the error, or an empty string once the rows have been streamed
    */
   @Override
   public Object handle(Request request, Response response) {
     Map<String, Object> responseMap = new HashMap<>();
     response.type("application/json");
 
-    try {
-      if (!state.containsKey("parser")) {
-        throw new IllegalStateException("Must load CSV first before viewing using /loadcsv");
-      }
+    // The lease is held while the rows stream out, so the dataset cannot be evicted midway.
+    try (DatasetRegistry.Lease lease = acquireDataset(datasets, request, "viewing")) {
+      ColumnarTable table = lease.dataset().table();
+      int totalRows = table.rowCount();
+      int offset = Math.min(getNonNegativeIntParam(request, "offset", 0), totalRows);
+      int limit = Math.min(getNonNegativeIntParam(request, "limit", totalRows), totalRows - offset);
+      int[] columns = parseColumns(request.queryParams("columns"), table);
 
-      Object parserObj = state.get("parser");
-      if (!(parserObj instanceof Parser<?>)) {
-        throw new IllegalStateException("Stored parser is not of the expected type");
+      String etag = "\"" + lease.dataset().version() + "\"";
+      response.header("ETag", etag);
+      response.header("Cache-Control", "no-cache");
+      if (matches(request.headers("If-None-Match"), etag)) {
+        response.status(304); // Not Modified
+        return "";
       }
+      response.header("X-Total-Rows", String.valueOf(totalRows));
 
-      Parser<List<String>> parser = (Parser<List<String>>) parserObj;
-
-      List<List<String>> data = parser.getParsedContent();
-      responseMap.put("result", "success");
-      responseMap.put("data", data);
-    } catch (IllegalStateException e) {
+      Map<String, Object> page = new LinkedHashMap<>();
+      page.put("offset", offset);
+      page.put("limit", limit);
+      page.put("totalRows", totalRows);
+      RowStreamWriter.write(request, response, page, "data", rows(table, offset, limit, columns));
+      return "";
+    } catch (IllegalStateException | IllegalArgumentException e) {
+      if (response.raw().isCommitted()) {
+        // The status has been sent, so cutting the body short is all that is left to do.
+        return "";
+      }
       response.status(400); // Bad Request
       responseMap.put("result", "error_bad_request");
       responseMap.put("message", e.getMessage());
     } catch (Exception e) {
+      if (response.raw().isCommitted()) {
+        // The status has been sent, so cutting the body short is all that is left to do.
+        return "";
+      }
       response.status(500); // Internal Server Error
       responseMap.put("result", "error");
       responseMap.put("message", "Unexpected error: " + e.getMessage());
     }
     return JsonSerializer.toJson(responseMap);
   }
+
+  /**
+   * Resolves the columns parameter to column indices. Each entry is a header name if the table has
+   * a column by that name, and otherwise a column index.
+   *
+   * @param columnsParam The comma-separated columns, or null for every column
+   * @param table The loaded table
+   * @return The column indices in the order asked for, or null for every column
+   * @throws IllegalArgumentException if an entry names no column of the table
+   */
+  static int[] parseColumns(String columnsParam, ColumnarTable table)
+      throws IllegalArgumentException {
+    if (columnsParam == null || columnsParam.trim().isEmpty()) {
+      return null;
+    }
+    String[] names = columnsParam.split(",");
+    int[] columns = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i].trim();
+      int column = table.columnNameToIndex(name);
+      if (column == -1) {
+        try {
+          column = Integer.parseInt(name);
+        } catch (NumberFormatException e) {
+          column = -1;
+        }
+      }
+      if (column < 0 || column >= table.columnCount()) {
+        throw new IllegalArgumentException("Column not found: " + name);
+      }
+      columns[i] = column;
+    }
+    return columns;
+  }
+
+  /**
+   * Checks an If-None-Match header against the current ETag.
+   *
+   * @param ifNoneMatch The header value, a comma-separated list of ETags or *, or null
+   * @param etag The current ETag
+   * @return Whether the client already has the current version
+   */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns an iterator over one page of the table, holding only the requested columns. Rows are
+   * built as they are written, and each cell is read directly from its column.
+   *
+   * @param table The loaded table
+   * @param offset The index of the first row
+   * @param limit The number of rows
+   * @param columns The column indices to include, or null for every column
+   * @return The rows of the page
+   */
+  private static Iterator<List<String>> rows(
+      ColumnarTable table, int offset, int limit, int[] columns) {
+    int[] projection = columns;
+    if (projection == null) {
+      projection = new int[table.columnCount()];
+      for (int i = 0; i < projection.length; i++) {
+        projection[i] = i;
+      }
+    }
+    int[] selected = projection;
+    return new Iterator<>() {
+      private int row = offset;
+
+      @Override
+      public boolean hasNext() {
+        return row < offset + limit;
+      }
+
+      @Override
+      public List<String> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int current = row++;
+        return new AbstractList<>() {
+          @Override
+          public String get(int index) {
+            return table.get(current, selected[index]);
+          }
+
+          @Override
+          public int size() {
+            return selected.length;
+          }
+        };
+      }
+    };
+  }
 }
@@ -0,0 +1,104 @@
+package edu.brown.cs.student.main;
+
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.CacheStats;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import edu.brown.cs.student.main.Cache.LRUCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures cache throughput at 1 to 64 threads with 90% reads, comparing {@link ConcurrentLRUCache}
+ * with an {@link LRUCache} behind a single lock. Not a JUnit test; run the main method directly.
+ */
+public class CacheBenchmark {
+  private static final int CAPACITY = 1_000;
+  private static final int KEYS = 2_000;
+  private static final long RUN_MILLIS = 1_000;
+
+  public static void main(String[] args) throws InterruptedException {
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      double locked = run(new LockedCache<>(new LRUCache<>(CAPACITY)), threads);
+      double concurrent = run(new ConcurrentLRUCache<>(CAPACITY), threads);
+      System.out.printf(
+          "%2d threads: synchronized LRUCache %6.2f Mops/s | ConcurrentLRUCache %6.2f Mops/s%n",
+          threads, locked / 1e6, concurrent / 1e6);
+    }
+  }
+
+  private static double run(Cache<Integer, Integer> cache, int threads)
+      throws InterruptedException {
+    for (int key = 0; key < CAPACITY; key++) {
+      cache.set(key, key);
+    }
+    LongAdder operations = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    long[] deadline = new long[1];
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker =
+          new Thread(
+              () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  return;
+                }
+                long count = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline[0]) {
+                  int key = random.nextInt(KEYS);
+                  if (random.nextInt(10) == 0) {
+                    cache.set(key, key);
+                  } else {
+                    cache.get(key);
+                  }
+                  count++;
+                }
+                operations.add(count);
+              });
+      worker.start();
+      workers.add(worker);
+    }
+    long begin = System.nanoTime();
+    deadline[0] = begin + RUN_MILLIS * 1_000_000;
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return operations.sum() / ((System.nanoTime() - begin) / 1e9);
+  }
+
+  /** Makes any cache thread-safe with one lock, the simplest fix for LRUCache. */
+  private static class LockedCache<K, V> implements Cache<K, V> {
+    private final Cache<K, V> cache;
+
+    LockedCache(Cache<K, V> cache) {
+      this.cache = cache;
+    }
+
+    @Override
+    public synchronized void set(K key, V value) {
+      cache.set(key, value);
+    }
+
+    @Override
+    public synchronized Optional<V> get(K key) {
+      return cache.get(key);
+    }
+
+    @Override
+    public synchronized int size() {
+      return cache.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+      return cache.stats();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package edu.brown.cs.student.main;
+
+import Parser.Parser;
+import Parser.StateMachineTokenizer;
+import Parser.TrivialCreator;
+import edu.brown.cs.student.main.ACSApi.datasource.StateCountyKey;
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.LRUCache;
+import edu.brown.cs.student.main.Cache.TinyLFUCache;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Replays a sequence of /broadband keys against each cache policy and prints their hit rates. Not a
+ * JUnit test; run the main method directly.
+ *
+ * <p>With a file argument, the trace is read as a headerless CSV with one state,county request per
+ * row, for example extracted from the server's access log. Without one, a synthetic trace is
+ * generated: Zipf-distributed requests over 3,000 counties, interrupted every 20,000 requests by a
+ * user paging through 500 rarely requested counties in order.
+ */
+public class CacheSimulator {
+  private static final int[] CAPACITIES = {30, 100, 300, 1_000};
+
+  public static void main(String[] args) throws IOException {
+    List<StateCountyKey> trace = args.length > 0 ? readTrace(args[0]) : syntheticTrace();
+    System.out.printf("%,d requests, %,d distinct keys%n", trace.size(), distinct(trace));
+    simulate("LRU", LRUCache::new, trace);
+    simulate("W-TinyLFU", TinyLFUCache::new, trace);
+  }
+
+  private static void simulate(
+      String name, IntFunction<Cache<StateCountyKey, Boolean>> policy, List<StateCountyKey> trace) {
+    StringBuilder line = new StringBuilder(String.format("%-10s", name));
+    for (int capacity : CAPACITIES) {
+      Cache<StateCountyKey, Boolean> cache = policy.apply(capacity);
+      int hits = 0;
+      for (StateCountyKey key : trace) {
+        if (cache.get(key).isPresent()) {
+          hits++;
+        } else {
+          cache.set(key, true);
+        }
+      }
+      line.append(String.format(" | %5d: %5.1f%%", capacity, 100.0 * hits / trace.size()));
+    }
+    System.out.println(line);
+  }
+
+  private static List<StateCountyKey> readTrace(String path) throws IOException {
+    List<StateCountyKey> trace = new ArrayList<>();
+    try (FileReader reader = new FileReader(path)) {
+      Parser<List<String>> parser =
+          new Parser<>(new StateMachineTokenizer(reader), false, new TrivialCreator());
+      for (List<String> row : (Iterable<List<String>>) parser::iterator) {
+        trace.add(new StateCountyKey(row.get(0).trim(), row.get(1).trim()));
+      }
+    }
+    return trace;
+  }
+
+  private static List<StateCountyKey> syntheticTrace() {
+    int counties = 3_000;
+    double[] cdf = new double[counties];
+    double total = 0;
+    for (int i = 0; i < counties; i++) {
+      total += 1.0 / (i + 1);
+      cdf[i] = total;
+    }
+    Random random = new Random(42);
+    List<StateCountyKey> trace = new ArrayList<>();
+    for (int request = 0; request < 500_000; request++) {
+      if (request % 20_000 == 0) {
+        for (int scanned = 0; scanned < 500; scanned++) {
+          trace.add(new StateCountyKey("Texas", "County " + (counties - 500 + scanned)));
+        }
+      }
+      int index = Arrays.binarySearch(cdf, random.nextDouble() * total);
+      int county = index >= 0 ? index : -index - 1;
+      trace.add(new StateCountyKey("State " + county % 50, "County " + county));
+    }
+    return trace;
+  }
+
+  private static long distinct(List<StateCountyKey> trace) {
+    return trace.stream().distinct().count();
+  }
+}
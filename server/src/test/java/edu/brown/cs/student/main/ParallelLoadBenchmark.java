@@ -0,0 +1,79 @@
+package edu.brown.cs.student.main;
+
+import Parser.CSVTokenizer;
+import Parser.ParallelCSVTokenizer;
+import Parser.StateMachineTokenizer;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times a sequential tokenizer pass over a generated CSV against {@link ParallelCSVTokenizer} at
+ * increasing pool sizes. Not a JUnit test; run the main method directly, optionally passing the
+ * file size in megabytes (default 256).
+ */
+public class ParallelLoadBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 256;
+    Path file = Files.createTempFile("parallel-load", ".csv");
+    try {
+      generate(file, megabytes << 20);
+      long sequential = time(new StateMachineTokenizer(new FileReader(file.toFile())));
+      System.out.printf("%d MB sequential: %d ms%n", megabytes, sequential);
+      int cores = Runtime.getRuntime().availableProcessors();
+      for (int threads = 1; threads <= cores; threads *= 2) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long parallel = time(new ParallelCSVTokenizer(file, pool));
+        pool.shutdown();
+        System.out.printf(
+            "%d MB parallel, %2d threads: %d ms (%.1fx)%n",
+            megabytes, threads, parallel, (double) sequential / parallel);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static long time(CSVTokenizer tokenizer) throws IOException {
+    long start = System.nanoTime();
+    long rows = 0;
+    try (tokenizer) {
+      List<String> row;
+      while ((row = tokenizer.nextRow()) != null) {
+        rows += row.size() > 0 ? 1 : 0;
+      }
+    }
+    if (rows == 0) {
+      throw new IllegalStateException("benchmark read no rows");
+    }
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private static void generate(Path file, long bytes) throws IOException {
+    try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      out.write("ID Race,Race,Year,Income,Geography,Slug\n");
+      long written = 0;
+      for (int i = 0; written < bytes; i++) {
+        String line =
+            (i % 7)
+                + ",Race "
+                + (i % 7)
+                + ",2020,"
+                + (50_000 + i)
+                + ",\"County "
+                + i
+                + ", RI\",county-"
+                + i
+                + "\n";
+        out.write(line);
+        written += line.length();
+      }
+    }
+  }
+}
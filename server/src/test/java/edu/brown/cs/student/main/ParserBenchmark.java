@@ -0,0 +1,78 @@
+package edu.brown.cs.student.main;
+
+import Parser.CSVTokenizer;
+import Parser.RegexTokenizer;
+import Parser.StateMachineTokenizer;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compares the regex line splitter against the state-machine tokenizer on a synthetic CSV. Not a
+ * JUnit test; run the main method directly, e.g. from the IDE or with {@code java -cp}.
+ */
+public class ParserBenchmark {
+  private static final int ROWS = 200_000;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws IOException {
+    String plain = generate(false);
+    String quoted = generate(true);
+    System.out.printf("%d rows, %.1f MB plain / %.1f MB quoted%n", ROWS, mb(plain), mb(quoted));
+    for (String name : List.of("plain", "quoted")) {
+      String csv = name.equals("plain") ? plain : quoted;
+      long regex = bestOf(csv, RegexTokenizer::new);
+      long machine = bestOf(csv, StateMachineTokenizer::new);
+      System.out.printf(
+          "%-7s regex: %5d ms   state machine: %5d ms   (%.1fx)%n",
+          name, regex, machine, (double) regex / machine);
+    }
+  }
+
+  private static long bestOf(String csv, Function<Reader, CSVTokenizer> tokenizers)
+      throws IOException {
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      int fields = 0;
+      try (CSVTokenizer tokenizer = tokenizers.apply(new StringReader(csv))) {
+        List<String> row;
+        while ((row = tokenizer.nextRow()) != null) {
+          fields += row.size();
+        }
+      }
+      if (fields == 0) {
+        throw new IllegalStateException("benchmark read no fields");
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+    }
+    return best;
+  }
+
+  /** Builds a census-like CSV; the quoted variant quotes every text column. */
+  private static String generate(boolean quoted) {
+    StringBuilder csv = new StringBuilder();
+    csv.append("ID Race,Race,Year,Income,Geography,Slug\n");
+    for (int i = 0; i < ROWS; i++) {
+      String geography = quoted ? "\"County " + i + ", RI\"" : "County " + i + " RI";
+      String race = quoted ? "\"Race \"\"" + (i % 7) + "\"\"\"" : "Race " + (i % 7);
+      csv.append(i % 7)
+          .append(',')
+          .append(race)
+          .append(",2020,")
+          .append(50_000 + i)
+          .append(',')
+          .append(geography)
+          .append(",county-")
+          .append(i)
+          .append('\n');
+    }
+    return csv.toString();
+  }
+
+  private static double mb(String s) {
+    return s.length() / (1024.0 * 1024.0);
+  }
+}
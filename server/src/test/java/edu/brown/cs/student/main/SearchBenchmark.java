@@ -0,0 +1,170 @@
+package edu.brown.cs.student.main;
+
+import Searcher.ParallelSearcher;
+import Searcher.Searcher;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times searches over a synthetic census-like table, comparing the row-list scan with the
+ * table-backed search. Not a JUnit test; run the main method directly.
+ */
+public class SearchBenchmark {
+  private static final int ROWS = 1_000_000;
+  private static final int LOOKUPS = 1_000;
+
+  public static void main(String[] args) {
+    List<List<String>> rows = new ArrayList<>(ROWS);
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < ROWS; i++) {
+      List<String> row = row(i);
+      rows.add(row);
+      builder.addRow(row);
+    }
+    ColumnarTable table = builder.build();
+
+    allocation(rows, table);
+    parallel(table);
+    exactMatch(rows, table);
+    substringMatch(rows, table);
+  }
+
+  /** Unfiltered substring search across every column, sequential versus split across the pool. */
+  private static void parallel(ColumnarTable table) {
+    ParallelSearcher searcher = new ParallelSearcher(ForkJoinPool.commonPool(), 0);
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      int found = Searcher.matchingRows(table, "us440777", Optional.empty(), false, true).length;
+      long sequential = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      found += searcher.matchingRows(table, "us440777", Optional.empty(), false, true).length;
+      long parallel = System.nanoTime() - start;
+      System.out.printf(
+          "all-column substring sequential %6.1f ms | parallel (%d threads) %6.1f ms  [%d]%n",
+          sequential / 1e6, ForkJoinPool.commonPool().getParallelism(), parallel / 1e6, found);
+    }
+  }
+
+  /**
+   * Bytes allocated per row by a case-insensitive substring scan. Lowercasing every cell, as the
+   * searcher used to, is measured alongside for comparison. The table's folded copy of the column
+   * is built before measuring, since it is kept for later searches.
+   */
+  private static void allocation(List<List<String>> rows, ColumnarTable table) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    Optional<Integer> geography = Optional.of(3);
+    table.foldedColumn(3);
+    for (int round = 0; round < 3; round++) {
+      long before = threads.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+      int found = 0;
+      for (List<String> row : rows) {
+        if (row.get(3).toLowerCase().contains("us440777")) {
+          found++;
+        }
+      }
+      long lowercasing = System.nanoTime() - start;
+      long lowercasingBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+      before = threads.getThreadAllocatedBytes(thread);
+      start = System.nanoTime();
+      found += Searcher.search(rows, "US440777", geography, false, true).size();
+      long list = System.nanoTime() - start;
+      long listBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+      before = threads.getThreadAllocatedBytes(thread);
+      start = System.nanoTime();
+      found += Searcher.matchingRows(table, "US440777", geography, false, true).length;
+      long columnar = System.nanoTime() - start;
+      long columnarBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+      System.out.printf(
+          "case-insensitive scan, bytes/row: toLowerCase per cell %5.1f (%5.1f ms) |"
+              + " list search %5.1f (%5.1f ms) | table search %5.1f (%5.1f ms)  [%d]%n",
+          (double) lowercasingBytes / ROWS,
+          lowercasing / 1e6,
+          (double) listBytes / ROWS,
+          list / 1e6,
+          (double) columnarBytes / ROWS,
+          columnar / 1e6,
+          found);
+    }
+  }
+
+  /** Repeated exact lookups on the unique slug column, case-sensitive and insensitive. */
+  private static void exactMatch(List<List<String>> rows, ColumnarTable table) {
+    Optional<Integer> slug = Optional.of(4);
+    for (boolean caseSensitive : new boolean[] {true, false}) {
+      long start = System.nanoTime();
+      int found = Searcher.search(rows, "county-77", slug, caseSensitive, false).size();
+      long scan = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      found += Searcher.matchingRows(table, "county-77", slug, caseSensitive, false).length;
+      long firstQuery = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < LOOKUPS; i++) {
+        found += Searcher.matchingRows(table, "COUNTY-" + i, slug, caseSensitive, false).length;
+      }
+      long repeated = (System.nanoTime() - start) / LOOKUPS;
+
+      System.out.printf(
+          "exact %-16s list scan %6.1f ms | first table query (builds index) %6.1f ms |"
+              + " repeated %6.2f us  [%d]%n",
+          caseSensitive ? "case-sensitive" : "case-insensitive",
+          scan / 1e6,
+          firstQuery / 1e6,
+          repeated / 1e3,
+          found);
+    }
+  }
+
+  /** Case-insensitive substring search on the geography column, with and without trigrams. */
+  private static void substringMatch(List<List<String>> rows, ColumnarTable table) {
+    Optional<Integer> geography = Optional.of(3);
+    long start = System.nanoTime();
+    int found = Searcher.search(rows, "us440777", geography, false, true).size();
+    long scan = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    found += Searcher.matchingRows(table, "us440777", geography, false, true).length;
+    long tableScan = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    table.buildTrigramIndexes();
+    long build = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      found += Searcher.matchingRows(table, "us44" + (i + 1000), geography, false, true).length;
+    }
+    long indexed = (System.nanoTime() - start) / LOOKUPS;
+    System.out.printf(
+        "substring list scan %6.1f ms | table scan %6.1f ms | trigram build %6.1f ms,"
+            + " %.1f MB | indexed query %6.2f us  [%d]%n",
+        scan / 1e6,
+        tableScan / 1e6,
+        build / 1e6,
+        table.indexMemoryBytes() / 1e6,
+        indexed / 1e3,
+        found);
+  }
+
+  private static List<String> row(int i) {
+    return List.of(
+        "Race " + (i % 7),
+        Integer.toString(50_000 + i % 40_000),
+        "County " + (i % 3000) + ", RI",
+        "05000US" + (44_000 + i),
+        "county-" + i);
+  }
+}
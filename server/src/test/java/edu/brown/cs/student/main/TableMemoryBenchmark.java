@@ -0,0 +1,61 @@
+package edu.brown.cs.student.main;
+
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the retained heap of a row-oriented {@code List<List<String>>} against a {@link
+ * ColumnarTable} holding the same synthetic census-like data. Not a JUnit test; run the main method
+ * directly.
+ */
+public class TableMemoryBenchmark {
+  private static final int ROWS = 500_000;
+
+  public static void main(String[] args) {
+    long baseline = usedHeap();
+    List<List<String>> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(row(i));
+    }
+    long rowBytes = usedHeap() - baseline;
+    rows = null;
+
+    baseline = usedHeap();
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < ROWS; i++) {
+      builder.addRow(row(i));
+    }
+    ColumnarTable table = builder.build();
+    builder = null;
+    long tableBytes = usedHeap() - baseline;
+
+    System.out.printf(
+        "%d rows: lists %.1f MB, columnar %.1f MB (estimate %.1f MB), %.1fx smaller%n",
+        table.rowCount(),
+        rowBytes / 1e6,
+        tableBytes / 1e6,
+        table.memoryBytes() / 1e6,
+        (double) rowBytes / tableBytes);
+  }
+
+  private static List<String> row(int i) {
+    List<String> row = new ArrayList<>();
+    row.add(Integer.toString(i % 7));
+    row.add("Race " + (i % 7));
+    row.add("2020");
+    row.add(Integer.toString(50_000 + i));
+    row.add("County " + (i % 3000) + ", RI");
+    row.add("05000US" + (44_000 + i));
+    return row;
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
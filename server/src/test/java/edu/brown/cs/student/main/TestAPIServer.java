@@ -1,23 +1,36 @@
 package edu.brown.cs.student.main;
 
 import static edu.brown.cs.student.main.JsonSerializer.JsonSerializer.fromJson;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
 import edu.brown.cs.student.main.ACSApi.datasource.MockACS;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
+import edu.brown.cs.student.main.server.BroadbandBatchHandler;
 import edu.brown.cs.student.main.server.BroadbandHandler;
 import edu.brown.cs.student.main.server.GetDataHandler;
 import edu.brown.cs.student.main.server.LoadHandler;
+import edu.brown.cs.student.main.server.LoadJobs;
+import edu.brown.cs.student.main.server.LoadStatusHandler;
 import edu.brown.cs.student.main.server.SearchHandler;
 import edu.brown.cs.student.main.server.SuccessResponse;
 import edu.brown.cs.student.main.server.ViewHandler;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import okio.Buffer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,8 +49,14 @@ import spark.Spark;
  */
 public class TestAPIServer {
 
-  /** Shared state for all tests. */
-  final ConcurrentHashMap<String, Object> state = new ConcurrentHashMap<String, Object>();
+  /** Loaded datasets shared by the CSV handlers. */
+  final DatasetRegistry datasets = new DatasetRegistry(1 << 20);
+
+  /** Parsed files shared by /loadcsv and /getData. */
+  final ParsedFileCache parsedFiles = new ParsedFileCache(1 << 20, datasets);
+
+  /** Background loads, run one at a time. */
+  final ExecutorService loader = Executors.newSingleThreadExecutor();
 
   @BeforeEach
   public void setup() {
@@ -45,11 +64,14 @@ public class TestAPIServer {
     Spark.awaitStop();
     Spark.port(0);
 
-    Spark.get("viewcsv", new ViewHandler(state));
-    Spark.get("loadcsv", new LoadHandler(state));
-    Spark.get("searchcsv", new SearchHandler(state));
+    Spark.get("viewcsv", new ViewHandler(datasets));
+    LoadJobs jobs = new LoadJobs(datasets, loader, parsedFiles);
+    Spark.get("loadcsv", new LoadHandler(jobs));
+    Spark.get("loadstatus", new LoadStatusHandler(jobs));
+    Spark.get("searchcsv", new SearchHandler(datasets));
     Spark.get("broadband", new BroadbandHandler(new MockACS()));
-    Spark.get("getData", new GetDataHandler());
+    Spark.get("broadbandBatch", new BroadbandBatchHandler(new MockACS()));
+    Spark.get("getData", new GetDataHandler(parsedFiles));
     Spark.init();
     Spark.awaitInitialization();
   }
@@ -58,11 +80,14 @@ public class TestAPIServer {
   public void teardown() {
     Spark.unmap("viewcsv");
     Spark.unmap("loadcsv");
+    Spark.unmap("loadstatus");
     Spark.unmap("searchcsv");
     Spark.unmap("broadband");
+    Spark.unmap("broadbandBatch");
     Spark.unmap("getData");
     Spark.stop();
     Spark.awaitStop();
+    loader.shutdownNow();
   }
 
   // @Test
@@ -146,6 +171,174 @@ public class TestAPIServer {
     assertEquals(response.get("message"), "Must load CSV first before viewing using /loadcsv");
   }
 
+  /**
+   * Tests paging and projecting a loaded file, and that an unchanged version is not sent again
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testViewPageAndProjection() throws IOException {
+    HttpURLConnection loadConnection = tryRequest("loadcsv?filepath=persons/people.csv&wait=true");
+    assertEquals(200, loadConnection.getResponseCode());
+    loadConnection.disconnect();
+
+    HttpURLConnection viewConnection = tryRequest("viewcsv?offset=2&limit=3&columns=2,0");
+    assertEquals(200, viewConnection.getResponseCode());
+    String etag = viewConnection.getHeaderField("ETag");
+    assertEquals("7", viewConnection.getHeaderField("X-Total-Rows"));
+    Map<String, Object> response = deserializeMapFromConnection(viewConnection);
+    assertEquals(2.0, response.get("offset"));
+    assertEquals(3.0, response.get("limit"));
+    assertEquals(7.0, response.get("totalRows"));
+    assertEquals(
+        List.of(List.of("Doctor", "Thao"), List.of("Doctor", "Fred"), List.of("Student", "Derick")),
+        response.get("data"));
+
+    HttpURLConnection unchanged =
+        (HttpURLConnection)
+            new URL("http://localhost:" + Spark.port() + "/viewcsv?offset=2").openConnection();
+    unchanged.setRequestProperty("If-None-Match", etag);
+    assertEquals(304, unchanged.getResponseCode());
+    unchanged.disconnect();
+
+    loadConnection = tryRequest("loadcsv?filepath=persons/people.csv&wait=true");
+    assertEquals(200, loadConnection.getResponseCode());
+    loadConnection.disconnect();
+    HttpURLConnection reloaded =
+        (HttpURLConnection)
+            new URL("http://localhost:" + Spark.port() + "/viewcsv?offset=6").openConnection();
+    reloaded.setRequestProperty("If-None-Match", etag);
+    assertEquals(200, reloaded.getResponseCode());
+    assertEquals(
+        List.of(List.of("Ba", "76", "Retired")),
+        deserializeMapFromConnection(reloaded).get("data"));
+
+    HttpURLConnection badColumn = tryRequest("viewcsv?columns=0,7");
+    assertEquals(400, badColumn.getResponseCode());
+    assertEquals("Column not found: 7", deserializeMapFromError(badColumn).get("message"));
+    HttpURLConnection badLimit = tryRequest("viewcsv?limit=-1");
+    assertEquals(400, badLimit.getResponseCode());
+  }
+
+  /**
+   * Tests that several files stay loaded at once and are viewed and searched by name
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMultipleDatasets() throws IOException {
+    HttpURLConnection loadConnection = tryRequest("loadcsv?filepath=persons/people.csv&wait=true");
+    assertEquals("persons/people.csv", deserializeMapFromConnection(loadConnection).get("dataset"));
+    loadConnection = tryRequest("loadcsv?filepath=stars/ten-star.csv&dataset=stars&wait=true");
+    assertEquals("stars", deserializeMapFromConnection(loadConnection).get("dataset"));
+
+    HttpURLConnection viewConnection = tryRequest("viewcsv?dataset=persons/people.csv&limit=1");
+    assertEquals(
+        List.of(List.of("Name", "Age", "Occupation")),
+        deserializeMapFromConnection(viewConnection).get("data"));
+    viewConnection = tryRequest("viewcsv?limit=1");
+    assertEquals(
+        List.of(List.of("StarID", "ProperName", "X", "Y", "Z")),
+        deserializeMapFromConnection(viewConnection).get("data"));
+
+    HttpURLConnection searchConnection =
+        tryRequest("searchcsv?dataset=persons/people.csv&query=Doctor&column=2");
+    assertEquals(2, ((List<?>) deserializeMapFromConnection(searchConnection).get("data")).size());
+
+    HttpURLConnection missing = tryRequest("viewcsv?dataset=planets");
+    assertEquals(400, missing.getResponseCode());
+    assertEquals(
+        "Dataset planets is not loaded; load it using /loadcsv",
+        deserializeMapFromError(missing).get("message"));
+  }
+
+  /**
+   * Tests that a load returns a job id straight away and reports its progress when it is done
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testBackgroundLoad() throws IOException {
+    HttpURLConnection loadConnection =
+        tryRequest("loadcsv?filepath=persons/people.csv&dataset=people");
+    assertEquals(202, loadConnection.getResponseCode());
+    Map<String, Object> started = deserializeMapFromConnection(loadConnection);
+    assertEquals("people", started.get("dataset"));
+    String jobId = (String) started.get("jobId");
+
+    HttpURLConnection viewConnection = tryRequest("viewcsv?dataset=people&wait=true&offset=6");
+    assertEquals(200, viewConnection.getResponseCode());
+    assertEquals(
+        List.of(List.of("Ba", "76", "Retired")),
+        deserializeMapFromConnection(viewConnection).get("data"));
+
+    HttpURLConnection statusConnection = tryRequest("loadstatus?wait=true&jobId=" + jobId);
+    Map<String, Object> status = deserializeMapFromConnection(statusConnection);
+    assertEquals("done", status.get("status"));
+    assertEquals(7.0, status.get("rows"));
+    assertEquals(status.get("totalBytes"), status.get("bytesRead"));
+
+    HttpURLConnection unknown = tryRequest("loadstatus?jobId=nope");
+    assertEquals(404, unknown.getResponseCode());
+    assertEquals("No load job with id nope", deserializeMapFromError(unknown).get("message"));
+  }
+
+  /**
+   * Tests that wait=true without a dataset name waits for the load started last
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testBackgroundLoadOfDefaultDataset() throws IOException {
+    CountDownLatch gate = holdLoader();
+
+    HttpURLConnection loadConnection = tryRequest("loadcsv?filepath=persons/people.csv");
+    assertEquals(202, loadConnection.getResponseCode());
+
+    HttpURLConnection pending = tryRequest("viewcsv");
+    assertEquals(400, pending.getResponseCode());
+    assertEquals(
+        "CSV is still loading; check /loadstatus or wait=true before viewing",
+        deserializeMapFromError(pending).get("message"));
+
+    CompletableFuture.runAsync(
+        gate::countDown, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+    HttpURLConnection viewConnection = tryRequest("viewcsv?wait=true&offset=6");
+    assertEquals(200, viewConnection.getResponseCode());
+    assertEquals(
+        List.of(List.of("Ba", "76", "Retired")),
+        deserializeMapFromConnection(viewConnection).get("data"));
+
+    CountDownLatch secondGate = holdLoader();
+    loadConnection = tryRequest("loadcsv?filepath=stars/ten-star.csv");
+    assertEquals(202, loadConnection.getResponseCode());
+
+    CompletableFuture.runAsync(
+        secondGate::countDown, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+    HttpURLConnection searchConnection = tryRequest("searchcsv?wait=true&query=Sol&column=1");
+    assertEquals(200, searchConnection.getResponseCode());
+    assertEquals(1, ((List<?>) deserializeMapFromConnection(searchConnection).get("data")).size());
+  }
+
+  /**
+   * Occupies the single loader thread, so loads submitted after this stay queued until the returned
+   * latch is counted down.
+   *
+   * @return The latch that releases the loader
+   */
+  private CountDownLatch holdLoader() {
+    CountDownLatch gate = new CountDownLatch(1);
+    loader.execute(
+        () -> {
+          try {
+            gate.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    return gate;
+  }
+
   /**
    * Tests when user attempts to search without loading
    *
@@ -267,11 +460,43 @@ public class TestAPIServer {
     connection.disconnect();
   }
 
+  /**
+   * Tests that the batch broadband handler returns found counties in order and lists the rest
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testBroadbandBatchHandler() throws IOException {
+    HttpURLConnection connection =
+        tryRequest(
+            "broadbandBatch?locations=Michigan:Kent,California:Orange,Michigan:Nowhere,Michigan:Wayne");
+    assertEquals(200, connection.getResponseCode());
+    Map<String, Object> response = deserializeMapFromConnection(connection);
+    assertEquals("success", response.get("result"));
+    List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
+    assertEquals(3, data.size());
+    assertEquals("Kent", data.get(0).get("county"));
+    assertEquals("Wayne", data.get(1).get("county"));
+    assertEquals("Orange", data.get(2).get("county"));
+    assertEquals(
+        List.of(Map.of("state", "Michigan", "county", "Nowhere")), response.get("notFound"));
+    connection.disconnect();
+
+    connection = tryRequest("broadbandBatch?locations=Michigan");
+    assertEquals(400, connection.getResponseCode());
+    Map<String, String> error = deserializeMapFromError(connection);
+    assertEquals("location 'Michigan' is not of the form state:county", error.get("message"));
+    connection.disconnect();
+  }
+
   @Test
   public void testGetDataHandler() throws IOException {
     HttpURLConnection connection = tryRequest("getData?filepath=persons/people.csv");
     assertEquals(200, connection.getResponseCode());
     Map<String, Object> response = deserializeMapFromConnection(connection);
+    // The second request is served from the parsed-file cache.
+    connection = tryRequest("getData?filepath=./persons/people.csv");
+    assertEquals(response, deserializeMapFromConnection(connection));
     List<List<String>> expected =
         List.of(
             List.of("Name", "Age", "Occupation"),
@@ -286,6 +511,95 @@ public class TestAPIServer {
     connection.disconnect();
   }
 
+  /**
+   * Tests that getData leaves out rows whose width differs from the first row's
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testGetDataHandlerRaggedRows() throws IOException {
+    HttpURLConnection connection = tryRequest("getData?filepath=malformed/malformed_signs.csv");
+    assertEquals(200, connection.getResponseCode());
+    Map<String, Object> response = deserializeMapFromConnection(connection);
+    assertEquals("success", response.get("result"));
+    List<?> content = (List<?>) response.get("content");
+    assertEquals(11, content.size());
+    assertEquals(List.of("Star Sign", "Member", ""), content.get(0));
+    assertEquals(List.of("Gemini", "Roberto", "Nick"), content.get(2));
+    assertEquals(List.of("Libra", "", ""), content.get(5));
+    connection.disconnect();
+  }
+
+  /**
+   * Tests that getData streams one JSON array per line when asked for NDJSON
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testGetDataHandlerNdjson() throws IOException {
+    HttpURLConnection connection = tryRequest("getData?filepath=persons/people.csv&format=ndjson");
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("application/x-ndjson", connection.getContentType());
+    String[] lines = new Buffer().readFrom(connection.getInputStream()).readUtf8().split("\n");
+    assertEquals(7, lines.length);
+    assertEquals("[\"Name\",\"Age\",\"Occupation\"]", lines[0]);
+    assertEquals(List.of("Ba", "76", "Retired"), fromJson(lines[6], List.class));
+    connection.disconnect();
+  }
+
+  /**
+   * Tests that format=csv sends the file's bytes as they are, honouring byte ranges, and only for
+   * files inside the data directory
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testGetDataHandlerRaw() throws IOException {
+    byte[] file = Files.readAllBytes(Path.of("data/persons/people.csv"));
+    HttpURLConnection connection = tryRequest("getData?filepath=persons/people.csv&format=csv");
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("bytes", connection.getHeaderField("Accept-Ranges"));
+    assertEquals(file.length, connection.getContentLengthLong());
+    assertArrayEquals(file, connection.getInputStream().readAllBytes());
+
+    connection = rangeRequest("bytes=5-8");
+    assertEquals(206, connection.getResponseCode());
+    assertEquals("bytes 5-8/" + file.length, connection.getHeaderField("Content-Range"));
+    assertArrayEquals(Arrays.copyOfRange(file, 5, 9), connection.getInputStream().readAllBytes());
+
+    connection = rangeRequest("bytes=-4");
+    assertEquals(206, connection.getResponseCode());
+    assertArrayEquals(
+        Arrays.copyOfRange(file, file.length - 4, file.length),
+        connection.getInputStream().readAllBytes());
+
+    connection = rangeRequest("bytes=" + file.length + "-");
+    assertEquals(416, connection.getResponseCode());
+    assertEquals("bytes */" + file.length, connection.getHeaderField("Content-Range"));
+
+    connection = tryRequest("getData?filepath=../pom.xml&format=csv");
+    assertEquals(400, connection.getResponseCode());
+    assertEquals(
+        "Filepath must be inside the data directory",
+        deserializeMapFromError(connection).get("message"));
+  }
+
+  /**
+   * Requests a byte range of the people file.
+   *
+   * @param range The Range header
+   * @return The connection
+   * @throws IOException
+   */
+  private static HttpURLConnection rangeRequest(String range) throws IOException {
+    URL requestURL =
+        new URL(
+            "http://localhost:" + Spark.port() + "/getData?filepath=persons/people.csv&format=csv");
+    HttpURLConnection connection = (HttpURLConnection) requestURL.openConnection();
+    connection.setRequestProperty("Range", range);
+    return connection;
+  }
+
   @Test
   public void testGetDataHandlerExceptions() throws IOException {
     HttpURLConnection connection = tryRequest("getData?filepath=persons/peopl.csv");
@@ -0,0 +1,93 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import Parser.CSVTokenizer;
+import Parser.Parser;
+import Parser.StateMachineTokenizer;
+import Parser.TrivialCreator;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RFC 4180 state-machine tokenizer. */
+public class TestCSVTokenizer {
+
+  /**
+   * Tests plain rows and the three supported line endings.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUnquotedRowsAndLineEndings() throws IOException {
+    CSVTokenizer tokenizer = new StateMachineTokenizer(new StringReader("a,b,c\r\nd,,f\rg,h,i\n"));
+    assertEquals(List.of("a", "b", "c"), tokenizer.nextRow());
+    assertEquals(List.of("d", "", "f"), tokenizer.nextRow());
+    assertEquals(List.of("g", "h", "i"), tokenizer.nextRow());
+    assertNull(tokenizer.nextRow());
+  }
+
+  /**
+   * Tests quoted fields with commas, escaped quotes and embedded line breaks.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testQuotedFields() throws IOException {
+    CSVTokenizer tokenizer =
+        new StateMachineTokenizer(
+            new StringReader(
+                "\"Bristol County, RI\",\"say \"\"hi\"\"\",\"two\nlines\"\n\"\",last"));
+    assertEquals(List.of("Bristol County, RI", "say \"hi\"", "two\nlines"), tokenizer.nextRow());
+    assertEquals(List.of("", "last"), tokenizer.nextRow());
+    assertNull(tokenizer.nextRow());
+  }
+
+  /**
+   * Tests that a record split by a quoted newline still counts as one row in the Parser.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testParserWithStateMachineTokenizer() throws IOException {
+    Parser<List<String>> parser =
+        new Parser<>(
+            new StateMachineTokenizer(
+                new StringReader("Name,Note\nColin,\"line one\nline two\"\nThao,ok\n")),
+            true,
+            new TrivialCreator());
+    parser.parse();
+    assertEquals(List.of("Name", "Note"), parser.getHeader());
+    assertEquals(
+        List.of(List.of("Colin", "line one\nline two"), List.of("Thao", "ok")),
+        parser.getParsedContent());
+    assertEquals(0, parser.getErrors().size());
+  }
+
+  /**
+   * Tests that the streaming iterator yields rows lazily and still records bad rows as errors.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testParserIteratorIsLazy() throws IOException {
+    Parser<List<String>> parser =
+        new Parser<>(
+            new StateMachineTokenizer(new StringReader("Name,Age\nColin,19\nbroken\nThao,52\n")),
+            true,
+            new TrivialCreator());
+    Iterator<List<String>> rows = parser.iterator();
+    assertNull(parser.getHeader());
+    assertEquals(List.of("Colin", "19"), rows.next());
+    assertEquals(List.of("Name", "Age"), parser.getHeader());
+    assertEquals(0, parser.getErrors().size());
+    assertEquals(List.of("Thao", "52"), rows.next());
+    assertEquals(1, parser.getErrors().size());
+    assertFalse(rows.hasNext());
+    assertEquals(0, parser.getParsedContent().size());
+  }
+}
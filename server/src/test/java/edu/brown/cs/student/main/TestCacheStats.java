@@ -0,0 +1,108 @@
+package edu.brown.cs.student.main;
+
+import static edu.brown.cs.student.main.TestAPIServer.tryRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.ACSApi.datasource.CachedACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.MockACS;
+import edu.brown.cs.student.main.Cache.CacheStats;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import edu.brown.cs.student.main.Cache.LRUCache;
+import edu.brown.cs.student.main.Cache.LatencyHistogram;
+import edu.brown.cs.student.main.Cache.TinyLFUCache;
+import edu.brown.cs.student.main.server.MetricsHandler;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import spark.Spark;
+
+/** Tests for cache statistics and the /metrics endpoint that reports them. */
+public class TestCacheStats {
+
+  @Test
+  public void testHistogramQuantilesAreWithinPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.valueAtQuantile(0.5));
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1_000);
+    }
+    assertEquals(1000, histogram.count());
+    assertEquals(500_500_000L, histogram.sumNanos());
+    for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+      double expected = quantile * 1_000_000;
+      double actual = histogram.valueAtQuantile(quantile);
+      assertTrue(Math.abs(actual - expected) / expected < 0.04, quantile + ": " + actual);
+    }
+    histogram.record(Long.MAX_VALUE);
+    assertTrue(histogram.valueAtQuantile(1.0) > 1_000_000_000_000L);
+  }
+
+  @Test
+  public void testCachesCountHitsMissesAndEvictions() {
+    for (var cache :
+        List.of(
+            new LRUCache<String, Integer>(2),
+            new ConcurrentLRUCache<String, Integer>(2),
+            new TinyLFUCache<String, Integer>(2))) {
+      cache.set("a", 1);
+      cache.get("a");
+      cache.get("b");
+      cache.set("b", 2);
+      cache.set("c", 3);
+      CacheStats stats = cache.stats();
+      assertEquals(1, stats.hitCount(), cache.getClass().getSimpleName());
+      assertEquals(1, stats.missCount(), cache.getClass().getSimpleName());
+      assertEquals(1, stats.evictionCount(), cache.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  public void testCachedApiRecordsLoads() throws Exception {
+    CachedACSApi cachedApi = new CachedACSApi(10, new MockACS());
+    cachedApi.getBroadbandData("Michigan", "Wayne");
+    cachedApi.getBroadbandData("Michigan", "Wayne");
+    assertThrows(
+        IllegalArgumentException.class, () -> cachedApi.getBroadbandData("Nowhere", "None"));
+    CacheStats stats = cachedApi.getCache().stats();
+    assertEquals(1, stats.loadSuccessCount());
+    assertEquals(1, stats.loadFailureCount());
+    assertEquals(2, stats.loadTimes().count());
+    assertEquals(1, stats.hitCount());
+  }
+
+  @Test
+  public void testMetricsEndpoint() throws Exception {
+    CachedACSApi cachedApi = new CachedACSApi(10, new MockACS());
+    cachedApi.getBroadbandData("Michigan", "Wayne");
+    cachedApi.getBroadbandData("Michigan", "Wayne");
+    Spark.stop();
+    Spark.awaitStop();
+    Spark.port(0);
+    Spark.get("metrics", new MetricsHandler(Map.of("broadband", cachedApi.getCache())));
+    Spark.init();
+    Spark.awaitInitialization();
+    try {
+      HttpURLConnection connection = tryRequest("metrics");
+      assertEquals(200, connection.getResponseCode());
+      assertTrue(connection.getContentType().startsWith("text/plain"));
+      String body = new Buffer().readFrom(connection.getInputStream()).readUtf8();
+      assertTrue(body.contains("# TYPE cache_hits_total counter\n"), body);
+      assertTrue(body.contains("cache_hits_total{cache=\"broadband\"} 1\n"), body);
+      assertTrue(body.contains("cache_misses_total{cache=\"broadband\"} 1\n"), body);
+      assertTrue(body.contains("cache_size{cache=\"broadband\"} 1\n"), body);
+      assertTrue(body.contains("cache_load_duration_seconds_count{cache=\"broadband\"} 1\n"), body);
+      assertTrue(
+          body.contains("cache_load_duration_seconds{cache=\"broadband\",quantile=\"0.99\"} "),
+          body);
+      connection.disconnect();
+    } finally {
+      Spark.unmap("metrics");
+      Spark.stop();
+      Spark.awaitStop();
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.brown.cs.student.main.ACSApi.datasource.ACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import edu.brown.cs.student.main.ACSApi.datasource.CensusClient;
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests the Census client and ACSApi against a local stub of the Census API. */
+public class TestCensusClient {
+  private static final String COUNTIES =
+      "[[\"NAME\",\"state\",\"county\"],"
+          + "[\"Kent County, Michigan\",\"26\",\"081\"],"
+          + "[\"Wayne County, Michigan\",\"26\",\"163\"],"
+          + "[\"Oakland County, Michigan\",\"26\",\"125\"]]";
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private final List<String> queries = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  public void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext(
+        "/data/2010/dec/sf1",
+        exchange -> {
+          queries.add(exchange.getRequestURI().getQuery());
+          respond(exchange, 200, COUNTIES);
+        });
+    server.createContext(
+        "/data/2021/acs/acs1/subject/variables",
+        exchange -> {
+          queries.add(exchange.getRequestURI().getQuery());
+          respond(
+              exchange,
+              200,
+              "[[\"NAME\",\"S2802_C03_022E\",\"state\",\"county\"],"
+                  + "[\"Kent County, Michigan\",\"75.3\",\"26\",\"081\"],"
+                  + "[\"Wayne County, Michigan\",\"81.5\",\"26\",\"163\"]]");
+        });
+    server.createContext("/broken", exchange -> respond(exchange, 503, "try later"));
+    server.start();
+  }
+
+  @AfterEach
+  public void teardown() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Tests that ACSApi fetches the FIPS directory once and then one request per lookup
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testACSApiAgainstStub() throws Exception {
+    ACSApi api = new ACSApi(client(Duration.ofSeconds(5), 4), (Cache<String, String>) null);
+    BroadbandData kent = api.getBroadbandData("Michigan", "Kent");
+    assertEquals(75.3f, (float) kent.percentage());
+    assertEquals("Kent", kent.county());
+
+    Map<String, BroadbandData> batch =
+        api.getBroadbandData("michigan", List.of("Wayne", "Oakland", "Kent"));
+    assertEquals(List.of("Wayne", "Kent"), List.copyOf(batch.keySet()));
+    assertEquals(3, queries.size());
+    assertEquals("get=NAME&for=county:*", queries.get(0));
+    assertTrue(queries.get(2).contains("for=county:163,125,081&in=state:26"));
+
+    assertThrows(IllegalArgumentException.class, () -> api.getBroadbandData("Michigan", "Nowhere"));
+    assertEquals(3, queries.size());
+  }
+
+  /**
+   * Tests that the directory is cached after it is fetched, and that a response with no content or
+   * no estimate means no data rather than an error
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCachedDirectoryAndMissingEstimates() throws Exception {
+    server.removeContext("/data/2021/acs/acs1/subject/variables");
+    server.createContext(
+        "/data/2021/acs/acs1/subject/variables",
+        exchange -> {
+          queries.add(exchange.getRequestURI().getQuery());
+          if (exchange.getRequestURI().getQuery().contains("county:125")) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+          } else {
+            respond(
+                exchange,
+                200,
+                "[[\"NAME\",\"S2802_C03_022E\",\"state\",\"county\"],"
+                    + "[\"Kent County, Michigan\",null,\"26\",\"081\"]]");
+          }
+        });
+    ConcurrentLRUCache<String, String> fipsCache = new ConcurrentLRUCache<>(4);
+    new ACSApi(client(Duration.ofSeconds(5), 4), fipsCache).preload();
+    assertEquals(1, queries.size());
+
+    ACSApi api = new ACSApi(client(Duration.ofSeconds(5), 4), fipsCache);
+    assertEquals(Map.of(), api.getBroadbandData("Michigan", List.of("Oakland")));
+    assertEquals(Map.of(), api.getBroadbandData("Michigan", List.of("Kent")));
+    assertThrows(IOException.class, () -> api.getBroadbandData("Michigan", "Kent"));
+    assertEquals(4, queries.size());
+  }
+
+  /**
+   * Tests that a directory load that fails with an error, rather than an exception, is tried again
+   * by the next caller instead of leaving it waiting for the failed load
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testPreloadAfterError() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    ConcurrentLRUCache<String, String> fipsCache =
+        new ConcurrentLRUCache<>(4) {
+          @Override
+          public Optional<String> get(String key) {
+            if (reads.getAndIncrement() == 0) {
+              throw new Error("cache is corrupt");
+            }
+            return super.get(key);
+          }
+        };
+    ACSApi api = new ACSApi(client(Duration.ofSeconds(5), 4), fipsCache);
+    assertThrows(Error.class, api::preload);
+    assertEquals(3, assertTimeoutPreemptively(Duration.ofSeconds(5), api::preload).countyCount());
+  }
+
+  /**
+   * Tests that error statuses are returned to the caller and slow responses time out
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testErrorsAndTimeouts() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    server.createContext(
+        "/slow",
+        exchange -> {
+          await(release);
+          respond(exchange, 200, "late");
+        });
+    HttpResponse<String> broken =
+        CensusClient.await(client(Duration.ofSeconds(10), 4).get("/broken"));
+    assertEquals(503, broken.statusCode());
+    assertEquals("try later", broken.body());
+
+    long start = System.nanoTime();
+    CensusClient impatient = client(Duration.ofMillis(500), 4);
+    assertThrows(HttpTimeoutException.class, () -> CensusClient.await(impatient.get("/slow")));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    release.countDown();
+  }
+
+  /**
+   * Tests that a response whose body stalls after the headers times out, closing the body and
+   * giving up its slot
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testStalledBodyTimesOut() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    server.createContext(
+        "/stalled",
+        exchange -> {
+          exchange.sendResponseHeaders(200, 1000);
+          OutputStream out = exchange.getResponseBody();
+          out.write("[[\"NAME\"],".getBytes(StandardCharsets.UTF_8));
+          out.flush();
+          await(release);
+          exchange.close();
+        });
+    CountDownLatch decoderExited = new CountDownLatch(1);
+    CensusClient client = client(Duration.ofSeconds(2), 1);
+    CompletableFuture<String> stalled =
+        client.get(
+            "/stalled",
+            body -> {
+              try {
+                return body.readUtf8();
+              } finally {
+                decoderExited.countDown();
+              }
+            });
+    long start = System.nanoTime();
+    assertThrows(HttpTimeoutException.class, () -> CensusClient.await(stalled));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(8));
+    assertTrue(decoderExited.await(5, TimeUnit.SECONDS));
+
+    // The only slot was given back, so the next request goes through.
+    assertEquals(503, client.get("/broken").get(5, TimeUnit.SECONDS).statusCode());
+    release.countDown();
+  }
+
+  /**
+   * Tests that requests beyond the concurrency limit wait until earlier ones finish
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrencyLimit() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    CountDownLatch twoArrived = new CountDownLatch(2);
+    server.createContext(
+        "/held",
+        exchange -> {
+          maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+          twoArrived.countDown();
+          await(release);
+          active.decrementAndGet();
+          respond(exchange, 200, "ok");
+        });
+    CensusClient client = client(Duration.ofSeconds(10), 2);
+    List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      futures.add(client.get("/held"));
+    }
+    assertTrue(twoArrived.await(5, TimeUnit.SECONDS));
+    assertEquals(4, client.queued());
+    release.countDown();
+    for (CompletableFuture<HttpResponse<String>> future : futures) {
+      assertEquals("ok", future.get(10, TimeUnit.SECONDS).body());
+    }
+    assertEquals(2, maxActive.get());
+    assertEquals(0, client.queued());
+  }
+
+  /**
+   * Returns a client for the stub server.
+   *
+   * @param requestTimeout The time allowed for each response.
+   * @param maxConcurrentRequests The number of requests that may be in progress at once.
+   * @return The client.
+   */
+  private CensusClient client(Duration requestTimeout, int maxConcurrentRequests) {
+    return new CensusClient(
+        "http://localhost:" + server.getAddress().getPort(),
+        Duration.ofSeconds(2),
+        requestTimeout,
+        maxConcurrentRequests);
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
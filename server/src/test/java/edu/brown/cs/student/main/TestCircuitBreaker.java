@@ -0,0 +1,190 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import edu.brown.cs.student.main.ACSApi.datasource.CachedACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
+import edu.brown.cs.student.main.ACSApi.datasource.CircuitBreaker;
+import edu.brown.cs.student.main.ACSApi.datasource.MockACS;
+import edu.brown.cs.student.main.ACSApi.datasource.ResilientDatasource;
+import edu.brown.cs.student.main.ACSApi.datasource.StateCountyKey;
+import edu.brown.cs.student.main.ACSApi.datasource.UpstreamUnavailableException;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** Tests the circuit breaker, the bulkhead and serving stale data while the upstream is down. */
+public class TestCircuitBreaker {
+
+  /** Tests that the breaker opens after consecutive failures and closes after a good trial call */
+  @Test
+  public void testBreakerStates() {
+    AtomicLong now = new AtomicLong();
+    CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), now::get);
+    for (int i = 0; i < 2; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.recordFailure();
+    }
+    assertTrue(breaker.tryAcquire());
+    breaker.recordSuccess();
+    for (int i = 0; i < 3; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.recordFailure();
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertTrue(breaker.tryAcquire());
+    breaker.recordSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertTrue(breaker.tryAcquire());
+    assertEquals(3, breaker.rejections());
+  }
+
+  /**
+   * Tests that upstream failures open the breaker but unknown counties do not
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testResilientDatasourceFailsFast() throws Exception {
+    AtomicBoolean down = new AtomicBoolean(true);
+    AtomicInteger calls = new AtomicInteger();
+    MockACS mock = new MockACS();
+    CensusDatasource flaky =
+        (state, county) -> {
+          calls.incrementAndGet();
+          if (down.get()) {
+            throw new IOException("upstream down");
+          }
+          return mock.getBroadbandData(state, county);
+        };
+    AtomicLong now = new AtomicLong();
+    ResilientDatasource resilient =
+        new ResilientDatasource(
+            flaky, new CircuitBreaker(2, Duration.ofSeconds(30), now::get), 4, Duration.ZERO);
+
+    down.set(false);
+    for (int i = 0; i < 3; i++) {
+      assertThrows(
+          IllegalArgumentException.class, () -> resilient.getBroadbandData("Michigan", "Nowhere"));
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, resilient.getBreaker().state());
+
+    down.set(true);
+    assertThrows(IOException.class, () -> resilient.getBroadbandData("Michigan", "Kent"));
+    assertThrows(IOException.class, () -> resilient.getBroadbandData("Michigan", "Kent"));
+    assertThrows(
+        UpstreamUnavailableException.class, () -> resilient.getBroadbandData("Michigan", "Kent"));
+    assertThrows(
+        UpstreamUnavailableException.class,
+        () -> resilient.getBroadbandData("Michigan", List.of("Kent", "Wayne")));
+    assertEquals(5, calls.get());
+
+    down.set(false);
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertEquals("Kent", resilient.getBroadbandData("Michigan", "Kent").county());
+    assertEquals(CircuitBreaker.State.CLOSED, resilient.getBreaker().state());
+  }
+
+  /**
+   * Tests that requests beyond the bulkhead's limit are refused instead of waiting
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBulkheadRejectsExcessCalls() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    MockACS mock = new MockACS();
+    CensusDatasource slow =
+        (state, county) -> {
+          entered.countDown();
+          release.await(10, TimeUnit.SECONDS);
+          return mock.getBroadbandData(state, county);
+        };
+    ResilientDatasource resilient =
+        new ResilientDatasource(
+            slow, new CircuitBreaker(5, Duration.ofSeconds(30)), 1, Duration.ofMillis(10));
+    CompletableFuture<BroadbandData> first =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return resilient.getBroadbandData("Michigan", "Kent");
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    assertThrows(
+        UpstreamUnavailableException.class, () -> resilient.getBroadbandData("Michigan", "Wayne"));
+    release.countDown();
+    assertEquals("Kent", first.get(5, TimeUnit.SECONDS).county());
+    assertEquals("Wayne", resilient.getBroadbandData("Michigan", "Wayne").county());
+  }
+
+  /**
+   * Tests that the last known data is served, marked stale, while the upstream refuses requests
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testServesStaleWhileOpen() throws Exception {
+    AtomicBoolean down = new AtomicBoolean(false);
+    MockACS mock = new MockACS();
+    CensusDatasource flaky =
+        (state, county) -> {
+          if (down.get()) {
+            throw new IOException("upstream down");
+          }
+          return mock.getBroadbandData(state, county);
+        };
+    ResilientDatasource resilient =
+        new ResilientDatasource(
+            flaky, new CircuitBreaker(1, Duration.ofMinutes(1)), 4, Duration.ZERO);
+    ConcurrentLRUCache<StateCountyKey, BroadbandData> cache = new ConcurrentLRUCache<>(1);
+    CachedACSApi api = new CachedACSApi(cache, resilient, new ConcurrentLRUCache<>(10));
+
+    BroadbandData kent = api.getBroadbandData("Michigan", "Kent");
+    assertFalse(kent.stale());
+    api.getBroadbandData("Michigan", "Wayne"); // evicts Kent from the main cache
+
+    down.set(true);
+    assertThrows(IOException.class, () -> api.getBroadbandData("Michigan", "Oakland"));
+    BroadbandData stale = api.getBroadbandData("Michigan", "Kent");
+    assertTrue(stale.stale());
+    assertEquals(kent.percentage(), stale.percentage());
+    assertEquals(1, api.getStaleServed());
+    assertThrows(
+        UpstreamUnavailableException.class, () -> api.getBroadbandData("Michigan", "Macomb"));
+
+    Map<String, BroadbandData> batch = api.getBroadbandData("Michigan", List.of("Kent", "Wayne"));
+    assertTrue(batch.get("Kent").stale());
+    assertFalse(batch.get("Wayne").stale());
+    assertThrows(
+        UpstreamUnavailableException.class,
+        () -> api.getBroadbandData("Michigan", List.of("Kent", "Macomb")));
+  }
+}
@@ -0,0 +1,201 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Parser.Parser;
+import Parser.StateMachineTokenizer;
+import Parser.TrivialCreator;
+import Searcher.Searcher;
+import edu.brown.cs.student.main.Table.ArenaColumn;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.DictionaryColumn;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the columnar table and searching over it. */
+public class TestColumnarTable {
+
+  /**
+   * Tests that a loaded file round-trips through the table and that repetitive columns are
+   * dictionary-encoded.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testLoadPeopleIntoTable() throws IOException {
+    ColumnarTable table;
+    try (FileReader reader = new FileReader("data/persons/people.csv")) {
+      table =
+          ColumnarTableBuilder.fromParser(
+              new Parser<>(new StateMachineTokenizer(reader), true, new TrivialCreator()));
+    }
+    assertEquals(List.of("Name", "Age", "Occupation"), table.getHeader());
+    assertEquals(6, table.rowCount());
+    assertEquals(3, table.columnCount());
+    assertEquals(List.of("Thao", "52", "Doctor"), table.getRow(1));
+    assertEquals(2, table.columnNameToIndex("Occupation"));
+  }
+
+  /** Tests that a column with few distinct values is dictionary-encoded. */
+  @Test
+  public void testRepetitiveColumnUsesDictionary() {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 1000; i++) {
+      builder.addRow(List.of(Integer.toString(i), i % 2 == 0 ? "Student" : "Doctor"));
+    }
+    ColumnarTable table = builder.build();
+    assertTrue(table.column(0) instanceof ArenaColumn);
+    assertTrue(table.column(1) instanceof DictionaryColumn);
+    assertEquals(List.of("999", "Doctor"), table.getRow(999));
+  }
+
+  /** Tests that columns of unique values are kept in a byte arena, including non-ASCII text. */
+  @Test
+  public void testArenaColumnKeepsUnicode() {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    builder.addRow(List.of("São Paulo", "1"));
+    builder.addRow(List.of("Zürich", "2"));
+    builder.addRow(List.of("", "3"));
+    ColumnarTable table = builder.build();
+    assertTrue(table.column(0) instanceof ArenaColumn);
+    assertEquals(
+        List.of(List.of("São Paulo", "1"), List.of("Zürich", "2"), List.of("", "3")),
+        table.asRows());
+  }
+
+  /** Tests column and row-wide searches against the table. */
+  @Test
+  public void testSearchTable() {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(List.of("Name", "Occupation"));
+    builder.addRow(List.of("Colin", "Student"));
+    builder.addRow(List.of("Fred", "Doctor"));
+    builder.addRow(List.of("Derick", "Student"));
+    ColumnarTable table = builder.build();
+
+    assertArrayEquals(
+        new int[] {0, 2}, Searcher.matchingRows(table, "Student", Optional.of(1), true, false));
+    assertArrayEquals(
+        new int[] {1, 2}, Searcher.matchingRows(table, "R", Optional.empty(), false, true));
+    assertEquals(
+        List.of(List.of("Fred", "Doctor")),
+        Searcher.search(table, "doctor", Optional.of(1), false, false));
+  }
+
+  /** Tests exact-match lookups through the lazily built column indexes. */
+  @Test
+  public void testExactMatchIndex() {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 1000; i++) {
+      builder.addRow(List.of("id" + i, i % 2 == 0 ? "Student" : "STUDENT"));
+    }
+    ColumnarTable table = builder.build();
+
+    assertEquals(500, Searcher.matchingRows(table, "Student", Optional.of(1), true, false).length);
+    assertEquals(
+        1000, Searcher.matchingRows(table, "student", Optional.of(1), false, false).length);
+    assertArrayEquals(
+        new int[] {7}, Searcher.matchingRows(table, "ID7", Optional.empty(), false, false));
+    assertArrayEquals(
+        new int[0], Searcher.matchingRows(table, "ID7", Optional.empty(), true, false));
+    assertTrue(table.indexMemoryBytes() > 0);
+  }
+
+  /** Tests that trigram-narrowed substring searches agree with a full scan. */
+  @Test
+  public void testTrigramIndexMatchesScan() {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 2000; i++) {
+      builder.addRow(List.of("County " + i + ", RI", "slug-" + (i * 7919 % 2000)));
+    }
+    ColumnarTable plain = builder.build();
+    builder = new ColumnarTableBuilder(null);
+    for (List<String> row : plain.asRows()) {
+      builder.addRow(row);
+    }
+    ColumnarTable indexed = builder.build();
+    indexed.buildTrigramIndexes();
+    assertTrue(indexed.indexMemoryBytes() > 0);
+
+    for (String query : List.of("county 19", "Y 19", "19, r", "g-12", "zzz", "ty", "COUNTY 1")) {
+      for (boolean caseSensitive : new boolean[] {true, false}) {
+        assertArrayEquals(
+            Searcher.matchingRows(plain, query, Optional.empty(), caseSensitive, true),
+            Searcher.matchingRows(indexed, query, Optional.empty(), caseSensitive, true),
+            query);
+      }
+    }
+  }
+
+  @Test
+  public void testCaseFoldedScanMatchesListSearch() {
+    List<List<String>> rows =
+        List.of(
+            List.of("Zoë Ångström", "RI"),
+            List.of("ZOË ÅNGSTRÖM", "ri"),
+            List.of("zoe angstrom", "Ri"),
+            List.of("", "MA"));
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    rows.forEach(builder::addRow);
+    ColumnarTable table = builder.build();
+    assertTrue(table.column(0) instanceof ArenaColumn);
+
+    for (String query : List.of("zoë", "ÅNG", "ngstr", "Ri", "", "x")) {
+      for (boolean caseSensitive : new boolean[] {true, false}) {
+        assertEquals(
+            Searcher.search(rows, query, Optional.empty(), caseSensitive, true),
+            Searcher.search(table, query, Optional.empty(), caseSensitive, true),
+            query);
+      }
+    }
+    assertTrue(table.indexMemoryBytes() > 0);
+  }
+
+  /**
+   * Tests that list and table searches fold non-ASCII text the same way, including characters whose
+   * lowercase form is longer or depends on the characters around them
+   */
+  @Test
+  public void testNonAsciiFoldingMatchesListSearch() {
+    List<String> cells =
+        List.of("İstanbul", "ISTANBUL", "ıspanak", "ΣΊΣΥΦΟΣ", "Straße", "STRASSE", "\u212Aelvin");
+    List<List<String>> distinct = cells.stream().map(cell -> List.of(cell, cell + "!")).toList();
+    List<List<String>> repeated = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      repeated.add(List.of(cells.get(i % cells.size())));
+    }
+
+    for (List<List<String>> rows : List.of(distinct, repeated)) {
+      ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+      rows.forEach(builder::addRow);
+      ColumnarTable table = builder.build();
+      assertTrue(
+          rows == distinct
+              ? table.column(0) instanceof ArenaColumn
+              : table.column(0) instanceof DictionaryColumn);
+      for (String query :
+          List.of(
+              "i\u0307stanbul",
+              "İSTANBUL",
+              "istanbul",
+              "ıspanak",
+              "IS",
+              "σίσυφος",
+              "ς",
+              "kelvin")) {
+        for (boolean substringMatch : new boolean[] {true, false}) {
+          assertEquals(
+              Searcher.search(rows, query, Optional.empty(), false, substringMatch),
+              Searcher.search(table, query, Optional.empty(), false, substringMatch),
+              query);
+        }
+      }
+    }
+  }
+}
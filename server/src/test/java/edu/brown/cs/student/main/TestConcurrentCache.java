@@ -0,0 +1,154 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import edu.brown.cs.student.main.ACSApi.datasource.CachedACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the thread-safe LRU cache and the request coalescing in CachedACSApi. */
+public class TestConcurrentCache {
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ConcurrentLRUCache<String, Integer> cache = new ConcurrentLRUCache<>(2);
+    cache.set("a", 1);
+    cache.set("b", 2);
+    assertEquals(Optional.of(1), cache.get("a"));
+    cache.set("c", 3);
+    assertEquals(Optional.empty(), cache.get("b"));
+    assertEquals(Optional.of(1), cache.get("a"));
+    assertEquals(Optional.of(3), cache.get("c"));
+    cache.set("a", 4);
+    assertEquals(Optional.of(4), cache.get("a"));
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * Hammers one cache from many threads with a mix of reads and writes. Every value read back must
+   * be one that was written for that key, and the cache must never grow past its capacity.
+   */
+  @Test
+  public void testConcurrentReadsAndWrites() throws Exception {
+    int capacity = 100;
+    int threads = 16;
+    ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(capacity);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int hits = 0;
+                for (int i = 0; i < 50_000; i++) {
+                  int key = random.nextInt(500);
+                  if (random.nextInt(10) == 0) {
+                    cache.set(key, key * 2);
+                  } else {
+                    Optional<Integer> value = cache.get(key);
+                    if (value.isPresent()) {
+                      assertEquals(key * 2, value.get());
+                      hits++;
+                    }
+                  }
+                  assertTrue(cache.size() <= capacity);
+                }
+                return hits;
+              }));
+    }
+    start.countDown();
+    int hits = 0;
+    for (Future<Integer> result : results) {
+      hits += result.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(hits > 0);
+    assertEquals(capacity, cache.size());
+
+    // The recency list must still be intact: filling the cache with new keys evicts every old one.
+    for (int key = 1000; key < 1000 + capacity; key++) {
+      cache.set(key, key * 2);
+    }
+    assertEquals(capacity, cache.size());
+    for (int key = 0; key < 500; key++) {
+      assertEquals(Optional.empty(), cache.get(key));
+    }
+  }
+
+  /** Concurrent misses on one key must reach the upstream datasource only once. */
+  @Test
+  public void testConcurrentMissesShareOneRequest() throws Exception {
+    AtomicInteger upstreamCalls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    CensusDatasource slowSource =
+        (state, county) -> {
+          upstreamCalls.incrementAndGet();
+          release.await();
+          return new BroadbandData(50.0, state, county, LocalDateTime.of(2024, 1, 1, 0, 0));
+        };
+    CachedACSApi cachedApi = new CachedACSApi(10, slowSource);
+    int callers = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    List<Future<BroadbandData>> results = new ArrayList<>();
+    for (int i = 0; i < callers; i++) {
+      results.add(executor.submit(() -> cachedApi.getBroadbandData("Michigan", "Wayne")));
+    }
+    while (upstreamCalls.get() + cachedApi.getCoalesced() < callers) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    for (Future<BroadbandData> result : results) {
+      assertEquals(50.0, result.get().percentage());
+    }
+    executor.shutdown();
+    assertEquals(1, upstreamCalls.get());
+    assertEquals(callers - 1, cachedApi.getCoalesced());
+  }
+
+  /** A failed upstream request fails every caller waiting on it, and is not cached. */
+  @Test
+  public void testCoalescedFailureIsShared() throws Exception {
+    AtomicInteger upstreamCalls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    CensusDatasource failingSource =
+        (state, county) -> {
+          upstreamCalls.incrementAndGet();
+          release.await();
+          throw new IllegalStateException("upstream down");
+        };
+    CachedACSApi cachedApi = new CachedACSApi(10, failingSource);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<BroadbandData> first = executor.submit(() -> cachedApi.getBroadbandData("RI", "Kent"));
+    Future<BroadbandData> second = executor.submit(() -> cachedApi.getBroadbandData("RI", "Kent"));
+    while (upstreamCalls.get() + cachedApi.getCoalesced() < 2) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    for (Future<BroadbandData> result : List.of(first, second)) {
+      ExecutionException e = assertThrows(ExecutionException.class, result::get);
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    executor.shutdown();
+    assertEquals(0, cachedApi.getCache().size());
+  }
+}
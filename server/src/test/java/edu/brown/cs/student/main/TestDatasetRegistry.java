@@ -0,0 +1,80 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the registry of named datasets. */
+public class TestDatasetRegistry {
+
+  /** Tests that datasets are evicted least recently used first once over the budget */
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    long bytes = table("a").memoryBytes();
+    DatasetRegistry registry = new DatasetRegistry(bytes * 5 / 2);
+    registry.put("a", table("a"));
+    registry.put("b", table("b"));
+    registry.acquire("a").orElseThrow().close();
+    registry.put("c", table("c"));
+    assertEquals(List.of("a", "c"), registry.names());
+    assertEquals(1, registry.evictions());
+    assertTrue(registry.acquire("b").isEmpty());
+  }
+
+  /** Tests that a leased dataset is kept over the budget and evicted once the lease closes */
+  @Test
+  public void testLeasedDatasetIsNotEvicted() {
+    long bytes = table("a").memoryBytes();
+    DatasetRegistry registry = new DatasetRegistry(bytes * 3 / 2);
+    registry.put("a", table("a"));
+    DatasetRegistry.Lease lease = registry.acquire("a").orElseThrow();
+    registry.put("b", table("b"));
+    assertEquals(List.of("a", "b"), registry.names());
+    assertEquals("a0", lease.dataset().table().get(0, 0));
+
+    lease.close();
+    lease.close();
+    assertEquals(List.of("b"), registry.names());
+    assertEquals(1, registry.evictions());
+  }
+
+  /** Tests that a name can be loaded again and that no name means the latest load */
+  @Test
+  public void testReplaceAndLatest() {
+    DatasetRegistry registry = new DatasetRegistry(1 << 20);
+    DatasetRegistry.Dataset first = registry.put("people", table("old"));
+    try (DatasetRegistry.Lease old = registry.acquire("people").orElseThrow()) {
+      DatasetRegistry.Dataset second = registry.put("people", table("new"));
+      assertNotEquals(first.version(), second.version());
+      assertEquals("old0", old.dataset().table().get(0, 0));
+      try (DatasetRegistry.Lease latest = registry.acquire(null).orElseThrow()) {
+        assertSame(second, latest.dataset());
+      }
+    }
+    registry.put("stars", table("star"));
+    assertTrue(registry.remove("stars"));
+    assertTrue(registry.acquire(null).isEmpty());
+    assertEquals(List.of("people"), registry.names());
+  }
+
+  /**
+   * Builds a small table whose cells start with the given prefix.
+   *
+   * @param prefix The prefix of every cell.
+   * @return The table.
+   */
+  private static ColumnarTable table(String prefix) {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 100; i++) {
+      builder.addRow(List.of(prefix + i, prefix + (i * 7)));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,216 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
+import edu.brown.cs.student.main.ACSApi.datasource.StateCountyKey;
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import edu.brown.cs.student.main.Cache.DiskCache;
+import edu.brown.cs.student.main.Cache.ExpiringCache;
+import edu.brown.cs.student.main.Cache.TieredCache;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the file-backed cache and the tiered cache built on it. */
+public class TestDiskCache {
+  private static final StateCountyKey WAYNE = new StateCountyKey("Michigan", "Wayne");
+  private static final BroadbandData WAYNE_DATA =
+      new BroadbandData(81.5, "Michigan", "Wayne", LocalDateTime.of(2018, 6, 14, 10, 30, 0));
+
+  @TempDir Path directory;
+
+  private DiskCache<StateCountyKey, BroadbandData> open(Path file, Clock clock) throws IOException {
+    return new DiskCache<>(
+        file, StateCountyKey.class, BroadbandData.class, Duration.ofHours(1), clock);
+  }
+
+  @Test
+  public void testEntriesSurviveReopening() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    Clock clock = Clock.systemUTC();
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, clock)) {
+      cache.set(WAYNE, WAYNE_DATA);
+      cache.set(new StateCountyKey("Ohio", "Lake"), WAYNE_DATA);
+      cache.set(WAYNE, new BroadbandData(90.0, "Michigan", "Wayne", WAYNE_DATA.dateTime()));
+    }
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, clock)) {
+      assertEquals(2, cache.size());
+      assertEquals(90.0, cache.get(WAYNE).get().percentage());
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(new StateCountyKey("Ohio", "Lake")));
+      assertEquals(Optional.empty(), cache.get(new StateCountyKey("Ohio", "Erie")));
+    }
+  }
+
+  @Test
+  public void testExpiredEntriesAreDroppedOnReplay() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    try (DiskCache<StateCountyKey, BroadbandData> cache =
+        open(file, Clock.fixed(start, ZoneOffset.UTC))) {
+      cache.set(WAYNE, WAYNE_DATA);
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(WAYNE));
+    }
+    Clock later = Clock.fixed(start.plus(Duration.ofMinutes(61)), ZoneOffset.UTC);
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, later)) {
+      assertEquals(0, cache.size());
+      assertEquals(Optional.empty(), cache.get(WAYNE));
+    }
+  }
+
+  @Test
+  public void testHalfWrittenLineIsTruncated() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      cache.set(WAYNE, WAYNE_DATA);
+    }
+    long intact = Files.size(file);
+    Files.write(
+        file,
+        "{\"writtenAt\":1,\"key\":{\"sta".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(WAYNE));
+      assertEquals(intact, Files.size(file));
+      cache.set(new StateCountyKey("Ohio", "Lake"), WAYNE_DATA);
+    }
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      assertEquals(2, cache.size());
+    }
+  }
+
+  @Test
+  public void testRewritesCompactTheFile() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      for (int i = 0; i < 5_000; i++) {
+        cache.set(
+            new StateCountyKey("Michigan", "County " + i % 10),
+            new BroadbandData(i, "Michigan", "County " + i % 10, WAYNE_DATA.dateTime()));
+      }
+      assertTrue(cache.fileBytes() < 200_000, "file was not compacted: " + cache.fileBytes());
+      assertEquals(
+          4_999.0, cache.get(new StateCountyKey("Michigan", "County 9")).get().percentage());
+    }
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      assertEquals(10, cache.size());
+      assertEquals(
+          4_990.0, cache.get(new StateCountyKey("Michigan", "County 0")).get().percentage());
+    }
+  }
+
+  @Test
+  public void testFailedCompactionKeepsTheOldFile() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    StateCountyKey lake = new StateCountyKey("Ohio", "Lake");
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      cache.set(WAYNE, WAYNE_DATA);
+      cache.set(lake, WAYNE_DATA);
+      cache.set(WAYNE, new BroadbandData(90.0, "Michigan", "Wayne", WAYNE_DATA.dateTime()));
+
+      // A directory where the rewritten file should go makes the rewrite fail.
+      Path blocked = Files.createDirectory(directory.resolve("broadband.jsonl.compact"));
+      Files.writeString(blocked.resolve("keep"), "");
+      long before = Files.size(file);
+      assertThrows(IOException.class, cache::compact);
+      assertEquals(before, Files.size(file));
+      assertEquals(90.0, cache.get(WAYNE).get().percentage());
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(lake));
+
+      Files.delete(blocked.resolve("keep"));
+      Files.delete(blocked);
+      cache.compact();
+      assertTrue(Files.size(file) < before);
+      assertEquals(90.0, cache.get(WAYNE).get().percentage());
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(lake));
+    }
+    try (DiskCache<StateCountyKey, BroadbandData> cache = open(file, Clock.systemUTC())) {
+      assertEquals(2, cache.size());
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(lake));
+    }
+  }
+
+  @Test
+  public void testTieredCacheWarmsMemoryFromDisk() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    try (DiskCache<StateCountyKey, BroadbandData> disk = open(file, Clock.systemUTC())) {
+      new TieredCache<>(new ConcurrentLRUCache<>(10), disk).set(WAYNE, WAYNE_DATA);
+    }
+    ConcurrentLRUCache<StateCountyKey, BroadbandData> memory = new ConcurrentLRUCache<>(10);
+    try (DiskCache<StateCountyKey, BroadbandData> disk = open(file, Clock.systemUTC())) {
+      TieredCache<StateCountyKey, BroadbandData> cache = new TieredCache<>(memory, disk);
+      assertEquals(Optional.of(WAYNE_DATA), memory.get(WAYNE));
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(WAYNE));
+    }
+  }
+
+  @Test
+  public void testEntriesFromDiskKeepTheirAge() throws IOException {
+    Path file = directory.resolve("broadband.jsonl");
+    StateCountyKey lake = new StateCountyKey("Ohio", "Lake");
+    Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    try (DiskCache<StateCountyKey, BroadbandData> disk =
+        new DiskCache<>(
+            file,
+            StateCountyKey.class,
+            BroadbandData.class,
+            Duration.ofDays(1),
+            Clock.fixed(start, ZoneOffset.UTC))) {
+      disk.set(WAYNE, WAYNE_DATA);
+    }
+    Instant later = start.plus(Duration.ofMinutes(65));
+    try (DiskCache<StateCountyKey, BroadbandData> disk =
+        new DiskCache<>(
+            file,
+            StateCountyKey.class,
+            BroadbandData.class,
+            Duration.ofDays(1),
+            Clock.fixed(later, ZoneOffset.UTC))) {
+      disk.set(lake, WAYNE_DATA);
+    }
+
+    // Two hours after the first write, Wayne is two hours old and Lake is 55 minutes old.
+    AtomicLong now = new AtomicLong(Duration.ofDays(3).toNanos());
+    List<Runnable> refreshes = new ArrayList<>();
+    ExpiringCache<StateCountyKey, BroadbandData> memory =
+        new ExpiringCache<>(
+            new ConcurrentLRUCache<>(10),
+            Duration.ofHours(1),
+            Duration.ofMinutes(50),
+            key -> WAYNE_DATA,
+            refreshes::add,
+            now::get);
+    try (DiskCache<StateCountyKey, BroadbandData> disk =
+        new DiskCache<>(
+            file,
+            StateCountyKey.class,
+            BroadbandData.class,
+            Duration.ofDays(1),
+            Clock.fixed(start.plus(Duration.ofHours(2)), ZoneOffset.UTC))) {
+      TieredCache<StateCountyKey, BroadbandData> cache = new TieredCache<>(memory, disk);
+      assertEquals(Optional.empty(), memory.get(WAYNE));
+      assertEquals(Optional.empty(), cache.get(WAYNE));
+
+      // Lake is served, but it is already due for a refresh and expires five minutes later.
+      assertEquals(Optional.of(WAYNE_DATA), cache.get(lake));
+      assertEquals(1, refreshes.size());
+      now.addAndGet(Duration.ofMinutes(5).toNanos());
+      assertEquals(Optional.empty(), memory.get(lake));
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.brown.cs.student.main.Cache.ConcurrentLRUCache;
+import edu.brown.cs.student.main.Cache.ExpiringCache;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** Tests for time-based expiry and refresh-ahead, driven by a fake clock. */
+public class TestExpiringCache {
+  private final AtomicLong now = new AtomicLong();
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    ExpiringCache<String, Integer> cache =
+        new ExpiringCache<>(
+            new ConcurrentLRUCache<>(10),
+            Duration.ofMinutes(10),
+            Duration.ofMinutes(10),
+            null,
+            Runnable::run,
+            now::get);
+    cache.set("a", 1);
+    advance(Duration.ofMinutes(9));
+    assertEquals(Optional.of(1), cache.get("a"));
+    advance(Duration.ofMinutes(1));
+    assertEquals(Optional.empty(), cache.get("a"));
+    cache.set("a", 2);
+    assertEquals(Optional.of(2), cache.get("a"));
+  }
+
+  @Test
+  public void testReadsNearExpiryRefreshInBackground() {
+    AtomicInteger loads = new AtomicInteger();
+    List<Runnable> queued = new ArrayList<>();
+    ExpiringCache<String, Integer> cache =
+        new ExpiringCache<>(
+            new ConcurrentLRUCache<>(10),
+            Duration.ofMinutes(10),
+            Duration.ofMinutes(8),
+            key -> 100 + loads.incrementAndGet(),
+            queued::add,
+            now::get);
+    cache.set("hot", 1);
+    cache.set("cold", 1);
+
+    advance(Duration.ofMinutes(7));
+    assertEquals(Optional.of(1), cache.get("hot"));
+    assertEquals(0, queued.size());
+
+    // Past the refresh interval the old value is still served, and only one reload is queued.
+    advance(Duration.ofMinutes(2));
+    assertEquals(Optional.of(1), cache.get("hot"));
+    assertEquals(Optional.of(1), cache.get("hot"));
+    assertEquals(1, queued.size());
+    queued.remove(0).run();
+    assertEquals(Optional.of(101), cache.get("hot"));
+
+    // The refreshed key outlives the original time to live; the unread one does not.
+    advance(Duration.ofMinutes(5));
+    assertEquals(Optional.of(101), cache.get("hot"));
+    assertEquals(Optional.empty(), cache.get("cold"));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testFailedRefreshKeepsServingUntilExpiry() {
+    ExpiringCache<String, Integer> cache =
+        new ExpiringCache<>(
+            new ConcurrentLRUCache<>(10),
+            Duration.ofMinutes(10),
+            Duration.ofMinutes(5),
+            key -> {
+              throw new IllegalStateException("upstream down");
+            },
+            Runnable::run,
+            now::get);
+    cache.set("a", 1);
+    advance(Duration.ofMinutes(6));
+    assertEquals(Optional.of(1), cache.get("a"));
+    assertEquals(Optional.of(1), cache.get("a"));
+    advance(Duration.ofMinutes(4));
+    assertEquals(Optional.empty(), cache.get("a"));
+  }
+}
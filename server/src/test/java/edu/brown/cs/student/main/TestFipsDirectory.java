@@ -0,0 +1,98 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.brown.cs.student.main.ACSApi.datasource.ACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.FipsDirectory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for the FIPS directory. */
+public class TestFipsDirectory {
+  private static final String RESPONSE =
+      "[[\"NAME\",\"state\",\"county\"],"
+          + "[\"Kent County, Michigan\",\"26\",\"081\"],"
+          + "[\"Wayne County, Michigan\",\"26\",\"163\"],"
+          + "[\"Los Angeles County, California\",\"06\",\"037\"],"
+          + "[\"Kent County, Rhode Island\",\"44\",\"003\"],"
+          + "[\"Orleans Parish, Louisiana\",\"22\",\"071\"]]";
+
+  /**
+   * Tests that names are looked up regardless of case, spacing and a trailing "County"
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testLookups() throws IOException {
+    FipsDirectory directory = FipsDirectory.parse(RESPONSE);
+    assertEquals(4, directory.stateCount());
+    assertEquals(5, directory.countyCount());
+
+    assertEquals(26, directory.stateCode("Michigan"));
+    assertEquals(44, directory.stateCode("rhode island"));
+    assertEquals(44, directory.stateCode("RhodeIsland"));
+    assertEquals(-1, directory.stateCode("Atlantis"));
+
+    assertEquals(81, directory.countyCode(26, "Kent"));
+    assertEquals(3, directory.countyCode(44, "kent"));
+    assertEquals(37, directory.countyCode(6, "Los Angeles County"));
+    assertEquals(37, directory.countyCode(6, "losangeles"));
+    assertEquals(71, directory.countyCode(22, "Orleans Parish"));
+    assertEquals(-1, directory.countyCode(26, "Los Angeles"));
+    assertEquals(-1, directory.countyCode(99, "Kent"));
+    assertEquals(-1, directory.countyCode(-1, "Kent"));
+  }
+
+  /**
+   * Tests loading a snapshot file and rejecting malformed ones
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testSnapshot(@TempDir Path dir) throws IOException {
+    Path snapshot = dir.resolve("fips.json");
+    Files.writeString(snapshot, RESPONSE);
+    assertEquals(163, FipsDirectory.load(snapshot).countyCode(26, "wayne"));
+
+    Files.writeString(
+        snapshot, "[[\"NAME\",\"state\",\"county\"],[\"Kent County\",\"26\",\"081\"]]");
+    assertThrows(IOException.class, () -> FipsDirectory.load(snapshot));
+    Files.writeString(
+        snapshot, "[[\"NAME\",\"state\",\"county\"],[\"Kent, Michigan\",\"x\",\"1\"]]");
+    assertThrows(IOException.class, () -> FipsDirectory.load(snapshot));
+  }
+
+  /**
+   * Tests that a written directory reads back with the same lookups
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteReadsBack() throws IOException {
+    FipsDirectory directory = FipsDirectory.parse(FipsDirectory.parse(RESPONSE).toJson());
+    assertEquals(4, directory.stateCount());
+    assertEquals(5, directory.countyCount());
+    assertEquals(37, directory.countyCode(directory.stateCode("California"), "Los Angeles"));
+    assertEquals(71, directory.countyCode(directory.stateCode("Louisiana"), "orleans parish"));
+    assertEquals(3, directory.countyCode(directory.stateCode("Rhode Island"), "Kent County"));
+  }
+
+  /**
+   * Tests that an ACSApi with a preloaded directory rejects unknown places without any request
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testPreloadedApiRejectsUnknownPlaces() throws Exception {
+    ACSApi api = new ACSApi(FipsDirectory.parse(RESPONSE));
+    assertThrows(IllegalArgumentException.class, () -> api.getBroadbandData("Atlantis", "Kent"));
+    assertThrows(IllegalArgumentException.class, () -> api.getBroadbandData("Michigan", "Nowhere"));
+    assertEquals(Map.of(), api.getBroadbandData("Michigan", List.of("Nowhere", "Elsewhere")));
+  }
+}
@@ -2,19 +2,24 @@ package edu.brown.cs.student.main;
 
 import static edu.brown.cs.student.main.TestAPIServer.tryRequest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.brown.cs.student.main.ACSApi.datasource.BroadbandData;
 import edu.brown.cs.student.main.ACSApi.datasource.CachedACSApi;
+import edu.brown.cs.student.main.ACSApi.datasource.CensusDatasource;
 import edu.brown.cs.student.main.ACSApi.datasource.MockACS;
 import edu.brown.cs.student.main.ACSApi.datasource.StateCountyKey;
 import edu.brown.cs.student.main.Cache.CacheElement;
+import edu.brown.cs.student.main.Cache.LRUCache;
 import edu.brown.cs.student.main.Cache.LinkedListNode;
 import edu.brown.cs.student.main.server.BroadbandHandler;
 import edu.brown.cs.student.main.server.SuccessResponse;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,6 +33,7 @@ import spark.Spark;
 public class TestMockedCache {
 
   CachedACSApi cachedApi;
+  LRUCache<StateCountyKey, BroadbandData> cache;
 
   @BeforeAll
   public static void setup_before_everything() {
@@ -37,7 +43,8 @@ public class TestMockedCache {
 
   @BeforeEach
   public void setup() {
-    cachedApi = new CachedACSApi(2, new MockACS());
+    cache = new LRUCache<>(2);
+    cachedApi = new CachedACSApi(cache, new MockACS());
     Spark.get("broadband", new BroadbandHandler(cachedApi));
     Spark.init();
     Spark.awaitInitialization();
@@ -89,30 +96,30 @@ public class TestMockedCache {
     assertEquals(200, connection.getResponseCode());
     BroadbandData response = SuccessResponse.getDataFromConnection(connection, BroadbandData.class);
     assertEquals(response, dataOakland);
-    assertEquals(1, cachedApi.getCache().getLinkedListNodeMap().size());
+    assertEquals(1, cache.getLinkedListNodeMap().size());
     connection.disconnect();
     connection = tryRequest(apiCall1);
     assertEquals(200, connection.getResponseCode());
-    assertEquals(1, cachedApi.getCache().getLinkedListNodeMap().size());
+    assertEquals(1, cache.getLinkedListNodeMap().size());
     connection.disconnect();
     connection = tryRequest(apiCall2);
     assertEquals(200, connection.getResponseCode());
-    assertEquals(2, cachedApi.getCache().getLinkedListNodeMap().size());
+    assertEquals(2, cache.getLinkedListNodeMap().size());
     Map<StateCountyKey, LinkedListNode<CacheElement<StateCountyKey, BroadbandData>>> expected =
         new HashMap<>();
     expected.put(keyOakland, kvOakland);
     expected.put(keyWayne, kvWayne);
-    assertEquals(cachedApi.getCache().getLinkedListNodeMap().keySet(), expected.keySet());
+    assertEquals(cache.getLinkedListNodeMap().keySet(), expected.keySet());
     connection.disconnect();
     connection = tryRequest(apiCall3);
     assertEquals(200, connection.getResponseCode());
-    assertEquals(2, cachedApi.getCache().getLinkedListNodeMap().size());
+    assertEquals(2, cache.getLinkedListNodeMap().size());
     expected.remove(keyOakland, kvOakland);
     expected.put(keyRiverside, kvRiverside);
-    assertEquals(cachedApi.getCache().getLinkedListNodeMap().keySet(), expected.keySet());
+    assertEquals(cache.getLinkedListNodeMap().keySet(), expected.keySet());
     connection.disconnect();
     LinkedListNode<CacheElement<StateCountyKey, BroadbandData>> head =
-        cachedApi.getCache().getDoublyLinkedList().getHead();
+        cache.getDoublyLinkedList().getHead();
     assertEquals(head.next.data, kvRiverside.data);
     assertEquals(head.next.next.data, kvWayne.data);
     connection = tryRequest(apiCall2);
@@ -124,7 +131,48 @@ public class TestMockedCache {
     assertEquals(200, connection.getResponseCode());
     assertEquals(head.next.data, kvOakland.data);
     assertEquals(head.next.next.data, kvWayne.data);
-    assertEquals(2, cachedApi.getCache().getLinkedListNodeMap().size());
+    assertEquals(2, cache.getLinkedListNodeMap().size());
     assertEquals(2, cachedApi.getAccesses());
   }
+
+  /**
+   * Tests that a batch request fetches only the counties that are not cached, in one upstream call,
+   * and caches what it fetched.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBatchFetchesMissesTogether() throws Exception {
+    MockACS mock = new MockACS();
+    List<List<String>> batches = new ArrayList<>();
+    CensusDatasource counting =
+        new CensusDatasource() {
+          @Override
+          public BroadbandData getBroadbandData(String state, String county) throws Exception {
+            batches.add(List.of(county));
+            return mock.getBroadbandData(state, county);
+          }
+
+          @Override
+          public Map<String, BroadbandData> getBroadbandData(String state, List<String> counties)
+              throws Exception {
+            batches.add(List.copyOf(counties));
+            return mock.getBroadbandData(state, counties);
+          }
+        };
+    CachedACSApi api = new CachedACSApi(new LRUCache<>(10), counting);
+    api.getBroadbandData("Michigan", "Wayne");
+
+    Map<String, BroadbandData> results =
+        api.getBroadbandData("Michigan", List.of("Kent", "Wayne", "Nowhere", "Oakland"));
+    assertEquals(List.of("Kent", "Wayne", "Oakland"), List.copyOf(results.keySet()));
+    assertEquals(List.of(List.of("Wayne"), List.of("Kent", "Nowhere", "Oakland")), batches);
+    assertEquals(1, api.getAccesses());
+    assertEquals(2, api.getCache().stats().loadSuccessCount());
+
+    api.getBroadbandData("Michigan", List.of("Oakland", "Kent"));
+    assertEquals(2, batches.size());
+    assertEquals(3, api.getAccesses());
+    assertTrue(api.getCache().get(new StateCountyKey("Michigan", "Kent")).isPresent());
+  }
 }
@@ -0,0 +1,63 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Parser.CSVTokenizer;
+import Parser.ParallelCSVTokenizer;
+import Parser.StateMachineTokenizer;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/** Tests that chunked, parallel tokenizing produces the same rows as a sequential pass. */
+public class TestParallelCSVTokenizer {
+
+  /**
+   * Uses tiny chunks so that boundaries land inside quoted fields, quoted newlines and multi-byte
+   * characters.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMatchesSequentialTokenizer() throws IOException {
+    StringBuilder csv = new StringBuilder("Name,Note\r\n");
+    for (int i = 0; i < 500; i++) {
+      csv.append("row").append(i).append(',');
+      switch (i % 4) {
+        case 0 -> csv.append("\"quoted, with comma\"");
+        case 1 -> csv.append("\"spans\nlines and \"\"quotes\"\"\"");
+        case 2 -> csv.append("Zürich ü");
+        default -> csv.append("");
+      }
+      csv.append(i % 2 == 0 ? "\n" : "\r\n");
+    }
+    Path file = Files.createTempFile("parallel", ".csv");
+    try {
+      Files.writeString(file, csv, StandardCharsets.UTF_8);
+      ParallelCSVTokenizer parallel = new ParallelCSVTokenizer(file, ForkJoinPool.commonPool(), 37);
+      assertTrue(parallel.chunkCount() > 1);
+      assertEquals(
+          readAll(new StateMachineTokenizer(new StringReader(csv.toString()))), readAll(parallel));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static List<List<String>> readAll(CSVTokenizer tokenizer) throws IOException {
+    List<List<String>> rows = new ArrayList<>();
+    try (tokenizer) {
+      List<String> row;
+      while ((row = tokenizer.nextRow()) != null) {
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+}
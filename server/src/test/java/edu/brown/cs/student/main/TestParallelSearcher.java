@@ -0,0 +1,72 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Searcher.ParallelSearcher;
+import Searcher.Searcher;
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Checks that parallel searches return the same rows, in the same order, as sequential ones. */
+public class TestParallelSearcher {
+  private ForkJoinPool pool;
+  private ColumnarTable table;
+
+  @BeforeEach
+  public void setup() {
+    pool = new ForkJoinPool(4);
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(List.of("race", "county", "slug"));
+    for (int i = 0; i < 50_000; i++) {
+      builder.addRow(List.of("Race " + (i % 7), "County " + (i % 3000) + ", RI", "Slug-" + i));
+    }
+    table = builder.build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testParallelMatchesSequential() {
+    ParallelSearcher searcher = new ParallelSearcher(pool, 0);
+    for (String query : List.of("slug-4", "COUNTY 29", "race 3", "1", "ri", "nothing")) {
+      for (boolean caseSensitive : new boolean[] {true, false}) {
+        for (Optional<Integer> column : List.of(Optional.<Integer>empty(), Optional.of(2))) {
+          assertArrayEquals(
+              Searcher.matchingRows(table, query, column, caseSensitive, true),
+              searcher.matchingRows(table, query, column, caseSensitive, true),
+              query);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallelWithTrigramIndex() {
+    ParallelSearcher searcher = new ParallelSearcher(pool, 0);
+    int[] expected = Searcher.matchingRows(table, "slug-4999", Optional.empty(), false, true);
+    table.buildTrigramIndexes();
+    assertArrayEquals(
+        expected, searcher.matchingRows(table, "slug-4999", Optional.empty(), false, true));
+    assertEquals(11, expected.length);
+  }
+
+  @Test
+  public void testExactAndSmallTablesStaySequential() {
+    ParallelSearcher searcher = new ParallelSearcher(pool, 1_000_000);
+    assertEquals(
+        List.of(List.of("Race 0", "County 7, RI", "Slug-7")),
+        searcher.search(table, "slug-7", Optional.of(2), false, false));
+    assertArrayEquals(
+        Searcher.matchingRows(table, "county 7,", Optional.of(1), false, true),
+        searcher.matchingRows(table, "county 7,", Optional.of(1), false, true));
+  }
+}
@@ -0,0 +1,142 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.Table.ColumnarTable;
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.Table.FileVersion;
+import edu.brown.cs.student.main.Table.ParsedFileCache;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for the cache of parsed files. */
+public class TestParsedFileCache {
+  @TempDir Path directory;
+
+  /**
+   * Tests that a table is reused until its file's size or modification time changes
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testHitsUntilFileChanges() throws IOException {
+    Path file = Files.writeString(directory.resolve("people.csv"), "Colin,19\n");
+    ParsedFileCache cache = new ParsedFileCache(1 << 20);
+    FileVersion version = FileVersion.of(file);
+    assertEquals(FileVersion.of(directory.resolve(".").resolve("people.csv")), version);
+    assertTrue(cache.get(version).isEmpty());
+    ColumnarTable table = table("Colin");
+    cache.set(version, table);
+    assertSame(table, cache.get(FileVersion.of(file)).orElseThrow());
+
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+    FileVersion touched = FileVersion.of(file);
+    assertNotEquals(version, touched);
+    assertTrue(cache.get(touched).isEmpty());
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(2, cache.stats().missCount());
+
+    assertThrows(FileNotFoundException.class, () -> FileVersion.of(directory.resolve("nope")));
+    assertThrows(FileNotFoundException.class, () -> FileVersion.of(directory));
+  }
+
+  /**
+   * Tests that the least recently used tables are evicted once over the budget
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEvictsOverBudget() throws IOException {
+    long bytes = table("a").memoryBytes();
+    ParsedFileCache cache = new ParsedFileCache(bytes * 5 / 2);
+    FileVersion a = FileVersion.of(Files.writeString(directory.resolve("a.csv"), "a"));
+    FileVersion b = FileVersion.of(Files.writeString(directory.resolve("b.csv"), "b"));
+    FileVersion c = FileVersion.of(Files.writeString(directory.resolve("c.csv"), "c"));
+    cache.set(a, table("a"));
+    cache.set(b, table("b"));
+    cache.get(a);
+    cache.set(c, table("c"));
+    assertEquals(2, cache.size());
+    assertTrue(cache.get(b).isEmpty());
+    assertTrue(cache.get(a).isPresent());
+    assertEquals(2 * bytes, cache.memoryBytes());
+    assertEquals(1, cache.stats().evictionCount());
+  }
+
+  /**
+   * Tests that tables registered as datasets are left to the registry's budget
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRegisteredTablesAreNotCharged() throws IOException {
+    long bytes = table("a").memoryBytes();
+    DatasetRegistry registry = new DatasetRegistry(1 << 20);
+    ParsedFileCache cache = new ParsedFileCache(bytes * 3 / 2, registry);
+    FileVersion a = FileVersion.of(Files.writeString(directory.resolve("a.csv"), "a"));
+    FileVersion b = FileVersion.of(Files.writeString(directory.resolve("b.csv"), "b"));
+    FileVersion c = FileVersion.of(Files.writeString(directory.resolve("c.csv"), "c"));
+    ColumnarTable shared = table("a");
+    cache.set(a, shared);
+    registry.put("a", shared);
+    cache.set(b, table("b"));
+    assertEquals(2, cache.size());
+    assertEquals(bytes, cache.chargedBytes());
+    assertEquals(2 * bytes, cache.memoryBytes());
+
+    // Once the registry drops the shared table, it counts against the cache again.
+    registry.remove("a");
+    cache.set(c, table("c"));
+    assertEquals(1, cache.size());
+    assertTrue(cache.get(c).isPresent());
+    assertEquals(2, cache.stats().evictionCount());
+  }
+
+  /**
+   * Tests that watching drops a table as soon as its file is changed
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWatcherDropsChangedFiles() throws Exception {
+    Path file = Files.writeString(directory.resolve("stars.csv"), "Sol,0\n");
+    try (ParsedFileCache cache = new ParsedFileCache(1 << 20)) {
+      cache.watch();
+      cache.set(FileVersion.of(file), table("Sol"));
+      Files.writeString(file, "Sol,0\nProxima,4\n");
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while (cache.size() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(0, cache.size());
+      assertEquals(0, cache.memoryBytes());
+    }
+  }
+
+  /**
+   * Builds a small table whose cells start with the given prefix.
+   *
+   * @param prefix The prefix of every cell.
+   * @return The table.
+   */
+  private static ColumnarTable table(String prefix) {
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 100; i++) {
+      builder.addRow(List.of(prefix + i, prefix + (i * 7)));
+    }
+    return builder.build();
+  }
+}
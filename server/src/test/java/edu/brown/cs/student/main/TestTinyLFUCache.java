@@ -0,0 +1,69 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.Cache.Cache;
+import edu.brown.cs.student.main.Cache.LRUCache;
+import edu.brown.cs.student.main.Cache.TinyLFUCache;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the W-TinyLFU cache. */
+public class TestTinyLFUCache {
+
+  @Test
+  public void testGetAndSet() {
+    TinyLFUCache<String, Integer> cache = new TinyLFUCache<>(10);
+    cache.set("a", 1);
+    assertEquals(Optional.of(1), cache.get("a"));
+    cache.set("a", 2);
+    assertEquals(Optional.of(2), cache.get("a"));
+    assertEquals(Optional.empty(), cache.get("b"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testNeverExceedsCapacity() {
+    for (int capacity : new int[] {1, 2, 10, 150}) {
+      TinyLFUCache<Integer, Integer> cache = new TinyLFUCache<>(capacity);
+      for (int i = 0; i < 10_000; i++) {
+        int key = (i * 31) % 997;
+        if (cache.get(key).isEmpty()) {
+          cache.set(key, key);
+        }
+        assertTrue(cache.size() <= capacity);
+      }
+      assertEquals(capacity, cache.size());
+    }
+  }
+
+  /** A scan over many one-off keys flushes LRU but leaves TinyLFU's frequently used keys. */
+  @Test
+  public void testHotKeysSurviveScan() {
+    LRUCache<Integer, Integer> lru = new LRUCache<>(100);
+    TinyLFUCache<Integer, Integer> tinyLfu = new TinyLFUCache<>(100);
+    for (int round = 0; round < 20; round++) {
+      for (int key = 0; key < 50; key++) {
+        for (Cache<Integer, Integer> cache : List.of(lru, tinyLfu)) {
+          if (cache.get(key).isEmpty()) {
+            cache.set(key, key);
+          }
+        }
+      }
+    }
+    for (int key = 1_000; key < 2_000; key++) {
+      lru.set(key, key);
+      tinyLfu.set(key, key);
+    }
+    int lruHits = 0;
+    int tinyLfuHits = 0;
+    for (int key = 0; key < 50; key++) {
+      lruHits += lru.get(key).isPresent() ? 1 : 0;
+      tinyLfuHits += tinyLfu.get(key).isPresent() ? 1 : 0;
+    }
+    assertEquals(0, lruHits);
+    assertEquals(50, tinyLfuHits);
+  }
+}
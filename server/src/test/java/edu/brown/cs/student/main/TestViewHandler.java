@@ -0,0 +1,109 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.Table.ColumnarTableBuilder;
+import edu.brown.cs.student.main.Table.DatasetRegistry;
+import edu.brown.cs.student.main.server.ViewHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import spark.RequestResponseFactory;
+
+/** Tests how /viewcsv ends a response that fails after its first rows have been sent. */
+public class TestViewHandler {
+
+  /**
+   * Tests that a failure in the middle of the stream cuts the body short rather than appending an
+   * error object to it or changing the status that was already sent
+   */
+  @Test
+  public void testFailureMidStreamEndsTheBody() {
+    DatasetRegistry datasets = new DatasetRegistry(1 << 30);
+    ColumnarTableBuilder builder = new ColumnarTableBuilder(null);
+    for (int i = 0; i < 10_000; i++) {
+      builder.addRow(List.of("row " + i, "cell " + i));
+    }
+    datasets.put("big", builder.build());
+
+    FailingOutput output = new FailingOutput(4096, 64 << 10);
+    List<Integer> statuses = new ArrayList<>();
+    HttpServletResponse rawResponse =
+        (HttpServletResponse)
+            Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {HttpServletResponse.class},
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "getOutputStream" -> output;
+                      case "isCommitted" -> output.committed;
+                      case "setStatus" -> {
+                        statuses.add((Integer) args[0]);
+                        yield null;
+                      }
+                      default -> null;
+                    });
+    Map<String, String> params = Map.of("dataset", "big");
+    HttpServletRequest rawRequest =
+        (HttpServletRequest)
+            Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) ->
+                    method.getName().equals("getParameter") ? params.get((String) args[0]) : null);
+
+    Object body =
+        new ViewHandler(datasets)
+            .handle(
+                RequestResponseFactory.create(rawRequest),
+                RequestResponseFactory.create(rawResponse));
+
+    assertEquals("", body);
+    assertTrue(output.committed);
+    assertEquals(List.of(), statuses);
+    String sent = output.bytes.toString(StandardCharsets.UTF_8);
+    assertTrue(sent.startsWith("{\"result\":\"success\""));
+    assertFalse(sent.contains("error"));
+  }
+
+  /** An output stream that counts as committed once some bytes are sent, and later fails. */
+  private static class FailingOutput extends ServletOutputStream {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final int commitAfter;
+    private final int failAfter;
+    volatile boolean committed;
+
+    FailingOutput(int commitAfter, int failAfter) {
+      this.commitAfter = commitAfter;
+      this.failAfter = failAfter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (bytes.size() >= failAfter) {
+        throw new IOException("connection reset");
+      }
+      bytes.write(b);
+      committed |= bytes.size() >= commitAfter;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {}
+  }
+}